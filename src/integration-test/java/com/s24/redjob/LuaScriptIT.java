@@ -0,0 +1,65 @@
+package com.s24.redjob;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Integration test for {@link LuaScript}.
+ */
+class LuaScriptIT {
+   /**
+    * Script under test.
+    */
+   private final LuaScript script = new LuaScript("return redis.call('incr', KEYS[1]);");
+
+   /**
+    * Redis access.
+    */
+   private RedisTemplate<?, ?> redis = new RedisTemplate<>();
+
+   @BeforeEach
+   void setUp() {
+      redis.setConnectionFactory(TestRedis.connectionFactory());
+      redis.afterPropertiesSet();
+   }
+
+   @Test
+   void eval() {
+      assertEquals(1L, (long) incr());
+      assertEquals(2L, (long) incr());
+   }
+
+   @Test
+   void eval_scriptFlush() {
+      assertEquals(1L, (long) incr());
+
+      // Redis forgets the script e.g. after a restart -> Script gets loaded again.
+      redis.execute((RedisConnection connection) -> {
+         connection.scriptFlush();
+         return null;
+      });
+      assertEquals(2L, (long) incr());
+
+      // Script has been loaded again by the previous call.
+      redis.execute((RedisConnection connection) -> {
+         assertEquals(List.of(true), connection.scriptExists(script.getSha1()));
+         return null;
+      });
+   }
+
+   /**
+    * Execute the script.
+    */
+   private Long incr() {
+      return redis.execute((RedisConnection connection) -> script.eval(connection, ReturnType.INTEGER, 1,
+            "key".getBytes(StandardCharsets.UTF_8)));
+   }
+}
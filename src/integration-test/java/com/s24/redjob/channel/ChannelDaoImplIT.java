@@ -0,0 +1,95 @@
+package com.s24.redjob.channel;
+
+import com.s24.redjob.TestRedis;
+import com.s24.redjob.worker.json.TestExecutionRedisSerializer;
+import com.s24.redjob.worker.runner.TestJob;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Integration test for {@link ChannelDaoImpl}.
+ */
+class ChannelDaoImplIT {
+   /**
+    * DAO under test.
+    */
+   private ChannelDaoImpl dao = new ChannelDaoImpl();
+
+   @BeforeEach
+   void setUp() {
+      dao.setConnectionFactory(TestRedis.connectionFactory());
+      dao.setNamespace("namespace");
+      dao.setExecutions(new TestExecutionRedisSerializer(TestJob.class));
+      dao.setCommandLogSize(3);
+      dao.afterPropertiesSet();
+   }
+
+   @Test
+   void readCommands() {
+      assertEquals(0, dao.getLastOffset("channel"));
+      assertEquals(List.of(), dao.readCommands("channel", 0, 10));
+
+      TestJob job1 = new TestJob("1");
+      TestJob job2 = new TestJob("2");
+      dao.publish("channel", job1);
+      dao.publish("channel", job2);
+      dao.publish("other", new TestJob("other"));
+      assertEquals(2, dao.getLastOffset("channel"));
+
+      List<ChannelCommand> commands = dao.readCommands("channel", 0, 10);
+      assertEquals(List.of(1L, 2L), offsets(commands));
+      assertEquals(job1, commands.get(0).getExecution().getJob());
+      assertEquals(job2, commands.get(1).getExecution().getJob());
+
+      // Batches.
+      assertEquals(List.of(1L), offsets(dao.readCommands("channel", 0, 1)));
+      assertEquals(List.of(2L), offsets(dao.readCommands("channel", 1, 1)));
+      assertEquals(List.of(), dao.readCommands("channel", 2, 1));
+   }
+
+   @Test
+   void readCommands_trimmed() {
+      for (int i = 1; i <= 5; i++) {
+         dao.publish("channel", new TestJob(Integer.toString(i)));
+      }
+
+      // Jobs 1 and 2 have been removed from the command log.
+      List<ChannelCommand> commands = dao.readCommands("channel", 0, 10);
+      assertEquals(List.of(3L, 4L, 5L), offsets(commands));
+      assertEquals(new TestJob("3"), commands.get(0).getExecution().getJob());
+      assertEquals(List.of(5L), offsets(dao.readCommands("channel", 4, 10)));
+   }
+
+   @Test
+   void offsets() {
+      assertNull(dao.getOffset("channel", "worker"));
+
+      dao.setOffset("channel", "worker", 42);
+      assertEquals(42L, dao.getOffset("channel", "worker"));
+      assertNull(dao.getOffset("channel", "other"));
+      assertNull(dao.getOffset("other", "worker"));
+
+      dao.setOffset("channel", "other", 41);
+      assertEquals(Map.of("worker", 42L, "other", 41L), dao.getOffsets("channel"));
+      assertEquals(Map.of(), dao.getOffsets("other"));
+
+      dao.removeOffset("channel", "other");
+      assertNull(dao.getOffset("channel", "other"));
+      assertEquals(Map.of("worker", 42L), dao.getOffsets("channel"));
+   }
+
+   /**
+    * Offsets of the given commands.
+    */
+   private List<Long> offsets(List<ChannelCommand> commands) {
+      return commands.stream().map(ChannelCommand::getOffset).collect(toList());
+   }
+}
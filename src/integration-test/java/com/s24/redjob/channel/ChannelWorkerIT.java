@@ -17,6 +17,10 @@ import com.s24.redjob.worker.runner.TestJob;
 import com.s24.redjob.worker.runner.TestJobRunner;
 import com.s24.redjob.worker.runner.TestJobRunnerFactory;
 
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -24,6 +28,9 @@ import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
  * Integration test for {@link ChannelDao} and {@link ChannelWorker}.
@@ -44,6 +51,11 @@ class ChannelWorkerIT {
     */
    private TestEventPublisher eventBus = new TestEventPublisher();
 
+   /**
+    * Channel worker factory.
+    */
+   private ChannelWorkerFactoryBean factory = new ChannelWorkerFactoryBean();
+
    @BeforeEach
    void setUp() throws Exception {
       RedisConnectionFactory connectionFactory = TestRedis.connectionFactory();
@@ -64,13 +76,18 @@ class ChannelWorkerIT {
       channelDao.setExecutions(new TestExecutionRedisSerializer(TestJob.class));
       channelDao.afterPropertiesSet();
 
-      ChannelWorkerFactoryBean factory = new ChannelWorkerFactoryBean();
       factory.setWorkerDao(workerDao);
       factory.setChannelDao(channelDao);
       factory.setChannels("test-channel");
       factory.setListenerContainer(listenerContainer);
       factory.setApplicationEventPublisher(eventBus);
       factory.setExecutionStrategy(new SameThread(new TestJobRunnerFactory()));
+   }
+
+   /**
+    * Start worker.
+    */
+   private void start() throws Exception {
       factory.afterPropertiesSet();
 
       channelWorker = factory.getObject();
@@ -84,11 +101,131 @@ class ChannelWorkerIT {
    @AfterEach
    void tearDown() {
       eventBus.doNotBlock();
-      channelWorker.stop();
+      if (channelWorker != null) {
+         channelWorker.stop();
+      }
    }
 
    @Test
    void testLifecycle() throws Exception {
+      start();
+      assertLifecycle();
+   }
+
+   @Test
+   void testLifecycle_executor() throws Exception {
+      factory.setThreads(2);
+      factory.setConcurrencyLimits(Map.of(TestJob.class.getSimpleName(), 1));
+      start();
+      assertLifecycle();
+   }
+
+   @Test
+   void testPublishAndCollect() throws Exception {
+      start();
+      eventBus.doNotBlock();
+
+      TestJob job = new TestJob();
+      List<Execution> replies = channelDao.publishAndCollect("test-channel", job, 500, TimeUnit.MILLISECONDS);
+
+      assertEquals(1, replies.size());
+      Execution reply = replies.get(0);
+      assertEquals(job, reply.getJob());
+      assertEquals(channelWorker.getName(), reply.getWorker());
+      assertNotNull(reply.getEnd());
+
+      // No worker listens to other channels.
+      assertEquals(List.of(), channelDao.publishAndCollect("other-channel", job, 100, TimeUnit.MILLISECONDS));
+   }
+
+   @Test
+   void testDurable() throws Exception {
+      factory.setName("durable");
+      factory.setDurable(true);
+      ChannelDao channelDao = factory.getChannelDao();
+
+      // Job published while the worker is down.
+      channelDao.setOffset("test-channel", "durable", channelDao.getLastOffset("test-channel"));
+      TestJob missed = new TestJob("missed");
+      channelDao.publish("test-channel", missed);
+
+      eventBus.doNotBlock();
+      start();
+      assertEquals(missed, TestJobRunner.getLastJob());
+      assertEquals(1L, channelDao.getOffset("test-channel", "durable"));
+
+      TestJob job = new TestJob("next");
+      channelDao.publish("test-channel", job);
+      for (int i = 0; i < 100 && channelDao.getOffset("test-channel", "durable") < 2; i++) {
+         Thread.sleep(10);
+      }
+      assertEquals(job, TestJobRunner.getLastJob());
+      assertEquals(2L, channelDao.getOffset("test-channel", "durable"));
+   }
+
+   @Test
+   void testDurable_name() {
+      // The generated name changes with every restart.
+      factory.setDurable(true);
+      assertThrows(IllegalArgumentException.class, factory::afterPropertiesSet);
+   }
+
+   @Test
+   void testDurable_executor() throws Exception {
+      factory.setName("durable");
+      factory.setDurable(true);
+      factory.setThreads(2);
+      ChannelDao channelDao = factory.getChannelDao();
+      long offset = channelDao.getLastOffset("test-channel");
+      channelDao.setOffset("test-channel", "durable", offset);
+
+      start();
+      assertEquals(new WorkerStart(channelWorker), eventBus.waitForEvent());
+
+      // The offset is not persisted before the job has been finished.
+      Execution execution = channelDao.publish("test-channel", new TestJob("running"));
+      assertEquals(new JobProcess(channelWorker, "test-channel", execution), eventBus.waitForEvent());
+      assertEquals(offset, channelDao.getOffset("test-channel", "durable"));
+
+      while (eventBus.waitForEvent(100, TimeUnit.MILLISECONDS) != null) {
+         // Let the job finish.
+      }
+      for (int i = 0; i < 100 && channelDao.getOffset("test-channel", "durable") <= offset; i++) {
+         Thread.sleep(10);
+      }
+      assertEquals(offset + 1, channelDao.getOffset("test-channel", "durable"));
+   }
+
+   @Test
+   void testDurable_executorFull() throws Exception {
+      factory.setName("durable");
+      factory.setDurable(true);
+      factory.setThreads(1);
+      factory.setQueueCapacity(1);
+      ChannelDao channelDao = factory.getChannelDao();
+      long offset = channelDao.getLastOffset("test-channel");
+      channelDao.setOffset("test-channel", "durable", offset);
+
+      // More jobs published while the worker is down than the executor accepts at once.
+      for (int i = 0; i < 5; i++) {
+         channelDao.publish("test-channel", new TestJob("missed " + i));
+      }
+
+      // No job gets rejected.
+      TestJobRunner.resetLatch(5);
+      eventBus.doNotBlock();
+      start();
+      assertTrue(TestJobRunner.awaitLatch(10, TimeUnit.SECONDS));
+      for (int i = 0; i < 100 && channelDao.getOffset("test-channel", "durable") < offset + 5; i++) {
+         Thread.sleep(10);
+      }
+      assertEquals(offset + 5, channelDao.getOffset("test-channel", "durable"));
+   }
+
+   /**
+    * Execute a job and stop the worker while the job is running.
+    */
+   private void assertLifecycle() throws Exception {
       TestJob job = new TestJob();
       TestJobRunner runner = new TestJobRunner(job);
 
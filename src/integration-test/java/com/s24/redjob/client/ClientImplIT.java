@@ -0,0 +1,190 @@
+package com.s24.redjob.client;
+
+import com.s24.redjob.TestRedis;
+import com.s24.redjob.queue.ExecutionChange;
+import com.s24.redjob.queue.ExecutionChange.Type;
+import com.s24.redjob.queue.FifoDao;
+import com.s24.redjob.worker.Execution;
+import com.s24.redjob.worker.json.TestExecutionRedisSerializer;
+import com.s24.redjob.worker.runner.TestJob;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Integration test for {@link ClientImpl}.
+ */
+class ClientImplIT {
+   /**
+    * Test queue.
+    */
+   private static final String QUEUE = "test-queue";
+
+   /**
+    * Factory for the client under test.
+    */
+   private ClientFactoryBean factory = new ClientFactoryBean();
+
+   /**
+    * Client under test.
+    */
+   private Client client;
+
+   /**
+    * Queue dao used by the client.
+    */
+   private FifoDao fifoDao;
+
+   @BeforeEach
+   void setUp() throws Exception {
+      factory.setConnectionFactory(TestRedis.connectionFactory());
+      factory.setNamespace("namespace");
+      factory.setExecutions(new TestExecutionRedisSerializer(TestJob.class));
+      factory.afterPropertiesSet();
+
+      client = factory.getObject();
+      fifoDao = ((ClientImpl) client).getFifoDao();
+
+      // Wait for subscription of client to the completion channel.
+      Thread.sleep(500);
+   }
+
+   @AfterEach
+   void tearDown() throws Exception {
+      factory.destroy();
+   }
+
+   @Test
+   void awaitResult() throws Exception {
+      TestJob job = new TestJob();
+      long id = client.enqueue(QUEUE, job);
+
+      CompletableFuture<Execution> result1 = client.awaitResult(id, 10, TimeUnit.SECONDS);
+      CompletableFuture<Execution> result2 = client.awaitResult(id, 10, TimeUnit.SECONDS);
+      assertThat(result1).isNotDone();
+
+      Execution execution = fifoDao.pop(QUEUE, "worker");
+      execution.start("worker");
+      TestJob result = new TestJob();
+      execution.setResult(result);
+      execution.stop();
+      fifoDao.finish(execution);
+
+      Execution completed = result1.get(5, TimeUnit.SECONDS);
+      assertThat(completed.getId()).isEqualTo(id);
+      assertThat(completed.getEnd()).isNotNull();
+      assertThat((TestJob) completed.getResult()).isEqualTo(result);
+      assertThat(result2.get(5, TimeUnit.SECONDS).getId()).isEqualTo(id);
+
+      // Already completed job executions complete immediately.
+      assertThat(client.awaitResult(id, 10, TimeUnit.SECONDS)).isCompletedWithValue(completed);
+   }
+
+   @Test
+   void awaitResult_unknown() {
+      assertThat(client.awaitResult(Long.MAX_VALUE, 10, TimeUnit.SECONDS)).isCompletedWithValue(null);
+   }
+
+   @Test
+   void awaitResult_timeout() {
+      long id = client.enqueue(QUEUE, new TestJob());
+
+      CompletableFuture<Execution> result = client.awaitResult(id, 100, TimeUnit.MILLISECONDS);
+      assertThatThrownBy(() -> result.get(5, TimeUnit.SECONDS))
+            .isInstanceOf(ExecutionException.class)
+            .hasCauseInstanceOf(TimeoutException.class);
+   }
+
+   @Test
+   void watch() throws Exception {
+      BlockingQueue<ExecutionChange> changes = new LinkedBlockingQueue<>();
+      Consumer<ExecutionChange> watcher = changes::add;
+      client.watch(watcher);
+      // Wait for subscription of client to the change channel.
+      Thread.sleep(500);
+
+      long id1 = client.enqueue(QUEUE, new TestJob());
+      assertThat(changes.poll(5, TimeUnit.SECONDS)).isEqualTo(new ExecutionChange(Type.ENQUEUED, id1, QUEUE));
+
+      Execution execution = fifoDao.pop(QUEUE, "worker");
+      execution.start("worker");
+      fifoDao.start(execution);
+      assertThat(changes.poll(5, TimeUnit.SECONDS)).isEqualTo(new ExecutionChange(Type.STARTED, id1, QUEUE));
+      execution.setResult(new TestJob());
+      fifoDao.update(execution);
+      assertThat(changes.poll(5, TimeUnit.SECONDS)).isEqualTo(new ExecutionChange(Type.PROGRESS, id1, QUEUE));
+      execution.stop();
+      fifoDao.finish(execution);
+      assertThat(changes.poll(5, TimeUnit.SECONDS)).isEqualTo(new ExecutionChange(Type.FINISHED, id1, QUEUE));
+
+      long id2 = client.enqueue(QUEUE, new TestJob());
+      assertThat(changes.poll(5, TimeUnit.SECONDS)).isEqualTo(new ExecutionChange(Type.ENQUEUED, id2, QUEUE));
+      client.dequeue(QUEUE, id2);
+      assertThat(changes.poll(5, TimeUnit.SECONDS)).isEqualTo(new ExecutionChange(Type.DEQUEUED, id2, QUEUE));
+
+      client.unwatch(watcher);
+      Thread.sleep(500);
+      client.enqueue(QUEUE, new TestJob());
+      assertThat(changes.poll(500, TimeUnit.MILLISECONDS)).isNull();
+   }
+
+   @Test
+   void execution_cached() throws Exception {
+      ClientFactoryBean factory = new ClientFactoryBean();
+      factory.setConnectionFactory(TestRedis.connectionFactory());
+      factory.setNamespace("namespace");
+      factory.setExecutions(new TestExecutionRedisSerializer(TestJob.class));
+      factory.setCacheSize(10);
+      factory.afterPropertiesSet();
+      ClientImpl client = (ClientImpl) factory.getObject();
+      // Wait for subscription of client to the change channel.
+      Thread.sleep(500);
+
+      try {
+         long id = client.enqueue(QUEUE, new TestJob());
+         Execution execution = client.execution(id);
+         assertThat(client.execution(id)).isSameAs(execution);
+         assertThat(client.getExecutionCache().getHitRate()).isEqualTo(0.5);
+
+         // Updates invalidate the cached execution.
+         Execution popped = fifoDao.pop(QUEUE, "worker");
+         popped.start("worker");
+         fifoDao.start(popped);
+         Thread.sleep(500);
+         assertThat(client.execution(id).getWorker()).isEqualTo("worker");
+
+         client.dequeue(QUEUE, id);
+         assertThat(client.execution(id)).isNull();
+      } finally {
+         factory.destroy();
+      }
+   }
+
+   @Test
+   void cancel() {
+      long id1 = client.enqueue(QUEUE, new TestJob("cancel"));
+      long id2 = client.enqueue(QUEUE, new TestJob("keep"));
+      long id3 = client.enqueue(QUEUE, new TestJob("cancel"));
+
+      assertThat(client.cancel(QUEUE, job -> "cancel".equals(((TestJob) job).getValue()))).isEqualTo(2);
+      assertThat(client.queuedExecutions(QUEUE)).extracting(Execution::getId).containsExactly(id2);
+      assertThat(client.execution(id1)).isNull();
+      assertThat(client.execution(id3)).isNull();
+
+      assertThat(client.cancel(List.of(id1, id2))).isEqualTo(1);
+      assertThat(client.queuedExecutions(QUEUE)).isEmpty();
+   }
+}
@@ -2,9 +2,14 @@ package com.s24.redjob.lock;
 
 import com.s24.redjob.TestRedis;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -125,4 +130,249 @@ class LockDaoImplIT {
       // After releasing the lock someone else should be able to acquire the lock.
       assertTrue(dao.tryLock("test", "someoneelse", 10, TimeUnit.SECONDS));
    }
+
+   @Test
+   void acquireLock() {
+      long token = dao.acquireLock("test", "holder", 10, TimeUnit.SECONDS);
+      assertTrue(token > 0);
+
+      // Refreshing the lock keeps the token.
+      assertEquals(token, dao.acquireLock("test", "holder", 10, TimeUnit.SECONDS));
+      assertEquals(0, dao.acquireLock("test", "someoneelse", 10, TimeUnit.SECONDS));
+
+      // Acquiring the lock again increases the token.
+      dao.releaseLock("test", "holder");
+      assertEquals(token + 1, dao.acquireLock("test", "someoneelse", 10, TimeUnit.SECONDS));
+   }
+
+   @Test
+   void renewLocks() {
+      String key = "namespace:lock:test";
+
+      assertTrue(dao.tryLock("test", "holder", 1, TimeUnit.SECONDS));
+      assertTrue(dao.tryLock("other", "someoneelse", 1, TimeUnit.SECONDS));
+
+      assertEquals(Set.of("other", "missing"),
+            dao.renewLocks(Map.of("test", "holder", "other", "holder", "missing", "holder"), 10, TimeUnit.SECONDS));
+      assertTrue(redis.getExpire(key, TimeUnit.MILLISECONDS) > 9000);
+      assertTrue(redis.getExpire("namespace:lock:other", TimeUnit.MILLISECONDS) <= 1000);
+
+      assertEquals(Set.of(), dao.renewLocks(Map.of(), 10, TimeUnit.SECONDS));
+   }
+
+   @Test
+   void lock() throws Exception {
+      long token = dao.lock("test", "holder", 10, 0, TimeUnit.SECONDS);
+      assertTrue(token > 0);
+
+      ExecutorService pool = Executors.newFixedThreadPool(2);
+      try {
+         Future<Long> waiter1 = pool.submit(() -> dao.lock("test", "waiter1", 10, 10, TimeUnit.SECONDS));
+         Thread.sleep(200);
+         Future<Long> waiter2 = pool.submit(() -> dao.lock("test", "waiter2", 10, 10, TimeUnit.SECONDS));
+         Thread.sleep(200);
+         assertFalse(waiter1.isDone());
+         assertFalse(waiter2.isDone());
+
+         // Release wakes up just the longest waiting holder and that immediately.
+         dao.releaseLock("test", "holder");
+         assertEquals(token + 1, (long) waiter1.get(500, TimeUnit.MILLISECONDS));
+         Thread.sleep(200);
+         assertFalse(waiter2.isDone());
+
+         dao.releaseLock("test", "waiter1");
+         assertEquals(token + 2, (long) waiter2.get(500, TimeUnit.MILLISECONDS));
+      } finally {
+         pool.shutdownNow();
+      }
+   }
+
+   @Test
+   void lock_expired() {
+      assertTrue(dao.tryLock("test", "holder", 500, TimeUnit.MILLISECONDS));
+
+      // Waiters wake up when the lease of the current holder expires.
+      assertTrue(dao.lock("test", "waiter", 10_000, 5_000, TimeUnit.MILLISECONDS) > 0);
+   }
+
+   @Test
+   void lock_timeout() {
+      assertTrue(dao.tryLock("test", "holder", 10, TimeUnit.SECONDS));
+
+      long start = System.currentTimeMillis();
+      assertEquals(0, dao.lock("test", "waiter", 10, 1, TimeUnit.SECONDS));
+      assertTrue(System.currentTimeMillis() - start >= 1000);
+   }
+
+   @Test
+   void lock_timeoutBelowSecond() {
+      assertTrue(dao.tryLock("test", "holder", 10, TimeUnit.SECONDS));
+
+      // Waits below a second do not get rounded up to the resolution of blocking pops.
+      long start = System.currentTimeMillis();
+      assertEquals(0, dao.lock("test", "waiter", 10_000, 1_500, TimeUnit.MILLISECONDS));
+      long waited = System.currentTimeMillis() - start;
+      assertTrue(waited >= 1500);
+      assertTrue(waited < 1900);
+   }
+
+   @Test
+   void semaphore() throws Exception {
+      String key = "namespace:semaphore:test";
+
+      assertTrue(dao.tryAcquireSemaphore("test", "holder1", 2, 10, TimeUnit.SECONDS));
+      assertTrue(dao.tryAcquireSemaphore("test", "holder2", 2, 10, TimeUnit.SECONDS));
+      assertFalse(dao.tryAcquireSemaphore("test", "holder3", 2, 10, TimeUnit.SECONDS));
+      assertEquals(Set.of("holder1", "holder2"), redis.opsForZSet().range(key, 0, -1));
+
+      // Holders may refresh their permits.
+      assertTrue(dao.tryAcquireSemaphore("test", "holder1", 2, 10, TimeUnit.SECONDS));
+
+      dao.releaseSemaphore("test", "holder1");
+      assertTrue(dao.tryAcquireSemaphore("test", "holder3", 2, 10, TimeUnit.SECONDS));
+   }
+
+   @Test
+   void semaphore_expired() throws Exception {
+      assertTrue(dao.tryAcquireSemaphore("test", "crashed", 1, 200, TimeUnit.MILLISECONDS));
+      assertFalse(dao.tryAcquireSemaphore("test", "holder", 1, 10_000, TimeUnit.MILLISECONDS));
+
+      // Permits of crashed holders expire.
+      Thread.sleep(300);
+      assertTrue(dao.tryAcquireSemaphore("test", "holder", 1, 10_000, TimeUnit.MILLISECONDS));
+   }
+
+   @Test
+   void semaphore_parallel() throws Exception {
+      final int permits = 3;
+
+      AtomicInteger active = new AtomicInteger();
+      AtomicInteger maxActive = new AtomicInteger();
+      AtomicInteger acquired = new AtomicInteger();
+      contend(20, holder -> {
+         if (dao.tryAcquireSemaphore("test", holder, permits, 10, TimeUnit.SECONDS)) {
+            acquired.incrementAndGet();
+            maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+            Thread.sleep(5);
+            active.decrementAndGet();
+            dao.releaseSemaphore("test", holder);
+         }
+      });
+
+      assertTrue(acquired.get() > 0);
+      assertTrue(maxActive.get() <= permits, "Max " + permits + " permits expected, but were " + maxActive.get());
+   }
+
+   @Test
+   void readWriteLock() {
+      // Readers share the lock.
+      assertTrue(dao.tryReadLock("test", "reader1", 10, TimeUnit.SECONDS));
+      assertTrue(dao.tryReadLock("test", "reader2", 10, TimeUnit.SECONDS));
+      assertFalse(dao.tryWriteLock("test", "writer", 10, TimeUnit.SECONDS));
+
+      // The only reader may upgrade to a writer.
+      dao.releaseReadLock("test", "reader2");
+      assertTrue(dao.tryWriteLock("test", "reader1", 10, TimeUnit.SECONDS));
+      dao.releaseReadLock("test", "reader1");
+
+      // Writers are exclusive.
+      assertFalse(dao.tryReadLock("test", "reader2", 10, TimeUnit.SECONDS));
+      assertFalse(dao.tryWriteLock("test", "writer", 10, TimeUnit.SECONDS));
+
+      dao.releaseWriteLock("test", "reader1");
+      assertTrue(dao.tryWriteLock("test", "writer", 10, TimeUnit.SECONDS));
+   }
+
+   @Test
+   void readWriteLock_expired() throws Exception {
+      assertTrue(dao.tryReadLock("test", "crashed", 200, TimeUnit.MILLISECONDS));
+      assertFalse(dao.tryWriteLock("test", "writer", 10_000, TimeUnit.MILLISECONDS));
+
+      // Read locks of crashed holders expire.
+      Thread.sleep(300);
+      assertTrue(dao.tryWriteLock("test", "writer", 10_000, TimeUnit.MILLISECONDS));
+   }
+
+   @Test
+   void readWriteLock_parallel() throws Exception {
+      AtomicInteger readers = new AtomicInteger();
+      AtomicInteger writers = new AtomicInteger();
+      AtomicInteger reads = new AtomicInteger();
+      AtomicInteger writes = new AtomicInteger();
+      AtomicInteger violations = new AtomicInteger();
+      contend(8, holder -> {
+         if (Integer.parseInt(holder) % 4 == 0) {
+            if (dao.tryWriteLock("test", holder, 10, TimeUnit.SECONDS)) {
+               writes.incrementAndGet();
+               if (writers.incrementAndGet() > 1 || readers.get() > 0) {
+                  violations.incrementAndGet();
+               }
+               Thread.sleep(5);
+               writers.decrementAndGet();
+               dao.releaseWriteLock("test", holder);
+            }
+         } else {
+            if (dao.tryReadLock("test", holder, 10, TimeUnit.SECONDS)) {
+               reads.incrementAndGet();
+               readers.incrementAndGet();
+               if (writers.get() > 0) {
+                  violations.incrementAndGet();
+               }
+               Thread.sleep(2);
+               readers.decrementAndGet();
+               dao.releaseReadLock("test", holder);
+            }
+            // Give writers a chance.
+            Thread.sleep(5);
+         }
+      });
+
+      assertTrue(reads.get() > 0);
+      assertTrue(writes.get() > 0);
+      assertEquals(0, violations.get());
+   }
+
+   /**
+    * Let the given number of threads execute the given action repeatedly for one second.
+    *
+    * @param threads
+    *           Number of threads. The holder passed to the action is the index of the thread.
+    * @param action
+    *           Action.
+    */
+   private void contend(int threads, Action action) throws Exception {
+      ExecutorService pool = Executors.newFixedThreadPool(threads);
+      try {
+         long end = System.currentTimeMillis() + 1000;
+         List<Future<?>> futures = new ArrayList<>();
+         for (int i = 0; i < threads; i++) {
+            String holder = Integer.toString(i);
+            futures.add(pool.submit(() -> {
+               while (System.currentTimeMillis() < end) {
+                  action.execute(holder);
+               }
+               return null;
+            }));
+         }
+         for (Future<?> future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+         }
+      } finally {
+         pool.shutdownNow();
+      }
+   }
+
+   /**
+    * Action executed by {@link #contend(int, Action)}.
+    */
+   @FunctionalInterface
+   private interface Action {
+      /**
+       * Execute action.
+       *
+       * @param holder
+       *           Holder.
+       */
+      void execute(String holder) throws Exception;
+   }
 }
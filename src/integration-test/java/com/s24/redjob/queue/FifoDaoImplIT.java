@@ -6,13 +6,24 @@ import com.s24.redjob.worker.json.ExecutionRedisSerializer;
 import com.s24.redjob.worker.json.TestExecutionRedisSerializer;
 import com.s24.redjob.worker.runner.TestJob;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -31,6 +42,11 @@ class FifoDaoImplIT {
     */
    private FifoDaoImpl dao = new FifoDaoImpl();
 
+   /**
+    * Redis access.
+    */
+   private StringRedisTemplate redis;
+
    @BeforeEach
    void setUp()  {
       ExecutionRedisSerializer executions = new TestExecutionRedisSerializer(TestJob.class);
@@ -40,6 +56,10 @@ class FifoDaoImplIT {
       dao.setNamespace("namespace");
       dao.setExecutions(executions);
       dao.afterPropertiesSet();
+
+      redis = new StringRedisTemplate();
+      redis.setConnectionFactory(connectionFactory);
+      redis.afterPropertiesSet();
    }
 
    @Test
@@ -62,6 +82,88 @@ class FifoDaoImplIT {
       assertEquals(job2, execution2.getJob());
    }
 
+   @Test
+   void pause() {
+      long id = dao.enqueue(QUEUE, new TestJob(), false).getId();
+
+      dao.pause(QUEUE, true);
+      assertEquals(Set.of(QUEUE), dao.getPausedQueues());
+      assertEquals(PopResult.PAUSED, dao.tryPop(QUEUE, "worker"));
+      assertNull(dao.pop(QUEUE, "worker"));
+      assertEquals(ExecutionStatus.QUEUED, dao.getStatus(id));
+
+      dao.pause(QUEUE, false);
+      assertEquals(Set.of(), dao.getPausedQueues());
+      PopResult result = dao.tryPop(QUEUE, "worker");
+      assertEquals(PopResult.Status.JOB, result.getStatus());
+      assertEquals(id, result.getExecution().getId());
+      assertEquals(PopResult.EMPTY, dao.tryPop(QUEUE, "worker"));
+   }
+
+   @Test
+   void limit() {
+      long id1 = dao.enqueue(QUEUE, new TestJob(), false).getId();
+      long id2 = dao.enqueue(QUEUE, new TestJob(), false).getId();
+      long id3 = dao.enqueue(QUEUE, new TestJob(), false).getId();
+
+      dao.limit(QUEUE, 1);
+      assertEquals(Map.of(QUEUE, 1), dao.getLimits());
+      assertEquals(id1, dao.pop(QUEUE, "worker1").getId());
+      assertNull(dao.pop(QUEUE, "worker2"));
+      assertEquals(PopResult.NO_PERMIT, dao.tryPop(QUEUE, "worker2"));
+      assertEquals(ExecutionStatus.QUEUED, dao.getStatus(id2));
+
+      // Completion releases the permit.
+      dao.removeInflight(QUEUE, "worker1");
+      assertEquals(id2, dao.pop(QUEUE, "worker2").getId());
+
+      // Restart of a worker releases its permit too.
+      dao.restoreInflight(QUEUE, "worker2");
+      assertEquals(id2, dao.pop(QUEUE, "worker3").getId());
+      dao.removeInflight(QUEUE, "worker3");
+
+      dao.limit(QUEUE, 0);
+      assertEquals(Map.of(), dao.getLimits());
+      assertEquals(id3, dao.pop(QUEUE, "worker1").getId());
+   }
+
+   @Test
+   void limit_expired() throws Exception {
+      dao.setPermitLeaseMillis(200);
+      long id1 = dao.enqueue(QUEUE, new TestJob(), false).getId();
+      long id2 = dao.enqueue(QUEUE, new TestJob(), false).getId();
+
+      dao.limit(QUEUE, 1);
+      assertEquals(id1, dao.pop(QUEUE, "crashed").getId());
+      assertNull(dao.pop(QUEUE, "worker"));
+
+      // Permits of crashed workers are reclaimed.
+      Thread.sleep(300);
+      assertEquals(id2, dao.pop(QUEUE, "worker").getId());
+   }
+
+   @Test
+   void renewPermit() throws Exception {
+      dao.setPermitLeaseMillis(200);
+      long id1 = dao.enqueue(QUEUE, new TestJob(), false).getId();
+      dao.enqueue(QUEUE, new TestJob(), false);
+
+      dao.limit(QUEUE, 1);
+      assertEquals(id1, dao.pop(QUEUE, "running").getId());
+
+      // Permits of running workers do not expire.
+      for (int i = 0; i < 3; i++) {
+         Thread.sleep(100);
+         assertTrue(dao.renewPermit(QUEUE, "running"));
+      }
+      assertNull(dao.pop(QUEUE, "worker"));
+
+      // Workers without permit can not renew.
+      assertFalse(dao.renewPermit(QUEUE, "worker"));
+      dao.removeInflight(QUEUE, "running");
+      assertFalse(dao.renewPermit(QUEUE, "running"));
+   }
+
    @Test
    void enqueue_priority() {
       TestJob jobNormal = new TestJob();
@@ -83,6 +185,137 @@ class FifoDaoImplIT {
       assertEquals(jobNormal, execution2.getJob());
    }
 
+   @Test
+   void get_multiple() {
+      // More jobs than fit into one chunk.
+      List<Long> ids = new ArrayList<>();
+      for (int i = 0; i < 1500; i++) {
+         ids.add(dao.enqueue(QUEUE, new TestJob(Integer.toString(i)), false).getId());
+      }
+      Collections.reverse(ids);
+      ids.add(1, Long.MAX_VALUE);
+
+      List<Execution> executions = dao.get(ids);
+      ids.remove(Long.valueOf(Long.MAX_VALUE));
+      assertThat(executions).extracting(Execution::getId).containsExactlyElementsOf(ids);
+   }
+
+   @Test
+   void getStatus() {
+      long id = dao.enqueue(QUEUE, new TestJob(), false).getId();
+      assertEquals(ExecutionStatus.QUEUED, dao.getStatus(id));
+
+      Execution execution = dao.pop(QUEUE, "worker");
+      assertEquals(ExecutionStatus.RUNNING, dao.getStatus(id));
+      dao.restoreInflight(QUEUE, "worker");
+      assertEquals(ExecutionStatus.QUEUED, dao.getStatus(id));
+
+      execution = dao.pop(QUEUE, "worker");
+      execution.start("worker");
+      dao.start(execution);
+      execution.stop();
+      dao.finish(execution);
+      assertEquals(ExecutionStatus.SUCCEEDED, dao.getStatus(id));
+
+      dao.cancel(List.of(id));
+      assertNull(dao.getStatus(id));
+   }
+
+   @Test
+   void getIds() {
+      Instant start = Instant.now();
+      long id1 = dao.enqueue(QUEUE, new TestJob(), false).getId();
+      long id2 = dao.enqueue(QUEUE, new TestJob(), false).getId();
+      long id3 = dao.enqueue(QUEUE, new TestJob(), false).getId();
+      assertThat(dao.getIds(ExecutionStatus.QUEUED, null, null)).containsExactly(id1, id2, id3);
+
+      Execution execution1 = dao.pop(QUEUE, "worker");
+      Execution execution2 = dao.pop(QUEUE, "worker");
+      assertThat(dao.getIds(ExecutionStatus.QUEUED, null, null)).containsExactly(id3);
+      assertThat(dao.getIds(ExecutionStatus.RUNNING, null, null)).containsExactlyInAnyOrder(id1, id2);
+
+      execution1.start("worker");
+      execution1.stop();
+      dao.finish(execution1);
+      execution2.start("worker");
+      execution2.fail();
+      dao.finish(execution2);
+      assertThat(dao.getIds(ExecutionStatus.RUNNING, null, null)).isEmpty();
+      assertThat(dao.getIds(ExecutionStatus.SUCCEEDED, null, null)).containsExactly(id1);
+      assertThat(dao.getIds(ExecutionStatus.FAILED, start, null)).containsExactly(id2);
+      assertThat(dao.getIds(ExecutionStatus.FAILED, null, start.minusSeconds(1))).isEmpty();
+      assertTrue(dao.get(id2).isFailed());
+
+      dao.cancel(List.of(id1, id2, id3));
+      for (ExecutionStatus status : ExecutionStatus.values()) {
+         assertThat(dao.getIds(status, null, null)).isEmpty();
+      }
+   }
+
+   @Test
+   void getQueueStats() throws Exception {
+      // Workers register themselves.
+      redis.opsForSet().add("namespace:workers", "worker");
+
+      dao.enqueue(QUEUE, new TestJob(), false);
+      dao.enqueue(QUEUE, new TestJob(), false);
+      dao.enqueue(QUEUE, new TestJob(), false);
+      dao.enqueue(QUEUE + "2", new TestJob(), false);
+      dao.pop(QUEUE + "2", "worker");
+      dao.pop(QUEUE, "worker");
+      Thread.sleep(10);
+
+      List<QueueStats> stats = dao.getQueueStats();
+      assertThat(stats).extracting(QueueStats::getQueue).containsExactlyInAnyOrder(QUEUE, QUEUE + "2");
+      QueueStats queue = stats.stream().filter(s -> s.getQueue().equals(QUEUE)).findFirst().get();
+      assertEquals(2, queue.getLength());
+      assertEquals(1, queue.getInflight());
+      assertThat(queue.getOldestAge()).isGreaterThan(Duration.ZERO);
+      QueueStats queue2 = stats.stream().filter(s -> s.getQueue().equals(QUEUE + "2")).findFirst().get();
+      assertEquals(0, queue2.getLength());
+      assertEquals(1, queue2.getInflight());
+      assertNull(queue2.getOldestAge());
+   }
+
+   @Test
+   void cancel() {
+      long id1 = dao.enqueue(QUEUE, new TestJob(), false).getId();
+      long id2 = dao.enqueue(QUEUE, new TestJob(), false).getId();
+      long id3 = dao.enqueue(QUEUE, new TestJob(), false).getId();
+
+      assertEquals(2, dao.cancel(List.of(id1, id2, Long.MAX_VALUE)));
+      assertNull(dao.get(id1));
+      assertThat(dao.getQueued(QUEUE)).extracting(Execution::getId).containsExactly(id3);
+      // Ids of cancelled jobs are not counted and do not hide the oldest queued job.
+      QueueStats stats = dao.getQueueStats().get(0);
+      assertEquals(1, stats.getLength());
+      assertNotNull(stats.getOldestAge());
+
+      // Pop discards the ids of the cancelled jobs.
+      assertEquals(id3, dao.pop(QUEUE, "worker").getId());
+      assertNull(dao.pop(QUEUE, "worker"));
+      assertEquals(0, redis.opsForList().size("namespace:queue:" + QUEUE));
+      assertEquals("0", redis.opsForHash().get("namespace:tombstones", QUEUE));
+      assertThat(dao.getInflight(QUEUE, "worker")).extracting(Execution::getId).containsExactly(id3);
+
+      // Running jobs get deleted, but are not counted as cancelled.
+      assertEquals(0, dao.cancel(List.of(id3)));
+      assertNull(dao.get(id3));
+   }
+
+   @Test
+   void cancel_manyAtHead() {
+      List<Long> ids = new ArrayList<>();
+      for (int i = 0; i < 1500; i++) {
+         ids.add(dao.enqueue(QUEUE, new TestJob(), false).getId());
+      }
+      long id = dao.enqueue(QUEUE, new TestJob(), false).getId();
+      assertEquals(1500, dao.cancel(ids));
+
+      // Pop skips more cancelled jobs than it discards per call.
+      assertEquals(id, dao.pop(QUEUE, "worker").getId());
+   }
+
    @Test
    void dequeue() {
       // Nothing to delete -> return false.
@@ -95,6 +328,11 @@ class FifoDaoImplIT {
       // Check that the job got dequeued.
       assertTrue(dequeued);
       assertNull(dao.pop(QUEUE, "worker"));
+
+      // Running jobs cannot be dequeued anymore.
+      long running = dao.enqueue(QUEUE, new TestJob(), false).getId();
+      dao.pop(QUEUE, "worker");
+      assertFalse(dao.dequeue(QUEUE, running));
    }
 
    @Test
@@ -114,6 +352,83 @@ class FifoDaoImplIT {
       assertEquals(job, dao.get(id).getJob());
    }
 
+   @Test
+   void update() {
+      TestJob job = new TestJob();
+      dao.enqueue(QUEUE, job, false);
+      Execution execution = dao.pop(QUEUE, "worker");
+      String id = Long.toString(execution.getId());
+      Object jobJson = redis.opsForHash().get("namespace:jobs", id);
+
+      execution.start("worker");
+      execution.setResult(new TestJob("result"));
+      dao.update(execution);
+
+      // Check that just the state has been written.
+      assertEquals(jobJson, redis.opsForHash().get("namespace:jobs", id));
+      assertNotNull(redis.opsForHash().get("namespace:states", id));
+
+      Execution updated = dao.get(execution.getId());
+      assertEquals(job, updated.getJob());
+      assertEquals("worker", updated.getWorker());
+      assertNotNull(updated.getStart());
+      assertNull(updated.getEnd());
+      assertEquals(new TestJob("result"), updated.getResult());
+
+      // Check that updates of already deleted jobs do not create stale states.
+      dao.dequeue(QUEUE, execution.getId());
+      dao.update(execution);
+      assertNull(dao.get(execution.getId()));
+      assertFalse(redis.opsForHash().hasKey("namespace:states", id));
+   }
+
+   @Test
+   void update_batch() {
+      dao.enqueue(QUEUE, new TestJob(), false);
+      dao.enqueue(QUEUE, new TestJob(), false);
+      Execution execution1 = dao.pop(QUEUE, "worker");
+      execution1.start("worker");
+      dao.update(execution1);
+      Execution execution2 = dao.pop(QUEUE, "worker");
+      execution2.start("worker");
+      dao.update(execution2);
+
+      // Nothing changed -> nothing to update.
+      assertThat(dao.update(List.of(execution1, execution2))).isEmpty();
+
+      // Just changed executions get updated.
+      execution2.setResult(new TestJob("result"));
+      assertThat(dao.update(List.of(execution1, execution2))).containsExactly(execution2);
+      assertEquals(new TestJob("result"), dao.get(execution2.getId()).getResult());
+
+      // Check that updates of already deleted jobs do not create stale states.
+      dao.dequeue(QUEUE, execution1.getId());
+      execution1.setResult(new TestJob("result"));
+      assertThat(dao.update(List.of(execution1, execution2))).isEmpty();
+      assertFalse(redis.opsForHash().hasKey("namespace:states", Long.toString(execution1.getId())));
+   }
+
+   @Test
+   void update_finished() {
+      dao.enqueue(QUEUE, new TestJob(), false);
+      Execution execution = dao.pop(QUEUE, "worker");
+      execution.start("worker");
+      dao.start(execution);
+
+      // Late update with a state serialized before the execution has been finished.
+      Execution late = dao.get(execution.getId());
+      late.setResult(new TestJob("late"));
+      execution.stop();
+      dao.finish(execution);
+      assertThat(dao.update(List.of(late))).isEmpty();
+      dao.update(late);
+
+      Execution finished = dao.get(execution.getId());
+      assertEquals(ExecutionStatus.SUCCEEDED, dao.getStatus(execution.getId()));
+      assertNotNull(finished.getEnd());
+      assertNotEquals(new TestJob("late"), finished.getResult());
+   }
+
    @Test
    void getQueued() {
       // No job -> return null.
@@ -134,6 +449,25 @@ class FifoDaoImplIT {
             .containsOnly(job1);
    }
 
+   @Test
+   void forEachQueued() {
+      List<Long> ids = new ArrayList<>();
+      for (int i = 0; i < 2500; i++) {
+         ids.add(dao.enqueue(QUEUE, new TestJob(), false).getId());
+      }
+      dao.cancel(ids.subList(0, 10));
+
+      List<Integer> chunkSizes = new ArrayList<>();
+      Set<Long> queued = new HashSet<>();
+      dao.forEachQueued(QUEUE, executions -> {
+         chunkSizes.add(executions.size());
+         executions.forEach(execution -> queued.add(execution.getId()));
+      });
+      // Ids of cancelled jobs are still in the queue, but their executions are skipped.
+      assertThat(chunkSizes).containsExactly(1000, 1000, 490);
+      assertThat(queued).containsExactlyInAnyOrderElementsOf(ids.subList(10, 2500));
+   }
+
    @Test
    void getAll() {
       // No job -> return null.
@@ -10,6 +10,7 @@ import com.s24.redjob.worker.events.JobProcess;
 import com.s24.redjob.worker.events.JobStart;
 import com.s24.redjob.worker.events.JobSuccess;
 import com.s24.redjob.worker.events.WorkerNext;
+import com.s24.redjob.worker.events.WorkerPause;
 import com.s24.redjob.worker.events.WorkerPoll;
 import com.s24.redjob.worker.events.WorkerStart;
 import com.s24.redjob.worker.events.WorkerStopped;
@@ -20,12 +21,15 @@ import com.s24.redjob.worker.runner.TestJob;
 import com.s24.redjob.worker.runner.TestJobRunner;
 import com.s24.redjob.worker.runner.TestJobRunnerFactory;
 
+import java.util.concurrent.TimeUnit;
+
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
@@ -134,4 +138,32 @@ class FifoWorkerImplIT {
       assertEquals(new WorkerNext(worker, "test-queue"), eventBus.waitForEvent());
       assertEquals(new WorkerStopped(worker), eventBus.waitForEvent());
    }
+
+   @Test
+   void testPausedQueue() throws Exception {
+      TestJob job = new TestJob();
+      TestJobRunner runner = new TestJobRunner(job);
+      worker.setPausedQueuesSleepMillis(100);
+      fifoDao.pause("test-queue", true);
+      Execution execution = fifoDao.enqueue("test-queue", job, false);
+
+      worker.start();
+
+      assertEquals(new WorkerStart(worker), eventBus.waitForEvent());
+      assertEquals(new WorkerPoll(worker, "test-queue"), eventBus.waitForEvent());
+      assertEquals(new WorkerNext(worker, "test-queue"), eventBus.waitForEvent());
+      assertEquals(new WorkerPause(worker), eventBus.waitForEvent());
+      // Paused queues are polled just every pausedQueuesSleepMillis, without pausing the worker again.
+      assertNull(eventBus.waitForEvent(50, TimeUnit.MILLISECONDS));
+      assertEquals(new WorkerPoll(worker, "test-queue"), eventBus.waitForEvent());
+      assertEquals(new WorkerNext(worker, "test-queue"), eventBus.waitForEvent());
+
+      fifoDao.pause("test-queue", false);
+
+      assertEquals(new WorkerPoll(worker, "test-queue"), eventBus.waitForEvent());
+      assertEquals(new WorkerStart(worker), eventBus.waitForEvent());
+      assertEquals(new JobProcess(worker, "test-queue", execution), eventBus.waitForEvent());
+
+      eventBus.doNotBlock();
+   }
 }
@@ -1,12 +1,18 @@
 package com.s24.redjob.worker;
 
+import com.fasterxml.jackson.annotation.JsonTypeName;
 import com.s24.redjob.TestRedis;
+import com.s24.redjob.worker.runner.TestJob;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.StringRedisTemplate;
 
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -24,6 +30,11 @@ class WorkerDaoImplIT {
     */
    private RedisTemplate<String, String> redis;
 
+   /**
+    * Execution.
+    */
+   private Execution execution = new Execution("namespace", "queue", 1, new TestJob());
+
    @BeforeEach
    void setUp() {
       RedisConnectionFactory connectionFactory = TestRedis.connectionFactory();
@@ -54,8 +65,8 @@ class WorkerDaoImplIT {
    void stop() {
       WorkerState test = new WorkerState();
       dao.state("test", test);
-      dao.success("test");
-      dao.failure("test");
+      dao.success("test", execution);
+      dao.failure("test", execution);
       dao.stop("test");
 
       assertThat(dao.names()).isEmpty();
@@ -68,8 +79,8 @@ class WorkerDaoImplIT {
 
    @Test
    void success() {
-      dao.success("test1");
-      dao.success("test2");
+      dao.success("test1", execution);
+      dao.success("test2", execution);
 
       assertEquals("2", redis.opsForValue().get("namespace:stat:processed"));
       assertEquals("1", redis.opsForValue().get("namespace:stat:processed:test1"));
@@ -77,10 +88,21 @@ class WorkerDaoImplIT {
       assertNull(redis.opsForValue().get("namespace:stat:failed"));
    }
 
+   @Test
+   @SuppressWarnings("deprecation")
+   void success_withoutExecution() {
+      Instant now = Instant.now();
+      dao.success("test1");
+
+      assertEquals("1", redis.opsForValue().get("namespace:stat:processed"));
+      assertEquals("1", redis.opsForValue().get("namespace:stat:processed:test1"));
+      assertThat(dao.throughput(now.minus(1, ChronoUnit.MINUTES), Instant.now())).isEmpty();
+   }
+
    @Test
    void failure() {
-      dao.failure("test1");
-      dao.failure("test2");
+      dao.failure("test1", execution);
+      dao.failure("test2", execution);
 
       assertEquals("2", redis.opsForValue().get("namespace:stat:failed"));
       assertEquals("1", redis.opsForValue().get("namespace:stat:failed:test1"));
@@ -88,6 +110,50 @@ class WorkerDaoImplIT {
       assertNull(redis.opsForValue().get("namespace:stat:processed"));
    }
 
+   @Test
+   void throughput() {
+      Instant now = Instant.now();
+      dao.success("test1", execution);
+      dao.success("test2", execution);
+      dao.failure("test1", execution);
+      dao.success("test1", new Execution("namespace", "other:queue", 2, new TestJob()));
+
+      List<Throughput> throughput = dao.throughput(now.minus(1, ChronoUnit.MINUTES), Instant.now());
+      assertThat(throughput).hasSize(2);
+      Throughput other = throughput.get(0);
+      assertEquals("other:queue", other.getQueue());
+      assertEquals("testJob", other.getJobType());
+      assertEquals(1, other.getProcessed());
+      assertEquals(0, other.getFailed());
+      Throughput queue = throughput.get(1);
+      assertEquals("queue", queue.getQueue());
+      assertEquals(2, queue.getProcessed());
+      assertEquals(1, queue.getFailed());
+      assertThat(queue.getMinute()).isBeforeOrEqualTo(now);
+
+      assertThat(redis.getExpire("namespace:throughput:" + now.getEpochSecond() / 60)).isPositive();
+      assertThat(dao.throughput(now.minus(2, ChronoUnit.DAYS), now.minus(1, ChronoUnit.DAYS))).isEmpty();
+   }
+
+   @Test
+   void throughput_colons() {
+      Instant now = Instant.now();
+      dao.success("test1", new Execution("namespace", "some:queue", 1, new ColonJob()));
+
+      List<Throughput> throughput = dao.throughput(now.minus(1, ChronoUnit.MINUTES), Instant.now());
+      assertThat(throughput).hasSize(1);
+      assertEquals("some:queue", throughput.get(0).getQueue());
+      assertEquals("some:job", throughput.get(0).getJobType());
+      assertEquals(1, throughput.get(0).getProcessed());
+   }
+
+   /**
+    * Job with a colon in its JSON type name.
+    */
+   @JsonTypeName("some:job")
+   static class ColonJob {
+   }
+
    @Test
    void names() {
       WorkerState test1 = new WorkerState();
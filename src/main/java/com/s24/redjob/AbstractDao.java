@@ -3,6 +3,7 @@ package com.s24.redjob;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.RedisConnection;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 import org.springframework.util.Assert;
@@ -10,6 +11,7 @@ import org.springframework.util.Assert;
 import javax.annotation.PostConstruct;
 import java.util.Arrays;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import static java.util.Arrays.asList;
@@ -47,6 +49,26 @@ public abstract class AbstractDao implements Dao {
       Assert.hasLength(namespace, "Precondition violated: namespace has length.");
    }
 
+   /**
+    * Execute the given commands in a pipeline, so that they need just one round trip.
+    *
+    * @param connection
+    *           Redis connection.
+    * @param commands
+    *           Commands to execute.
+    * @return Results of the commands in the order of their execution.
+    */
+   protected List<Object> pipeline(RedisConnection connection, Consumer<RedisConnection> commands) {
+      connection.openPipeline();
+      try {
+         commands.accept(connection);
+      } catch (RuntimeException e) {
+         connection.closePipeline();
+         throw e;
+      }
+      return connection.closePipeline();
+   }
+
    //
    // Serialization.
    //
@@ -0,0 +1,85 @@
+package com.s24.redjob;
+
+import java.nio.charset.StandardCharsets;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.script.DigestUtils;
+import org.springframework.util.Assert;
+
+/**
+ * Lua script, invoked by its SHA1 to avoid sending the script body with every call.
+ * Scripts should be created once and held in constants, so the SHA1 is computed just once.
+ * If Redis does not know the script, e.g. after a restart or a SCRIPT FLUSH,
+ * the script is sent once with EVAL, which loads it into the script cache again.
+ */
+public final class LuaScript {
+   /**
+    * Script body.
+    */
+   private final byte[] script;
+
+   /**
+    * SHA1 of the script body.
+    */
+   private final String sha1;
+
+   /**
+    * Constructor.
+    *
+    * @param script
+    *           Script body.
+    */
+   public LuaScript(String script) {
+      Assert.hasLength(script, "Precondition violated: script has length.");
+
+      this.script = script.getBytes(StandardCharsets.UTF_8);
+      this.sha1 = DigestUtils.sha1DigestAsHex(script);
+   }
+
+   /**
+    * Execute the script. Must not be used in pipelines or transactions.
+    *
+    * @param connection
+    *           Redis connection.
+    * @param returnType
+    *           Return type of the script.
+    * @param numKeys
+    *           Number of keys.
+    * @param keysAndArgs
+    *           Keys followed by the arguments.
+    * @return Result of the script.
+    */
+   public <T> T eval(RedisConnection connection, ReturnType returnType, int numKeys, byte[]... keysAndArgs) {
+      try {
+         return connection.evalSha(sha1, returnType, numKeys, keysAndArgs);
+      } catch (DataAccessException e) {
+         if (!isNoScript(e)) {
+            throw e;
+         }
+      }
+
+      // Script is not cached (anymore) -> Send it. This loads it into the script cache too.
+      return connection.eval(script, returnType, numKeys, keysAndArgs);
+   }
+
+   /**
+    * Has the call failed, because Redis does not know the script?.
+    */
+   private static boolean isNoScript(Throwable e) {
+      for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+         if (cause.getMessage() != null && cause.getMessage().contains("NOSCRIPT")) {
+            return true;
+         }
+      }
+      return false;
+   }
+
+   /**
+    * SHA1 of the script body.
+    */
+   public String getSha1() {
+      return sha1;
+   }
+}
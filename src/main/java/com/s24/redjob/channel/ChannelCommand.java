@@ -0,0 +1,54 @@
+package com.s24.redjob.channel;
+
+import com.s24.redjob.worker.Execution;
+
+import org.springframework.util.Assert;
+
+/**
+ * Admin job read from the command log of a channel.
+ */
+public class ChannelCommand {
+   /**
+    * Offset of the job in the command log.
+    */
+   private final long offset;
+
+   /**
+    * Job execution.
+    */
+   private final Execution execution;
+
+   /**
+    * Constructor.
+    *
+    * @param offset
+    *           Offset of the job in the command log.
+    * @param execution
+    *           Job execution.
+    */
+   public ChannelCommand(long offset, Execution execution) {
+      Assert.notNull(execution, "Precondition violated: execution != null.");
+
+      this.offset = offset;
+      this.execution = execution;
+   }
+
+   /**
+    * Offset of the job in the command log.
+    */
+   public long getOffset() {
+      return offset;
+   }
+
+   /**
+    * Job execution.
+    */
+   public Execution getExecution() {
+      return execution;
+   }
+
+   @Override
+   public String toString() {
+      return offset + ": " + execution;
+   }
+}
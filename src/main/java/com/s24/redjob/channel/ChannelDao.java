@@ -1,5 +1,9 @@
 package com.s24.redjob.channel;
 
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
 import org.springframework.data.redis.connection.Message;
 import org.springframework.data.redis.listener.Topic;
 
@@ -12,6 +16,7 @@ import com.s24.redjob.worker.Execution;
 public interface ChannelDao extends Dao {
    /**
     * Publish the given admin job to the given channel.
+    * The job gets appended to the command log of the channel too.
     *
     * @param channel
     *           Channel name.
@@ -20,6 +25,96 @@ public interface ChannelDao extends Dao {
     */
    Execution publish(String channel, Object job);
 
+   /**
+    * Publish the given admin job to the given channel and collect the replies of all workers.
+    * Blocks for the whole timeout, because the number of workers is not known.
+    *
+    * @param channel
+    *           Channel name.
+    * @param job
+    *           Job.
+    * @param timeout
+    *           Time to wait for replies.
+    * @param unit
+    *           Unit of the timeout.
+    * @return Processed executions of all workers that replied within the timeout.
+    */
+   List<Execution> publishAndCollect(String channel, Object job, int timeout, TimeUnit unit);
+
+   /**
+    * Reply to a processed admin job, if the publisher requested a reply.
+    *
+    * @param execution
+    *           Processed execution.
+    */
+   void reply(Execution execution);
+
+   /**
+    * Read admin jobs from the command log of the given channel.
+    * The log holds the last jobs published to the channel, so workers can catch up on jobs they missed.
+    *
+    * @param channel
+    *           Channel name.
+    * @param offset
+    *           Offset of the last job already read.
+    * @param count
+    *           Max number of jobs to read.
+    * @return Jobs after the given offset, ordered by their offset.
+    *         Jobs which already have been removed from the log are skipped.
+    */
+   List<ChannelCommand> readCommands(String channel, long offset, int count);
+
+   /**
+    * Offset of the last job in the command log of the given channel.
+    *
+    * @param channel
+    *           Channel name.
+    */
+   long getLastOffset(String channel);
+
+   /**
+    * Offset of the last job read by the given worker from the command log of the given channel.
+    *
+    * @param channel
+    *           Channel name.
+    * @param worker
+    *           Name of the worker.
+    * @return Offset or null, if the worker did not read the command log yet.
+    */
+   Long getOffset(String channel, String worker);
+
+   /**
+    * Store the offset of the last job read by the given worker from the command log of the given channel.
+    *
+    * @param channel
+    *           Channel name.
+    * @param worker
+    *           Name of the worker.
+    * @param offset
+    *           Offset.
+    */
+   void setOffset(String channel, String worker, long offset);
+
+   /**
+    * Offsets of all workers which read the command log of the given channel.
+    *
+    * @param channel
+    *           Channel name.
+    * @return Worker name -> offset of the last job read.
+    */
+   Map<String, Long> getOffsets(String channel);
+
+   /**
+    * Remove the offset of a worker, which does not read the command log of the given channel anymore,
+    * e.g. because it has been removed from the cluster.
+    *
+    * @param channel
+    *           Channel name.
+    * @param worker
+    *           Name of the worker.
+    */
+   void removeOffset(String channel, String worker);
+
    /**
     * Create channel topic.
     *
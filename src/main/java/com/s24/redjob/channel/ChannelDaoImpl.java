@@ -1,18 +1,28 @@
 package com.s24.redjob.channel;
 
 import com.s24.redjob.AbstractDao;
+import com.s24.redjob.LuaScript;
 import com.s24.redjob.queue.FifoDao;
 import com.s24.redjob.worker.Execution;
 import com.s24.redjob.worker.json.ExecutionRedisSerializer;
 
 import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 import org.springframework.data.redis.connection.Message;
 import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.ReturnType;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.listener.ChannelTopic;
 import org.springframework.util.Assert;
 
+import static java.util.stream.Collectors.toList;
+
 /**
  * Default implementation of {@link FifoDao}.
  */
@@ -22,6 +32,78 @@ public class ChannelDaoImpl extends AbstractDao implements ChannelDao {
     */
    public static final String CHANNEL = "channel";
 
+   /**
+    * Redis key part for the command log of a channel: List of the last published jobs.
+    * Suffixed with {@value #ID} for the offset of the last job and
+    * with {@value #OFFSETS} for the offsets of the workers.
+    */
+   public static final String COMMANDS = "commands";
+
+   /**
+    * Redis key suffix for the offset of the last job in a command log.
+    */
+   public static final String ID = "id";
+
+   /**
+    * Redis key suffix for the offsets of the workers in a command log: Hash worker name -> offset.
+    */
+   public static final String OFFSETS = "offsets";
+
+   /**
+    * Lua script to append a job to the command log, to trim the log and to publish the job.
+    */
+   private static final LuaScript PUBLISH_SCRIPT = new LuaScript(
+         "local offset = redis.call('incr', KEYS[1]); " +
+         "redis.call('rpush', KEYS[2], ARGV[1]); " +
+         "redis.call('ltrim', KEYS[2], -tonumber(ARGV[2]), -1); " +
+         "redis.call('publish', KEYS[3], ARGV[1]); " +
+         "return offset;");
+
+   /**
+    * Lua script to read jobs from the command log.
+    * Returns the offset of the first job read followed by the jobs.
+    * The offset of the first job in the log is derived from the offset of the last job and the length of the log.
+    */
+   private static final LuaScript READ_SCRIPT = new LuaScript(
+         "local last = tonumber(redis.call('get', KEYS[1]) or '0'); " +
+         "local first = last - redis.call('llen', KEYS[2]) + 1; " +
+         "local from = math.max(tonumber(ARGV[1]) + 1, first); " +
+         "local jobs = redis.call('lrange', KEYS[2], from - first, from - first + tonumber(ARGV[2]) - 1); " +
+         "table.insert(jobs, 1, tostring(from)); " +
+         "return jobs;");
+
+   /**
+    * Redis key part for replies to a job: List of processed executions.
+    */
+   public static final String REPLY = "reply";
+
+   /**
+    * Lua script to add a reply and to let the replies expire.
+    */
+   private static final LuaScript REPLY_SCRIPT = new LuaScript(
+         "redis.call('rpush', KEYS[1], ARGV[1]); " +
+         "redis.call('pexpire', KEYS[1], ARGV[2]); " +
+         "return 1;");
+
+   /**
+    * Lua script to get and delete all replies at once.
+    */
+   private static final LuaScript COLLECT_SCRIPT = new LuaScript(
+         "local replies = redis.call('lrange', KEYS[1], 0, -1); " +
+         "redis.call('del', KEYS[1]); " +
+         "return replies;");
+
+   /**
+    * Time to live for replies in milliseconds. Defaults to 60 seconds.
+    * Replies are deleted when collected, so this is just for replies nobody collects anymore.
+    */
+   private long replyTtlMillis = 60_000;
+
+   /**
+    * Max number of jobs in the command log of a channel. Defaults to 1000.
+    */
+   private int commandLogSize = 1000;
+
    /**
     * Redis serializer for job executions.
     */
@@ -38,6 +120,8 @@ public class ChannelDaoImpl extends AbstractDao implements ChannelDao {
       super.afterPropertiesSet();
 
       Assert.notNull(executions, "Precondition violated: executions != null.");
+      Assert.isTrue(replyTtlMillis > 0, "Precondition violated: replyTtlMillis > 0.");
+      Assert.isTrue(commandLogSize > 0, "Precondition violated: commandLogSize > 0.");
 
       redis = new RedisTemplate<>();
       redis.setConnectionFactory(connectionFactory);
@@ -52,12 +136,104 @@ public class ChannelDaoImpl extends AbstractDao implements ChannelDao {
          // Admin jobs do not use ids.
          Execution execution = new Execution(namespace, channel, 0, job);
 
-         connection.publish(key(CHANNEL, channel), executions.serialize(execution));
+         PUBLISH_SCRIPT.eval(connection, ReturnType.INTEGER, 3,
+               key(COMMANDS, channel, ID), key(COMMANDS, channel), key(CHANNEL, channel),
+               executions.serialize(execution), value(commandLogSize));
 
          return execution;
       });
    }
 
+   @Override
+   public List<Execution> publishAndCollect(String channel, Object job, int timeout, TimeUnit unit) {
+      Assert.isTrue(timeout > 0, "Precondition violated: timeout > 0.");
+      Assert.notNull(unit, "Precondition violated: unit != null.");
+
+      // Admin jobs do not use ids.
+      Execution execution = new Execution(namespace, channel, 0, job);
+      String replyTo = keyString(REPLY, UUID.randomUUID().toString());
+      execution.setReplyTo(replyTo);
+
+      redis.execute((RedisConnection connection) ->
+            connection.publish(key(CHANNEL, channel), executions.serialize(execution)));
+
+      try {
+         unit.sleep(timeout);
+      } catch (InterruptedException e) {
+         // Return the replies collected so far.
+         Thread.currentThread().interrupt();
+      }
+
+      List<byte[]> replies = redis.execute((RedisConnection connection) ->
+            COLLECT_SCRIPT.eval(connection, ReturnType.MULTI, 1, strings.serialize(replyTo)));
+      return replies.stream()
+            .map(executions::deserialize)
+            .collect(toList());
+   }
+
+   @Override
+   public void reply(Execution execution) {
+      if (execution.getReplyTo() == null) {
+         return;
+      }
+
+      redis.execute((RedisConnection connection) -> REPLY_SCRIPT.eval(connection, ReturnType.INTEGER, 1,
+            strings.serialize(execution.getReplyTo()),
+            executions.serialize(execution),
+            strings.serialize(Long.toString(replyTtlMillis))));
+   }
+
+   @Override
+   public List<ChannelCommand> readCommands(String channel, long offset, int count) {
+      Assert.isTrue(count > 0, "Precondition violated: count > 0.");
+
+      List<byte[]> result = redis.execute((RedisConnection connection) ->
+            READ_SCRIPT.eval(connection, ReturnType.MULTI, 2,
+                  key(COMMANDS, channel, ID), key(COMMANDS, channel),
+                  value(offset), value(count)));
+
+      long from = parseLong(result.get(0));
+      List<ChannelCommand> commands = new ArrayList<>(result.size() - 1);
+      for (int i = 1; i < result.size(); i++) {
+         commands.add(new ChannelCommand(from + i - 1, executions.deserialize(result.get(i))));
+      }
+      return commands;
+   }
+
+   @Override
+   public long getLastOffset(String channel) {
+      byte[] offset = redis.execute((RedisConnection connection) -> connection.get(key(COMMANDS, channel, ID)));
+      return offset != null ? parseLong(offset) : 0;
+   }
+
+   @Override
+   public Long getOffset(String channel, String worker) {
+      byte[] offset = redis.execute((RedisConnection connection) ->
+            connection.hGet(key(COMMANDS, channel, OFFSETS), value(worker)));
+      return offset != null ? parseLong(offset) : null;
+   }
+
+   @Override
+   public void setOffset(String channel, String worker, long offset) {
+      redis.execute((RedisConnection connection) ->
+            connection.hSet(key(COMMANDS, channel, OFFSETS), value(worker), value(offset)));
+   }
+
+   @Override
+   public Map<String, Long> getOffsets(String channel) {
+      Map<byte[], byte[]> offsets = redis.execute((RedisConnection connection) ->
+            connection.hGetAll(key(COMMANDS, channel, OFFSETS)));
+      Map<String, Long> result = new TreeMap<>();
+      offsets.forEach((worker, offset) -> result.put(strings.deserialize(worker), parseLong(offset)));
+      return result;
+   }
+
+   @Override
+   public void removeOffset(String channel, String worker) {
+      redis.execute((RedisConnection connection) ->
+            connection.hDel(key(COMMANDS, channel, OFFSETS), value(worker)));
+   }
+
    @Override
    public ChannelTopic getTopic(String channel) {
       return new ChannelTopic(keyString(CHANNEL, channel));
@@ -91,4 +267,32 @@ public class ChannelDaoImpl extends AbstractDao implements ChannelDao {
    public void setExecutions(ExecutionRedisSerializer executions) {
       this.executions = executions;
    }
+
+   /**
+    * Time to live for replies in milliseconds. Defaults to 60 seconds.
+    */
+   public long getReplyTtlMillis() {
+      return replyTtlMillis;
+   }
+
+   /**
+    * Time to live for replies in milliseconds. Defaults to 60 seconds.
+    */
+   public void setReplyTtlMillis(long replyTtlMillis) {
+      this.replyTtlMillis = replyTtlMillis;
+   }
+
+   /**
+    * Max number of jobs in the command log of a channel. Defaults to 1000.
+    */
+   public int getCommandLogSize() {
+      return commandLogSize;
+   }
+
+   /**
+    * Max number of jobs in the command log of a channel. Defaults to 1000.
+    */
+   public void setCommandLogSize(int commandLogSize) {
+      this.commandLogSize = commandLogSize;
+   }
 }
@@ -0,0 +1,256 @@
+package com.s24.redjob.channel;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
+
+/**
+ * Bounded executor for the jobs of a {@link ChannelWorker},
+ * so that a slow job does not block the processing of other jobs.
+ * The number of concurrently executed jobs can be limited per job type.
+ * Jobs are rejected, if the queue of the executor or the jobs held back for their type exceed the queue capacity,
+ * so that a flood of jobs neither exhausts the memory nor blocks the caller.
+ */
+class ChannelJobExecutor {
+   /**
+    * Logger.
+    */
+   private static final Logger log = LoggerFactory.getLogger(ChannelJobExecutor.class);
+
+   /**
+    * Executor.
+    */
+   private final ThreadPoolExecutor executor;
+
+   /**
+    * Max number of concurrently executed jobs per job type. Job types without a limit are limited by the threads only.
+    */
+   private final Map<String, Integer> limits;
+
+   /**
+    * Max number of jobs held back per job type.
+    */
+   private final int queueCapacity;
+
+   /**
+    * Limiters per job type.
+    */
+   private final Map<String, Limiter> limiters = new ConcurrentHashMap<>();
+
+   /**
+    * Number of jobs submitted, but not finished yet.
+    */
+   private int pending = 0;
+
+   /**
+    * Constructor.
+    *
+    * @param name
+    *           Name of the worker, used for naming the threads.
+    * @param threads
+    *           Number of threads.
+    * @param queueCapacity
+    *           Capacity of the queue of the executor and max number of jobs held back per job type.
+    * @param limits
+    *           Max number of concurrently executed jobs per job type.
+    */
+   ChannelJobExecutor(String name, int threads, int queueCapacity, Map<String, Integer> limits) {
+      Assert.notNull(name, "Precondition violated: name != null.");
+      Assert.isTrue(threads > 0, "Precondition violated: threads > 0.");
+      Assert.isTrue(queueCapacity > 0, "Precondition violated: queueCapacity > 0.");
+      Assert.notNull(limits, "Precondition violated: limits != null.");
+      limits.values().forEach(limit ->
+            Assert.isTrue(limit != null && limit > 0, "Precondition violated: limit > 0."));
+
+      AtomicInteger ids = new AtomicInteger();
+      this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            runnable -> {
+               Thread thread = new Thread(runnable, name + " " + ids.incrementAndGet());
+               thread.setDaemon(true);
+               return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+      this.queueCapacity = queueCapacity;
+      this.limits = limits;
+   }
+
+   /**
+    * Execute a job.
+    *
+    * @param type
+    *           Job type.
+    * @param job
+    *           Job.
+    * @return Whether the job has been accepted. False, if too many jobs are waiting for their execution.
+    */
+   boolean execute(String type, Runnable job) {
+      synchronized (this) {
+         pending++;
+      }
+
+      Runnable finishing = () -> {
+         try {
+            job.run();
+         } finally {
+            finished();
+         }
+      };
+
+      Integer limit = limits.get(type);
+      boolean accepted = limit == null ?
+            submit(finishing) :
+            limiters.computeIfAbsent(type, t -> new Limiter(limit)).execute(finishing);
+      if (!accepted) {
+         finished();
+      }
+      return accepted;
+   }
+
+   /**
+    * Submit a job to the executor.
+    *
+    * @param job
+    *           Job.
+    * @return Whether the job has been accepted. False, if the queue of the executor is full.
+    */
+   private boolean submit(Runnable job) {
+      try {
+         executor.execute(job);
+         return true;
+      } catch (RejectedExecutionException e) {
+         return false;
+      }
+   }
+
+   /**
+    * A job has been finished.
+    */
+   private synchronized void finished() {
+      pending--;
+      if (pending == 0) {
+         notifyAll();
+      }
+   }
+
+   /**
+    * Wait until all submitted jobs have been finished.
+    */
+   synchronized void awaitIdle() throws InterruptedException {
+      while (pending > 0) {
+         wait();
+      }
+   }
+
+   /**
+    * Number of jobs submitted, but not finished yet.
+    */
+   synchronized int getPending() {
+      return pending;
+   }
+
+   /**
+    * Shutdown the executor. Does not wait for jobs to finish, use {@link #awaitIdle()} before.
+    */
+   void shutdown() {
+      executor.shutdown();
+   }
+
+   /**
+    * Limits the number of concurrently executed jobs of one type.
+    * Jobs exceeding the limit are held back until a running job of the same type has been finished.
+    * The thread of the finished job executes the next held back job then.
+    */
+   private class Limiter {
+      /**
+       * Max number of concurrently executed jobs.
+       */
+      private final int limit;
+
+      /**
+       * Number of jobs submitted to the executor.
+       */
+      private int running = 0;
+
+      /**
+       * Jobs held back.
+       */
+      private final Queue<Runnable> waiting = new ArrayDeque<>();
+
+      /**
+       * Constructor.
+       *
+       * @param limit
+       *           Max number of concurrently executed jobs.
+       */
+      private Limiter(int limit) {
+         this.limit = limit;
+      }
+
+      /**
+       * Execute the job, if below the limit. Otherwise hold it back.
+       *
+       * @param job
+       *           Job.
+       * @return Whether the job has been accepted. False, if too many jobs are held back or queued.
+       */
+      private boolean execute(Runnable job) {
+         synchronized (this) {
+            if (running >= limit) {
+               if (waiting.size() >= queueCapacity) {
+                  return false;
+               }
+               waiting.add(job);
+               return true;
+            }
+            running++;
+         }
+
+         if (!submit(() -> run(job))) {
+            synchronized (this) {
+               running--;
+            }
+            return false;
+         }
+         return true;
+      }
+
+      /**
+       * Run the job and afterwards the jobs held back, if any.
+       *
+       * @param job
+       *           Job.
+       */
+      private void run(Runnable job) {
+         for (Runnable next = job; next != null; next = next()) {
+            try {
+               next.run();
+            } catch (RuntimeException e) {
+               // Keep going with the held back jobs.
+               log.error("Uncaught exception in job.", e);
+            }
+         }
+      }
+
+      /**
+       * Next job held back, if any.
+       */
+      private synchronized Runnable next() {
+         Runnable next = waiting.poll();
+         if (next == null) {
+            running--;
+         }
+         return next;
+      }
+   }
+}
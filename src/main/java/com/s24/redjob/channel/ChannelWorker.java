@@ -11,7 +11,12 @@ import com.s24.redjob.worker.events.WorkerStopped;
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
@@ -31,6 +36,11 @@ import static java.util.stream.Collectors.toSet;
  * {@link Worker} for channels (admin jobs).
  */
 public class ChannelWorker extends AbstractWorker<ChannelWorkerState> {
+   /**
+    * Delay before retrying to hand over a job from the command log to the executor, if it has been rejected.
+    */
+   private static final long RETRY_MILLIS = 100;
+
    /**
     * Channel dao.
     */
@@ -56,6 +66,61 @@ public class ChannelWorker extends AbstractWorker<ChannelWorkerState> {
     */
    private final ReadWriteLock active = new ReentrantReadWriteLock();
 
+   /**
+    * Number of threads for executing jobs.
+    * Defaults to 0, which means that jobs are executed in the thread of the message listener container.
+    */
+   private int threads = 0;
+
+   /**
+    * Capacity of the queue for jobs waiting for a thread, also per job type with a concurrency limit. Defaults to 100.
+    * If the queue is full, further jobs are rejected and logged.
+    * Durable workers instead wait with reading jobs from the command log until the queue has space again.
+    */
+   private int queueCapacity = 100;
+
+   /**
+    * Max number of concurrently executed jobs per job type (simple class name of the job).
+    * Job types without a limit are limited by the number of threads only.
+    */
+   private Map<String, Integer> concurrencyLimits = new HashMap<>();
+
+   /**
+    * Executor for jobs. Null, if jobs are executed in the thread of the message listener container.
+    */
+   private ChannelJobExecutor executor;
+
+   /**
+    * Read admin jobs from the command log of the channels instead of just receiving them via pub/sub?.
+    * Defaults to false.
+    * Durable workers catch up on jobs they missed, e.g. during a restart.
+    * For this they need an explicitly configured, stable name, under which their offsets get persisted.
+    * Offsets of workers that have been removed for good can be removed via {@link ChannelDao#removeOffset}.
+    * The offset of a job gets persisted after it and all jobs before it have been finished,
+    * so jobs interrupted by a crash get executed again after the restart (at-least-once).
+    */
+   private boolean durable = false;
+
+   /**
+    * Number of jobs to read at once from the command log, when catching up. Defaults to 100.
+    */
+   private int catchUpBatchSize = 100;
+
+   /**
+    * Offsets of the last jobs read from the command logs of the channels.
+    */
+   private final Map<String, Long> offsets = new ConcurrentHashMap<>();
+
+   /**
+    * Offsets of the jobs read from the command logs of the channels, which have not been finished yet.
+    */
+   private final Map<String, SortedSet<Long>> unfinished = new HashMap<>();
+
+   /**
+    * Persisted offsets of the command logs of the channels.
+    */
+   private final Map<String, Long> persistedOffsets = new HashMap<>();
+
    /**
     * Constructor.
     */
@@ -68,14 +133,35 @@ public class ChannelWorker extends AbstractWorker<ChannelWorkerState> {
    public void afterPropertiesSet() throws Exception {
       Assert.notNull(channels, "Precondition violated: channels != null.");
       Assert.notNull(channelDao, "Precondition violated: channelDao != null.");
+      Assert.isTrue(threads >= 0, "Precondition violated: threads >= 0.");
+      Assert.notNull(concurrencyLimits, "Precondition violated: concurrencyLimits != null.");
+      Assert.isTrue(catchUpBatchSize > 0, "Precondition violated: catchUpBatchSize > 0.");
+      // The generated name changes with every restart, so the offsets would get lost.
+      Assert.isTrue(!durable || StringUtils.hasLength(name), "Precondition violated: name has length, if durable.");
 
       super.afterPropertiesSet();
+
+      if (threads > 0) {
+         executor = new ChannelJobExecutor(getName(), threads, queueCapacity, concurrencyLimits);
+      }
    }
 
    @Override
    public void start() {
       log.info("Starting worker {}.", getName());
       log.info("Listening to channels {}.", StringUtils.collectionToCommaDelimitedString(channels));
+      if (durable) {
+         // Before subscribing, so that no job published in between gets skipped.
+         channels.forEach(channel -> {
+            long offset = initialOffset(channel);
+            offsets.put(channel, offset);
+            synchronized (unfinished) {
+               unfinished.put(channel, new TreeSet<>());
+               persistedOffsets.put(channel, offset);
+            }
+         });
+      }
+
       List<Topic> topics = channels.stream().map(channelDao::getTopic).collect(toList());
       synchronized (listenerContainer) {
          listenerContainer.addMessageListener(listener, topics);
@@ -83,6 +169,117 @@ public class ChannelWorker extends AbstractWorker<ChannelWorkerState> {
 
       state.setChannels(topics.stream().map(Topic::getTopic).collect(toSet()));
       setWorkerState(WorkerState::start, new WorkerStart(this));
+
+      if (durable) {
+         channels.forEach(this::catchUpAtStart);
+      }
+   }
+
+   /**
+    * Offset to start reading the command log of the given channel with.
+    * Workers which did not read the command log before start at its end.
+    *
+    * @param channel
+    *           Channel name.
+    */
+   private long initialOffset(String channel) {
+      Long offset = channelDao.getOffset(channel, name);
+      if (offset != null) {
+         return offset;
+      }
+
+      long last = channelDao.getLastOffset(channel);
+      log.info("Starting to read the command log of channel {} at offset {}.", channel, last);
+      channelDao.setOffset(channel, name, last);
+      return last;
+   }
+
+   /**
+    * Catch up on jobs missed while this worker was down.
+    *
+    * @param channel
+    *           Channel name.
+    */
+   private void catchUpAtStart(String channel) {
+      try {
+         active.readLock().lock();
+
+         MDC.put("worker", getName());
+         MDC.put("queue", channel);
+         catchUp(channel);
+
+      } catch (Exception e) {
+         log.error("Failed to catch up on jobs of channel {}: {}", channel, e.getMessage());
+         eventBus.publishEvent(new WorkerError(this, e));
+
+      } finally {
+         active.readLock().unlock();
+
+         MDC.remove("queue");
+         MDC.remove("worker");
+      }
+   }
+
+   /**
+    * Process all jobs from the command log of the given channel, which have not been read yet.
+    *
+    * @param channel
+    *           Channel name.
+    */
+   private void catchUp(String channel) {
+      synchronized (offsets) {
+         long offset = offsets.get(channel);
+         List<ChannelCommand> commands;
+         do {
+            commands = channelDao.readCommands(channel, offset, catchUpBatchSize);
+            if (!commands.isEmpty() && commands.get(0).getOffset() > offset + 1) {
+               log.warn("Missed jobs {} to {} of channel {}, because they have already been removed from the command log.",
+                     offset + 1, commands.get(0).getOffset() - 1, channel);
+            }
+
+            for (ChannelCommand command : commands) {
+               long commandOffset = command.getOffset();
+               // Register before updating the read offset, so that the job blocks persisting the read offset.
+               synchronized (unfinished) {
+                  unfinished.get(channel).add(commandOffset);
+               }
+               offset = commandOffset;
+               offsets.put(channel, offset);
+               if (!dispatch(channel, command.getExecution(), () -> finished(channel, commandOffset), true)) {
+                  // Interrupted: Keep the offset unfinished, so that the job gets executed after the restart.
+                  return;
+               }
+            }
+         } while (commands.size() == catchUpBatchSize);
+      }
+   }
+
+   /**
+    * A job read from the command log has been finished.
+    * Persist the offset up to which all jobs have been finished.
+    *
+    * @param channel
+    *           Channel name.
+    * @param offset
+    *           Offset of the finished job.
+    */
+   private void finished(String channel, long offset) {
+      synchronized (unfinished) {
+         SortedSet<Long> channelUnfinished = unfinished.get(channel);
+         channelUnfinished.remove(offset);
+         long finished = channelUnfinished.isEmpty() ? offsets.get(channel) : channelUnfinished.first() - 1;
+         if (finished <= persistedOffsets.get(channel)) {
+            return;
+         }
+
+         try {
+            channelDao.setOffset(channel, name, finished);
+            persistedOffsets.put(channel, finished);
+         } catch (Exception e) {
+            // Retry with the next finished job.
+            log.error("Failed to persist offset {} of channel {}: {}", finished, channel, e.getMessage());
+         }
+      }
    }
 
    @Override
@@ -93,6 +290,18 @@ public class ChannelWorker extends AbstractWorker<ChannelWorkerState> {
          listenerContainer.removeMessageListener(listener);
       }
 
+      if (executor != null) {
+         // Wait for received jobs to be handed over to the executor.
+         active.writeLock().lock();
+         active.writeLock().unlock();
+         try {
+            executor.awaitIdle();
+         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Interrupted while waiting for jobs to finish.");
+         }
+      }
+
       // Wait for jobs to finish.
       try {
          active.writeLock().lock();
@@ -108,6 +317,9 @@ public class ChannelWorker extends AbstractWorker<ChannelWorkerState> {
    @PreDestroy
    public void destroy() {
       stop();
+      if (executor != null) {
+         executor.shutdown();
+      }
    }
 
    /**
@@ -131,6 +343,121 @@ public class ChannelWorker extends AbstractWorker<ChannelWorkerState> {
             return;
          }
 
+         if (durable && execution.getReplyTo() == null) {
+            // The message just notifies about a new job in the command log.
+            catchUp(channel);
+         } else {
+            dispatch(channel, execution, () -> {}, false);
+         }
+
+      } catch (InvalidDataAccessApiUsageException e) {
+         // Suppress stacktrace for technical Redis errors.
+         log.error("Uncaught exception in worker: {}", e.getMessage());
+         eventBus.publishEvent(new WorkerError(this, e));
+
+      } catch (Throwable t) {
+         log.error("Uncaught exception in worker.", t);
+         eventBus.publishEvent(new WorkerError(this, t));
+
+      } finally {
+         active.readLock().unlock();
+
+         MDC.remove("queue");
+         MDC.remove("worker");
+      }
+   }
+
+   /**
+    * Process job directly or hand it over to the executor, if any.
+    *
+    * @param channel
+    *           Channel the job has been received from.
+    * @param execution
+    *           Job execution.
+    * @param finished
+    *           Callback after the job has been finished or rejected.
+    * @param wait
+    *           Wait for the executor to accept the job instead of rejecting it,
+    *           e.g. for jobs from the command log, which must not get lost.
+    * @return Whether the job has been dispatched. False, if interrupted while waiting.
+    */
+   private boolean dispatch(String channel, Execution execution, Runnable finished, boolean wait) {
+      if (executor == null) {
+         try {
+            processJob(channel, execution);
+         } finally {
+            finished.run();
+         }
+         return true;
+      }
+
+      String type = execution.getJob().getClass().getSimpleName();
+      Runnable job = () -> {
+         try {
+            processJobAsync(channel, execution);
+         } finally {
+            finished.run();
+         }
+      };
+      if (executor.execute(type, job)) {
+         return true;
+      }
+
+      if (!wait) {
+         log.error("Rejected job {} of channel {}, because too many jobs of type {} are waiting for execution.",
+               execution.getId(), channel, type);
+         finished.run();
+         return true;
+      }
+
+      log.warn("Delaying job {} of channel {}, because too many jobs of type {} are waiting for execution.",
+            execution.getId(), channel, type);
+      try {
+         do {
+            Thread.sleep(RETRY_MILLIS);
+         } while (!executor.execute(type, job));
+         return true;
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         log.warn("Interrupted while waiting for the execution of job {} of channel {}.", execution.getId(), channel);
+         return false;
+      }
+   }
+
+   /**
+    * Process job in a thread of the executor.
+    *
+    * @param channel
+    *           Channel the job has been received from.
+    * @param execution
+    *           Job execution.
+    */
+   private void processJobAsync(String channel, Execution execution) {
+      try {
+         active.readLock().lock();
+
+         MDC.put("worker", getName());
+         MDC.put("queue", channel);
+         processJob(channel, execution);
+
+      } finally {
+         active.readLock().unlock();
+
+         MDC.remove("queue");
+         MDC.remove("worker");
+      }
+   }
+
+   /**
+    * Process job.
+    *
+    * @param channel
+    *           Channel the job has been received from.
+    * @param execution
+    *           Job execution.
+    */
+   private void processJob(String channel, Execution execution) {
+      try {
          MDC.put("execution", Long.toString(execution.getId()));
          MDC.put("job", execution.getJob().getClass().getSimpleName());
          process(channel, execution);
@@ -145,12 +472,23 @@ public class ChannelWorker extends AbstractWorker<ChannelWorkerState> {
          eventBus.publishEvent(new WorkerError(this, t));
 
       } finally {
-         active.readLock().unlock();
-
+         reply(execution);
          MDC.remove("job");
          MDC.remove("execution");
-         MDC.remove("queue");
-         MDC.remove("worker");
+      }
+   }
+
+   /**
+    * Reply to the publisher of the job, if requested.
+    *
+    * @param execution
+    *           Processed job execution.
+    */
+   private void reply(Execution execution) {
+      try {
+         channelDao.reply(execution);
+      } catch (Exception e) {
+         log.error("Failed to reply: {}", e.getMessage());
       }
    }
 
@@ -214,4 +552,84 @@ public class ChannelWorker extends AbstractWorker<ChannelWorkerState> {
    public void setListenerContainer(RedisMessageListenerContainer listenerContainer) {
       this.listenerContainer = listenerContainer;
    }
+
+   /**
+    * Number of threads for executing jobs.
+    * Defaults to 0, which means that jobs are executed in the thread of the message listener container.
+    */
+   public int getThreads() {
+      return threads;
+   }
+
+   /**
+    * Number of threads for executing jobs.
+    * Defaults to 0, which means that jobs are executed in the thread of the message listener container.
+    */
+   public void setThreads(int threads) {
+      this.threads = threads;
+   }
+
+   /**
+    * Capacity of the queue for jobs waiting for a thread. Defaults to 100.
+    */
+   public int getQueueCapacity() {
+      return queueCapacity;
+   }
+
+   /**
+    * Capacity of the queue for jobs waiting for a thread, also per job type with a concurrency limit. Defaults to 100.
+    * If the queue is full, further jobs are rejected and logged.
+    * Durable workers instead wait with reading jobs from the command log until the queue has space again.
+    */
+   public void setQueueCapacity(int queueCapacity) {
+      this.queueCapacity = queueCapacity;
+   }
+
+   /**
+    * Max number of concurrently executed jobs per job type (simple class name of the job).
+    */
+   public Map<String, Integer> getConcurrencyLimits() {
+      return concurrencyLimits;
+   }
+
+   /**
+    * Max number of concurrently executed jobs per job type (simple class name of the job).
+    * Job types without a limit are limited by the number of threads only.
+    */
+   public void setConcurrencyLimits(Map<String, Integer> concurrencyLimits) {
+      this.concurrencyLimits = concurrencyLimits;
+   }
+
+   /**
+    * Read admin jobs from the command log of the channels instead of just receiving them via pub/sub?.
+    * Defaults to false.
+    */
+   public boolean isDurable() {
+      return durable;
+   }
+
+   /**
+    * Read admin jobs from the command log of the channels instead of just receiving them via pub/sub?.
+    * Defaults to false.
+    * Durable workers catch up on jobs they missed, e.g. during a restart.
+    * For this they need an explicitly configured, stable name.
+    * Jobs interrupted by a crash get executed again after the restart (at-least-once).
+    */
+   public void setDurable(boolean durable) {
+      this.durable = durable;
+   }
+
+   /**
+    * Number of jobs to read at once from the command log, when catching up. Defaults to 100.
+    */
+   public int getCatchUpBatchSize() {
+      return catchUpBatchSize;
+   }
+
+   /**
+    * Number of jobs to read at once from the command log, when catching up. Defaults to 100.
+    */
+   public void setCatchUpBatchSize(int catchUpBatchSize) {
+      this.catchUpBatchSize = catchUpBatchSize;
+   }
 }
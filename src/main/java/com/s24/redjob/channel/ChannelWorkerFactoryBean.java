@@ -3,6 +3,7 @@ package com.s24.redjob.channel;
 import com.s24.redjob.worker.AbstractWorkerFactoryBean;
 
 import java.util.List;
+import java.util.Map;
 
 import org.springframework.beans.factory.FactoryBean;
 import org.springframework.data.redis.listener.RedisMessageListenerContainer;
@@ -75,4 +76,84 @@ public class ChannelWorkerFactoryBean extends AbstractWorkerFactoryBean<ChannelW
    public void setListenerContainer(RedisMessageListenerContainer listenerContainer) {
       worker.setListenerContainer(listenerContainer);
    }
+
+   /**
+    * Number of threads for executing jobs.
+    * Defaults to 0, which means that jobs are executed in the thread of the message listener container.
+    */
+   public int getThreads() {
+      return worker.getThreads();
+   }
+
+   /**
+    * Number of threads for executing jobs.
+    * Defaults to 0, which means that jobs are executed in the thread of the message listener container.
+    */
+   public void setThreads(int threads) {
+      worker.setThreads(threads);
+   }
+
+   /**
+    * Capacity of the queue for jobs waiting for a thread. Defaults to 100.
+    */
+   public int getQueueCapacity() {
+      return worker.getQueueCapacity();
+   }
+
+   /**
+    * Capacity of the queue for jobs waiting for a thread, also per job type with a concurrency limit. Defaults to 100.
+    * If the queue is full, further jobs are rejected and logged.
+    * Durable workers instead wait with reading jobs from the command log until the queue has space again.
+    */
+   public void setQueueCapacity(int queueCapacity) {
+      worker.setQueueCapacity(queueCapacity);
+   }
+
+   /**
+    * Max number of concurrently executed jobs per job type (simple class name of the job).
+    */
+   public Map<String, Integer> getConcurrencyLimits() {
+      return worker.getConcurrencyLimits();
+   }
+
+   /**
+    * Max number of concurrently executed jobs per job type (simple class name of the job).
+    * Job types without a limit are limited by the number of threads only.
+    */
+   public void setConcurrencyLimits(Map<String, Integer> concurrencyLimits) {
+      worker.setConcurrencyLimits(concurrencyLimits);
+   }
+
+   /**
+    * Read admin jobs from the command log of the channels instead of just receiving them via pub/sub?.
+    * Defaults to false.
+    */
+   public boolean isDurable() {
+      return worker.isDurable();
+   }
+
+   /**
+    * Read admin jobs from the command log of the channels instead of just receiving them via pub/sub?.
+    * Defaults to false.
+    * Durable workers catch up on jobs they missed, e.g. during a restart.
+    * For this they need an explicitly configured, stable name.
+    * Jobs interrupted by a crash get executed again after the restart (at-least-once).
+    */
+   public void setDurable(boolean durable) {
+      worker.setDurable(durable);
+   }
+
+   /**
+    * Number of jobs to read at once from the command log, when catching up. Defaults to 100.
+    */
+   public int getCatchUpBatchSize() {
+      return worker.getCatchUpBatchSize();
+   }
+
+   /**
+    * Number of jobs to read at once from the command log, when catching up. Defaults to 100.
+    */
+   public void setCatchUpBatchSize(int catchUpBatchSize) {
+      worker.setCatchUpBatchSize(catchUpBatchSize);
+   }
 }
@@ -1,9 +1,21 @@
 package com.s24.redjob.client;
 
+import com.s24.redjob.lock.LockHandle;
+import com.s24.redjob.queue.ExecutionChange;
+import com.s24.redjob.queue.ExecutionStatus;
+import com.s24.redjob.queue.QueueStats;
 import com.s24.redjob.worker.Execution;
+import com.s24.redjob.worker.Throughput;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 /**
  * Job client.
@@ -52,8 +64,31 @@ public interface Client {
     */
    void dequeue(String queue, long id);
 
+   /**
+    * Cancel the jobs with the given ids, regardless of their queue.
+    * Takes constant time per job, so it is suitable for cancelling many jobs of big queues.
+    *
+    * @param ids
+    *           Ids of the jobs.
+    * @return Number of cancelled jobs.
+    */
+   int cancel(Collection<Long> ids);
+
+   /**
+    * Cancel all queued jobs of the given queue, which match the given predicate.
+    * The queue is read and cancelled in chunks, so big queues are not loaded at once.
+    *
+    * @param queue
+    *           Queue name.
+    * @param predicate
+    *           Predicate for the jobs to cancel, e.g. {@code job -> job instanceof MyJob}.
+    * @return Number of cancelled jobs.
+    */
+   int cancel(String queue, Predicate<Object> predicate);
+
    /**
     * Get the job execution with the given id.
+    * If the near cache has been enabled, the execution may be shared and must not be modified.
     *
     * @param id
     *           Id of the job.
@@ -61,6 +96,86 @@ public interface Client {
     */
    Execution execution(long id);
 
+   /**
+    * Get the job executions with the given ids. Reads them in chunks.
+    *
+    * @param ids
+    *           Ids of the jobs.
+    * @return Executions in the order of the given ids. Not existing executions are skipped.
+    */
+   List<Execution> executions(Collection<Long> ids);
+
+   /**
+    * Get all job executions with the given status, e.g. all running jobs.
+    * Reads just the ids of the matching jobs from the status index and afterwards their executions.
+    *
+    * @param status
+    *           Status.
+    */
+   default List<Execution> executions(ExecutionStatus status) {
+      return executions(status, null, null);
+   }
+
+   /**
+    * Get all job executions with the given status, whose last status change happened in the given time frame,
+    * e.g. all jobs failed in the last hour.
+    * Reads just the ids of the matching jobs from the status index and afterwards their executions.
+    *
+    * @param status
+    *           Status.
+    * @param from
+    *           Min timestamp of the last status change (inclusive). Null for no lower bound.
+    * @param to
+    *           Max timestamp of the last status change (inclusive). Null for no upper bound.
+    * @return Executions ordered by the timestamp of their last status change.
+    */
+   List<Execution> executions(ExecutionStatus status, Instant from, Instant to);
+
+   /**
+    * Get the status of the job execution with the given id.
+    * Cheaper than {@link #execution(long)}, because the execution itself is not read.
+    *
+    * @param id
+    *           Id of the job.
+    * @return Status or null, if not existing.
+    */
+   ExecutionStatus status(long id);
+
+   /**
+    * Wait for the completion of the job execution with the given id.
+    * Workers notify about completed job executions, so no polling is needed.
+    *
+    * @param id
+    *           Id of the job.
+    * @param timeout
+    *           Max time to wait for the completion.
+    * @param unit
+    *           Unit of the timeout.
+    * @return Future for the completed job execution. Completes with null, if the job does not exist (anymore).
+    *         Completes exceptionally with a {@link java.util.concurrent.TimeoutException} after the timeout.
+    */
+   CompletableFuture<Execution> awaitResult(long id, int timeout, TimeUnit unit);
+
+   /**
+    * Watch changes in the lifecycle of all job executions.
+    * Allows to keep a local view of the job executions up to date without reading all of them regularly.
+    * Changes are delivered at most once and only while being subscribed,
+    * so read the initial view after starting to watch.
+    * The watcher gets called by the thread of the message listener container and should not block.
+    *
+    * @param watcher
+    *           Watcher to call for each change.
+    */
+   void watch(Consumer<ExecutionChange> watcher);
+
+   /**
+    * Stop watching changes in the lifecycle of job executions.
+    *
+    * @param watcher
+    *           Watcher registered via {@link #watch(Consumer)}.
+    */
+   void unwatch(Consumer<ExecutionChange> watcher);
+
    /**
     * Get all queued job executions of the given queue.
     *
@@ -82,6 +197,57 @@ public interface Client {
     */
    List<Execution> allExecutions();
 
+   /**
+    * Get statistics of all queues, e.g. for autoscaling decisions.
+    * Cheap, because it does not read any job executions.
+    */
+   List<QueueStats> queueStats();
+
+   /**
+    * Pause or unpause a queue for all workers, including workers started later.
+    * Takes effect immediately, because workers check it whenever they pop a job.
+    * Jobs can still be enqueued to paused queues.
+    *
+    * @param queue
+    *           Queue name.
+    * @param pause
+    *           Pause (true) or unpause (false)?.
+    */
+   void pauseQueue(String queue, boolean pause);
+
+   /**
+    * Get all queues paused for all workers.
+    */
+   Set<String> pausedQueues();
+
+   /**
+    * Limit the number of concurrently running jobs of a queue for all workers, including workers started later.
+    * Checked atomically whenever workers pop a job, so no job is popped while the limit is reached.
+    *
+    * @param queue
+    *           Queue name.
+    * @param limit
+    *           Max number of concurrently running jobs. Values <= 0 remove the limit.
+    */
+   void limitQueue(String queue, int limit);
+
+   /**
+    * Get the concurrency limits of all limited queues.
+    */
+   Map<String, Integer> queueLimits();
+
+   /**
+    * Get the throughput per minute, queue and job type of all workers in the given time window.
+    * Cheap, because it just reads one small hash per minute.
+    *
+    * @param from
+    *           Start of the time window (inclusive).
+    * @param to
+    *           End of the time window (inclusive).
+    * @return Throughput ordered by minute, queue and job type.
+    */
+   List<Throughput> throughput(Instant from, Instant to);
+
    /**
     * Publish the given job to the given channel.
     * Job are considered to be admin jobs, which execute fast.
@@ -94,6 +260,23 @@ public interface Client {
     */
    long publish(String channel, Object job);
 
+   /**
+    * Publish the given job to the given channel and collect the replies of all workers listening to the channel.
+    * Each reply is the execution processed by one worker, including the worker name and the job result.
+    * Blocks for the whole timeout, because the number of workers is not known.
+    *
+    * @param channel
+    *           Channel name.
+    * @param job
+    *           Job.
+    * @param timeout
+    *           Time to wait for replies.
+    * @param unit
+    *           Unit of the timeout.
+    * @return Replies received within the timeout.
+    */
+   List<Execution> publishAndCollect(String channel, Object job, int timeout, TimeUnit unit);
+
    /**
     * Try to acquire a lock.
     *
@@ -118,4 +301,119 @@ public interface Client {
     *           Holder for the lock.
     */
    void releaseLock(String lock, String holder);
+
+   /**
+    * Try to acquire a lock, whose lease is renewed in the background until the returned handle is closed.
+    * The handle provides a fencing token, which increases each time the lock gets acquired.
+    *
+    * @param lock
+    *           Name of the lock.
+    * @param holder
+    *           Holder for the lock.
+    * @return Handle for the lock, or null, if the lock is held by someone else.
+    */
+   LockHandle lock(String lock, String holder);
+
+   /**
+    * Acquire a lock, whose lease is renewed in the background until the returned handle is closed.
+    * If the lock is held by someone else, wait until it gets released.
+    *
+    * @param lock
+    *           Name of the lock.
+    * @param holder
+    *           Holder for the lock.
+    * @param waitTimeout
+    *           Max time to wait for the lock. Exceeded by at most 50 ms.
+    * @param unit
+    *           Unit of the wait timeout.
+    * @return Handle for the lock, or null, if the lock could not be acquired within the wait timeout.
+    */
+   LockHandle lock(String lock, String holder, int waitTimeout, TimeUnit unit);
+
+   /**
+    * Try to acquire a permit of a counting semaphore.
+    * Each holder gets at most one permit. If the holder already holds a permit, its lease is refreshed.
+    * Permits whose lease expired, e.g. because their holder crashed, are freed automatically.
+    *
+    * @param semaphore
+    *           Name of the semaphore.
+    * @param holder
+    *           Holder for the permit.
+    * @param permits
+    *           Max number of permits. All holders of the semaphore should use the same value.
+    * @param timeout
+    *           Timeout (lease) for the permit. Should be >= 100 ms.
+    * @param unit
+    *           Unit of the timeout.
+    * @return Permit has been acquired.
+    */
+   boolean tryAcquireSemaphore(String semaphore, String holder, int permits, int timeout, TimeUnit unit);
+
+   /**
+    * Release the permit of a semaphore.
+    * This operations does nothing, if the holder does not hold a permit.
+    *
+    * @param semaphore
+    *           Name of the semaphore.
+    * @param holder
+    *           Holder for the permit.
+    */
+   void releaseSemaphore(String semaphore, String holder);
+
+   /**
+    * Try to acquire the read lock of a read-write lock.
+    * Any number of holders may hold the read lock at the same time, as long as no one holds the write lock.
+    * If the holder already holds the read lock, its lease is refreshed.
+    *
+    * @param lock
+    *           Name of the lock.
+    * @param holder
+    *           Holder for the lock.
+    * @param timeout
+    *           Timeout (lease) for the lock. Should be >= 100 ms.
+    * @param unit
+    *           Unit of the timeout.
+    * @return Lock has been acquired.
+    */
+   boolean tryReadLock(String lock, String holder, int timeout, TimeUnit unit);
+
+   /**
+    * Release the read lock of a read-write lock.
+    * This operations does nothing, if the read lock is not held by the given holder.
+    *
+    * @param lock
+    *           Name of the lock.
+    * @param holder
+    *           Holder for the lock.
+    */
+   void releaseReadLock(String lock, String holder);
+
+   /**
+    * Try to acquire the write lock of a read-write lock.
+    * Just one holder may hold the write lock and only if no one else holds the read lock.
+    * If the holder already holds the write lock, its lease is refreshed.
+    * Writers do not block new readers, so under constant read load writers may not get the lock.
+    *
+    * @param lock
+    *           Name of the lock.
+    * @param holder
+    *           Holder for the lock.
+    * @param timeout
+    *           Timeout (lease) for the lock. Should be >= 100 ms.
+    * @param unit
+    *           Unit of the timeout.
+    * @return Lock has been acquired.
+    */
+   boolean tryWriteLock(String lock, String holder, int timeout, TimeUnit unit);
+
+   /**
+    * Release the write lock of a read-write lock.
+    * This operations does nothing, if the write lock is not held by the given holder.
+    *
+    * @param lock
+    *           Name of the lock.
+    * @param holder
+    *           Holder for the lock.
+    */
+   void releaseWriteLock(String lock, String holder);
 }
@@ -1,40 +1,102 @@
 package com.s24.redjob.client;
 
 import com.s24.redjob.AbstractDao;
+import com.s24.redjob.Dao;
 import com.s24.redjob.RedJobRedisConnectionFactory;
+import com.s24.redjob.channel.ChannelDao;
 import com.s24.redjob.channel.ChannelDaoImpl;
+import com.s24.redjob.lock.LockDao;
 import com.s24.redjob.lock.LockDaoImpl;
+import com.s24.redjob.lock.LockWatchdog;
+import com.s24.redjob.queue.FifoDao;
 import com.s24.redjob.queue.FifoDaoImpl;
+import com.s24.redjob.worker.WorkerDao;
 import com.s24.redjob.worker.WorkerDaoImpl;
 import com.s24.redjob.worker.json.ExecutionRedisSerializer;
+
+import java.util.function.UnaryOperator;
+
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.FactoryBean;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 
 /**
  * {@link FactoryBean} for easy creation of a {@link Client}.
  */
-public class ClientFactoryBean implements FactoryBean<Client>, InitializingBean {
+public class ClientFactoryBean implements FactoryBean<Client>, InitializingBean, DisposableBean {
+   /**
+    * Own worker dao.
+    */
+   private final WorkerDaoImpl ownWorkerDao = new WorkerDaoImpl();
+
+   /**
+    * Own queue dao.
+    */
+   private final FifoDaoImpl ownFifoDao = new FifoDaoImpl();
+
+   /**
+    * Own channel dao.
+    */
+   private final ChannelDaoImpl ownChannelDao = new ChannelDaoImpl();
+
+   /**
+    * Own lock dao.
+    */
+   private final LockDaoImpl ownLockDao = new LockDaoImpl();
+
+   /**
+    * Worker dao. Defaults to the own one.
+    */
+   private WorkerDao workerDao = ownWorkerDao;
+
+   /**
+    * Queue dao. Defaults to the own one.
+    */
+   private FifoDao fifoDao = ownFifoDao;
+
+   /**
+    * Channel dao. Defaults to the own one.
+    */
+   private ChannelDao channelDao = ownChannelDao;
+
    /**
-    * Worker dao.
+    * Lock dao. Defaults to the own one.
     */
-   private final WorkerDaoImpl workerDao = new WorkerDaoImpl();
+   private LockDao lockDao = ownLockDao;
 
    /**
-    * Queue dao.
+    * Decorator for all daos used by the client, e.g. for metering. Defaults to none.
     */
-   private final FifoDaoImpl fifoDao = new FifoDaoImpl();
+   private UnaryOperator<Dao> daoDecorator = UnaryOperator.identity();
 
    /**
-    * Channel dao.
+    * Lock watchdog.
     */
-   private final ChannelDaoImpl channelDao = new ChannelDaoImpl();
+   private final LockWatchdog lockWatchdog = new LockWatchdog();
 
    /**
-    * Lock dao.
+    * Message listener container.
+    * If none has been injected, an own one will be created. It gets started by the client on first use.
     */
-   private final LockDaoImpl lockDao = new LockDaoImpl();
+   private RedisMessageListenerContainer listenerContainer;
+
+   /**
+    * Has the message listener container been created by this factory bean?.
+    */
+   private boolean ownListenerContainer = false;
+
+   /**
+    * Max number of job executions in the near cache. Defaults to 0, which disables the cache.
+    */
+   private int cacheSize = 0;
+
+   /**
+    * Time to live of job executions in the near cache in milliseconds. Defaults to 60 seconds.
+    */
+   private long cacheTtlMillis = 60_000;
 
    /**
     * The instance.
@@ -43,18 +105,71 @@ public class ClientFactoryBean implements FactoryBean<Client>, InitializingBean
 
    @Override
    public void afterPropertiesSet() throws Exception {
-      workerDao.afterPropertiesSet();
-      fifoDao.afterPropertiesSet();
-      channelDao.afterPropertiesSet();
-      lockDao.afterPropertiesSet();
+      // Initialize just the own daos, which have not been replaced by injected ones.
+      if (workerDao == ownWorkerDao) {
+         ownWorkerDao.afterPropertiesSet();
+      }
+      if (fifoDao == ownFifoDao) {
+         ownFifoDao.afterPropertiesSet();
+      }
+      if (channelDao == ownChannelDao) {
+         ownChannelDao.afterPropertiesSet();
+      }
+      if (lockDao == ownLockDao) {
+         ownLockDao.afterPropertiesSet();
+      }
+      WorkerDao workerDao = decorate(this.workerDao);
+      FifoDao fifoDao = decorate(this.fifoDao);
+      ChannelDao channelDao = decorate(this.channelDao);
+      LockDao lockDao = decorate(this.lockDao);
+
+      lockWatchdog.setLockDao(lockDao);
+      lockWatchdog.afterPropertiesSet();
+
+      if (listenerContainer == null) {
+         listenerContainer = new RedisMessageListenerContainer();
+         listenerContainer.setConnectionFactory(getConnectionFactory());
+         listenerContainer.afterPropertiesSet();
+         ownListenerContainer = true;
+      }
 
       client.setWorkerDao(workerDao);
       client.setFifoDao(fifoDao);
       client.setChannelDao(channelDao);
       client.setLockDao(lockDao);
+      client.setLockWatchdog(lockWatchdog);
+      client.setListenerContainer(listenerContainer);
+      if (cacheSize > 0) {
+         client.setExecutionCache(new ExecutionCache(cacheSize, cacheTtlMillis));
+      }
       client.afterPropertiesSet();
    }
 
+   /**
+    * Apply the {@link #daoDecorator} to the given dao.
+    */
+   @SuppressWarnings("unchecked")
+   private <D extends Dao> D decorate(D dao) {
+      return (D) daoDecorator.apply(dao);
+   }
+
+   @Override
+   public void destroy() throws Exception {
+      client.destroy();
+      lockWatchdog.destroy();
+      if (ownListenerContainer) {
+         listenerContainer.destroy();
+      }
+   }
+
+   /**
+    * Near cache of the client, e.g. for its hit and miss statistics.
+    * Null, if caching is disabled or the client has not been initialized yet.
+    */
+   public ExecutionCache getExecutionCache() {
+      return client.getExecutionCache();
+   }
+
    @Override
    public boolean isSingleton() {
       return true;
@@ -78,7 +193,7 @@ public class ClientFactoryBean implements FactoryBean<Client>, InitializingBean
     * {@link RedisConnectionFactory} to access Redis.
     */
    public RedisConnectionFactory getConnectionFactory() {
-      return fifoDao.getConnectionFactory();
+      return ownFifoDao.getConnectionFactory();
    }
 
    /**
@@ -87,41 +202,171 @@ public class ClientFactoryBean implements FactoryBean<Client>, InitializingBean
    @RedJobRedisConnectionFactory
    @Autowired
    public void setConnectionFactory(RedisConnectionFactory connectionFactory) {
-      workerDao.setConnectionFactory(connectionFactory);
-      fifoDao.setConnectionFactory(connectionFactory);
-      channelDao.setConnectionFactory(connectionFactory);
-      lockDao.setConnectionFactory(connectionFactory);
+      ownWorkerDao.setConnectionFactory(connectionFactory);
+      ownFifoDao.setConnectionFactory(connectionFactory);
+      ownChannelDao.setConnectionFactory(connectionFactory);
+      ownLockDao.setConnectionFactory(connectionFactory);
+   }
+
+   /**
+    * Worker dao. Optional: If none is set, an own one will be used.
+    */
+   public WorkerDao getWorkerDao() {
+      return workerDao;
+   }
+
+   /**
+    * Worker dao. Optional: If none is set, an own one will be used.
+    */
+   public void setWorkerDao(WorkerDao workerDao) {
+      this.workerDao = workerDao;
+   }
+
+   /**
+    * Queue dao. Optional: If none is set, an own one will be used.
+    */
+   public FifoDao getFifoDao() {
+      return fifoDao;
+   }
+
+   /**
+    * Queue dao. Optional: If none is set, an own one will be used.
+    */
+   public void setFifoDao(FifoDao fifoDao) {
+      this.fifoDao = fifoDao;
+   }
+
+   /**
+    * Channel dao. Optional: If none is set, an own one will be used.
+    */
+   public ChannelDao getChannelDao() {
+      return channelDao;
+   }
+
+   /**
+    * Channel dao. Optional: If none is set, an own one will be used.
+    */
+   public void setChannelDao(ChannelDao channelDao) {
+      this.channelDao = channelDao;
+   }
+
+   /**
+    * Lock dao. Optional: If none is set, an own one will be used.
+    */
+   public LockDao getLockDao() {
+      return lockDao;
+   }
+
+   /**
+    * Lock dao. Optional: If none is set, an own one will be used.
+    */
+   public void setLockDao(LockDao lockDao) {
+      this.lockDao = lockDao;
+   }
+
+   /**
+    * Decorator for all daos used by the client, e.g. for metering. Defaults to none.
+    * The decorator has to return a dao implementing the same interfaces as the given one.
+    */
+   public UnaryOperator<Dao> getDaoDecorator() {
+      return daoDecorator;
+   }
+
+   /**
+    * Decorator for all daos used by the client, e.g. for metering. Defaults to none.
+    * The decorator has to return a dao implementing the same interfaces as the given one.
+    */
+   public void setDaoDecorator(UnaryOperator<Dao> daoDecorator) {
+      this.daoDecorator = daoDecorator;
+   }
+
+   /**
+    * Message listener container. Optional: If none is set, an own one will be created.
+    */
+   public RedisMessageListenerContainer getListenerContainer() {
+      return listenerContainer;
+   }
+
+   /**
+    * Message listener container. Optional: If none is set, an own one will be created.
+    */
+   public void setListenerContainer(RedisMessageListenerContainer listenerContainer) {
+      this.listenerContainer = listenerContainer;
+   }
+
+   /**
+    * Max number of job executions in the near cache for {@link Client#execution(long)}.
+    * Defaults to 0, which disables the cache.
+    */
+   public int getCacheSize() {
+      return cacheSize;
+   }
+
+   /**
+    * Max number of job executions in the near cache for {@link Client#execution(long)}.
+    * Defaults to 0, which disables the cache.
+    */
+   public void setCacheSize(int cacheSize) {
+      this.cacheSize = cacheSize;
+   }
+
+   /**
+    * Time to live of job executions in the near cache in milliseconds. Defaults to 60 seconds.
+    */
+   public long getCacheTtlMillis() {
+      return cacheTtlMillis;
+   }
+
+   /**
+    * Time to live of job executions in the near cache in milliseconds. Defaults to 60 seconds.
+    */
+   public void setCacheTtlMillis(long cacheTtlMillis) {
+      this.cacheTtlMillis = cacheTtlMillis;
+   }
+
+   /**
+    * Lease time of locks acquired via {@link Client#lock(String, String)} in milliseconds. Defaults to 30 seconds.
+    */
+   public int getLockLeaseTimeMillis() {
+      return lockWatchdog.getLeaseTimeMillis();
+   }
+
+   /**
+    * Lease time of locks acquired via {@link Client#lock(String, String)} in milliseconds. Defaults to 30 seconds.
+    */
+   public void setLockLeaseTimeMillis(int lockLeaseTimeMillis) {
+      lockWatchdog.setLeaseTimeMillis(lockLeaseTimeMillis);
    }
 
    /**
     * Redis "namespace" to use. Prefix for all Redis keys. Defaults to {@value AbstractDao#DEFAULT_NAMESPACE}.
     */
    public String getNamespace() {
-      return fifoDao.getNamespace();
+      return ownFifoDao.getNamespace();
    }
 
    /**
     * Redis "namespace" to use. Prefix for all Redis keys. Defaults to {@value AbstractDao#DEFAULT_NAMESPACE}.
     */
    public void setNamespace(String namespace) {
-      workerDao.setNamespace(namespace);
-      fifoDao.setNamespace(namespace);
-      channelDao.setNamespace(namespace);
-      lockDao.setNamespace(namespace);
+      ownWorkerDao.setNamespace(namespace);
+      ownFifoDao.setNamespace(namespace);
+      ownChannelDao.setNamespace(namespace);
+      ownLockDao.setNamespace(namespace);
    }
 
    /**
     * Redis serializer for job executions.
     */
    public ExecutionRedisSerializer getExecutions() {
-      return fifoDao.getExecutions();
+      return ownFifoDao.getExecutions();
    }
 
    /**
     * Redis serializer for job executions.
     */
    public void setExecutions(ExecutionRedisSerializer executions) {
-      fifoDao.setExecutions(executions);
-      channelDao.setExecutions(executions);
+      ownFifoDao.setExecutions(executions);
+      ownChannelDao.setExecutions(executions);
    }
 }
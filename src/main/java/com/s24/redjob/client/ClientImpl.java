@@ -2,14 +2,36 @@ package com.s24.redjob.client;
 
 import com.s24.redjob.channel.ChannelDao;
 import com.s24.redjob.lock.LockDao;
+import com.s24.redjob.lock.LockHandle;
+import com.s24.redjob.lock.LockWatchdog;
+import com.s24.redjob.queue.ExecutionChange;
+import com.s24.redjob.queue.ExecutionStatus;
 import com.s24.redjob.queue.FifoDao;
+import com.s24.redjob.queue.QueueStats;
 import com.s24.redjob.worker.Execution;
+import com.s24.redjob.worker.Throughput;
 import com.s24.redjob.worker.WorkerDao;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.listener.Topic;
 import org.springframework.util.Assert;
 
 import static java.util.stream.Collectors.toList;
@@ -18,6 +40,11 @@ import static java.util.stream.Collectors.toList;
  * Default implementation of {@link Client}.
  */
 public class ClientImpl implements Client {
+   /**
+    * Logger.
+    */
+   private static final Logger log = LoggerFactory.getLogger(ClientImpl.class);
+
    /**
     * Worker dao.
     */
@@ -38,6 +65,42 @@ public class ClientImpl implements Client {
     */
    private LockDao lockDao;
 
+   /**
+    * Lock watchdog.
+    */
+   private LockWatchdog lockWatchdog;
+
+   /**
+    * Message listener container.
+    */
+   private RedisMessageListenerContainer listenerContainer;
+
+   /**
+    * Shared subscriber for notifications about completed job executions.
+    * Subscribed with the first use of a feature based on notifications.
+    */
+   private CompletionListener completionListener;
+
+   /**
+    * Has the {@link #completionListener} been subscribed?.
+    */
+   private volatile boolean completionSubscribed = false;
+
+   /**
+    * Message listeners of the watchers of execution changes.
+    */
+   private final Map<Consumer<ExecutionChange>, MessageListener> watchers = new ConcurrentHashMap<>();
+
+   /**
+    * Optional near cache for {@link #execution(long)}. Null, if caching is disabled.
+    */
+   private ExecutionCache executionCache;
+
+   /**
+    * Message listener invalidating the near cache.
+    */
+   private final MessageListener cacheInvalidator = this::invalidate;
+
    /**
     * Init.
     */
@@ -47,6 +110,64 @@ public class ClientImpl implements Client {
       Assert.notNull(fifoDao, "Precondition violated: fifoDao != null.");
       Assert.notNull(channelDao, "Precondition violated: channelDao != null.");
       Assert.notNull(lockDao, "Precondition violated: lockDao != null.");
+      Assert.notNull(lockWatchdog, "Precondition violated: lockWatchdog != null.");
+      Assert.notNull(listenerContainer, "Precondition violated: listenerContainer != null.");
+
+      completionListener = new CompletionListener(fifoDao);
+      if (executionCache != null) {
+         subscribe(cacheInvalidator, fifoDao.getChangeTopic());
+      }
+   }
+
+   /**
+    * Subscribe a message listener. Starts the message listener container, if it is not running yet.
+    * A container without any listeners does neither hold a connection nor a thread,
+    * so the subscriptions are established just for the features in use.
+    *
+    * @param listener
+    *           Message listener.
+    * @param topic
+    *           Topic.
+    */
+   private void subscribe(MessageListener listener, Topic topic) {
+      subscribeCompletions();
+      synchronized (listenerContainer) {
+         listenerContainer.addMessageListener(listener, topic);
+      }
+   }
+
+   /**
+    * Subscribe the {@link #completionListener}, if not subscribed yet.
+    * It stays subscribed until shutdown, so the container does not unsubscribe and resubscribe
+    * each time the last watcher gets removed.
+    */
+   private void subscribeCompletions() {
+      if (completionSubscribed) {
+         return;
+      }
+      synchronized (listenerContainer) {
+         if (!completionSubscribed) {
+            listenerContainer.addMessageListener(completionListener, fifoDao.getCompletionTopic());
+            if (!listenerContainer.isRunning()) {
+               // Starting the container waits for the subscription to be established.
+               listenerContainer.start();
+            }
+            completionSubscribed = true;
+         }
+      }
+   }
+
+   /**
+    * Shutdown.
+    */
+   @PreDestroy
+   public void destroy() {
+      synchronized (listenerContainer) {
+         listenerContainer.removeMessageListener(completionListener);
+         listenerContainer.removeMessageListener(cacheInvalidator);
+         watchers.values().forEach(listenerContainer::removeMessageListener);
+      }
+      watchers.clear();
    }
 
    @Override
@@ -62,13 +183,114 @@ public class ClientImpl implements Client {
    @Override
    public void dequeue(String queue, long id) {
       fifoDao.dequeue(queue, id);
+      if (executionCache != null) {
+         executionCache.invalidate(id);
+      }
+   }
+
+   @Override
+   public int cancel(Collection<Long> ids) {
+      int cancelled = fifoDao.cancel(ids);
+      if (executionCache != null) {
+         ids.forEach(executionCache::invalidate);
+      }
+      return cancelled;
+   }
+
+   @Override
+   public int cancel(String queue, Predicate<Object> predicate) {
+      AtomicInteger cancelled = new AtomicInteger();
+      fifoDao.forEachQueued(queue, executions -> {
+         List<Long> ids = executions.stream()
+               .filter(execution -> predicate.test(execution.getJob()))
+               .map(Execution::getId)
+               .collect(toList());
+         cancelled.addAndGet(cancel(ids));
+      });
+      return cancelled.get();
    }
 
    @Override
    public Execution execution(long id) {
+      if (executionCache != null) {
+         return executionCache.get(id, fifoDao::get);
+      }
       return fifoDao.get(id);
    }
 
+   @Override
+   public List<Execution> executions(Collection<Long> ids) {
+      return fifoDao.get(ids);
+   }
+
+   @Override
+   public List<Execution> executions(ExecutionStatus status, Instant from, Instant to) {
+      return fifoDao.get(fifoDao.getIds(status, from, to));
+   }
+
+   @Override
+   public ExecutionStatus status(long id) {
+      return fifoDao.getStatus(id);
+   }
+
+   /**
+    * Invalidate the cached execution on changes.
+    *
+    * @param message
+    *           Change message.
+    * @param pattern
+    *           Channel name pattern that let us receive the message.
+    */
+   private void invalidate(Message message, byte[] pattern) {
+      try {
+         ExecutionChange change = fifoDao.getChange(message);
+         if (change == null) {
+            executionCache.invalidateAll();
+         } else if (change.getType() != ExecutionChange.Type.ENQUEUED) {
+            // New executions are not cached yet.
+            executionCache.invalidate(change.getId());
+         }
+      } catch (Exception e) {
+         log.error("Failed to handle execution change: {}", e.getMessage());
+         executionCache.invalidateAll();
+      }
+   }
+
+   @Override
+   public CompletableFuture<Execution> awaitResult(long id, int timeout, TimeUnit unit) {
+      subscribeCompletions();
+      return completionListener.await(id, timeout, unit);
+   }
+
+   @Override
+   public void watch(Consumer<ExecutionChange> watcher) {
+      MessageListener listener = (message, pattern) -> {
+         try {
+            ExecutionChange change = fifoDao.getChange(message);
+            if (change != null) {
+               watcher.accept(change);
+            }
+         } catch (Exception e) {
+            log.error("Failed to handle execution change: {}", e.getMessage());
+         }
+      };
+      if (watchers.putIfAbsent(watcher, listener) != null) {
+         return;
+      }
+      subscribe(listener, fifoDao.getChangeTopic());
+   }
+
+   @Override
+   public void unwatch(Consumer<ExecutionChange> watcher) {
+      MessageListener listener = watchers.remove(watcher);
+      if (listener == null) {
+         return;
+      }
+      synchronized (listenerContainer) {
+         listenerContainer.removeMessageListener(listener);
+      }
+   }
+
    @Override
    public List<Execution> queuedExecutions(String queue) {
       return fifoDao.getQueued(queue);
@@ -87,11 +309,46 @@ public class ClientImpl implements Client {
       return fifoDao.getAll();
    }
 
+   @Override
+   public List<QueueStats> queueStats() {
+      return fifoDao.getQueueStats();
+   }
+
+   @Override
+   public void pauseQueue(String queue, boolean pause) {
+      fifoDao.pause(queue, pause);
+   }
+
+   @Override
+   public Set<String> pausedQueues() {
+      return fifoDao.getPausedQueues();
+   }
+
+   @Override
+   public void limitQueue(String queue, int limit) {
+      fifoDao.limit(queue, limit);
+   }
+
+   @Override
+   public Map<String, Integer> queueLimits() {
+      return fifoDao.getLimits();
+   }
+
+   @Override
+   public List<Throughput> throughput(Instant from, Instant to) {
+      return workerDao.throughput(from, to);
+   }
+
    @Override
    public long publish(String channel, Object job) {
       return channelDao.publish(channel, job).getId();
    }
 
+   @Override
+   public List<Execution> publishAndCollect(String channel, Object job, int timeout, TimeUnit unit) {
+      return channelDao.publishAndCollect(channel, job, timeout, unit);
+   }
+
    @Override
    public boolean tryLock(String lock, String holder, int timeout, TimeUnit unit) {
       return lockDao.tryLock(lock, holder, timeout, unit);
@@ -102,6 +359,46 @@ public class ClientImpl implements Client {
       lockDao.releaseLock(lock, holder);
    }
 
+   @Override
+   public LockHandle lock(String lock, String holder) {
+      return lockWatchdog.tryLock(lock, holder);
+   }
+
+   @Override
+   public LockHandle lock(String lock, String holder, int waitTimeout, TimeUnit unit) {
+      return lockWatchdog.lock(lock, holder, waitTimeout, unit);
+   }
+
+   @Override
+   public boolean tryAcquireSemaphore(String semaphore, String holder, int permits, int timeout, TimeUnit unit) {
+      return lockDao.tryAcquireSemaphore(semaphore, holder, permits, timeout, unit);
+   }
+
+   @Override
+   public void releaseSemaphore(String semaphore, String holder) {
+      lockDao.releaseSemaphore(semaphore, holder);
+   }
+
+   @Override
+   public boolean tryReadLock(String lock, String holder, int timeout, TimeUnit unit) {
+      return lockDao.tryReadLock(lock, holder, timeout, unit);
+   }
+
+   @Override
+   public void releaseReadLock(String lock, String holder) {
+      lockDao.releaseReadLock(lock, holder);
+   }
+
+   @Override
+   public boolean tryWriteLock(String lock, String holder, int timeout, TimeUnit unit) {
+      return lockDao.tryWriteLock(lock, holder, timeout, unit);
+   }
+
+   @Override
+   public void releaseWriteLock(String lock, String holder) {
+      lockDao.releaseWriteLock(lock, holder);
+   }
+
    //
    // Injections.
    //
@@ -161,4 +458,46 @@ public class ClientImpl implements Client {
    public void setLockDao(LockDao lockDao) {
       this.lockDao = lockDao;
    }
+
+   /**
+    * Lock watchdog.
+    */
+   public LockWatchdog getLockWatchdog() {
+      return lockWatchdog;
+   }
+
+   /**
+    * Lock watchdog.
+    */
+   public void setLockWatchdog(LockWatchdog lockWatchdog) {
+      this.lockWatchdog = lockWatchdog;
+   }
+
+   /**
+    * Optional near cache for {@link #execution(long)}. Null, if caching is disabled.
+    */
+   public ExecutionCache getExecutionCache() {
+      return executionCache;
+   }
+
+   /**
+    * Optional near cache for {@link #execution(long)}. Null, if caching is disabled.
+    */
+   public void setExecutionCache(ExecutionCache executionCache) {
+      this.executionCache = executionCache;
+   }
+
+   /**
+    * Message listener container.
+    */
+   public RedisMessageListenerContainer getListenerContainer() {
+      return listenerContainer;
+   }
+
+   /**
+    * Message listener container.
+    */
+   public void setListenerContainer(RedisMessageListenerContainer listenerContainer) {
+      this.listenerContainer = listenerContainer;
+   }
 }
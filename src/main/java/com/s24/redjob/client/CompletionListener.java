@@ -0,0 +1,109 @@
+package com.s24.redjob.client;
+
+import com.s24.redjob.queue.FifoDao;
+import com.s24.redjob.worker.Execution;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+
+/**
+ * Shared subscriber for notifications about completed job executions.
+ * Fans out the completed job executions to all futures waiting for them.
+ */
+class CompletionListener implements MessageListener {
+   /**
+    * Logger.
+    */
+   private static final Logger log = LoggerFactory.getLogger(CompletionListener.class);
+
+   /**
+    * Queue dao.
+    */
+   private final FifoDao fifoDao;
+
+   /**
+    * Futures waiting for the completion of job executions by job id.
+    * The lists are modified just atomically inside of the map operations.
+    */
+   private final Map<Long, List<CompletableFuture<Execution>>> waiting = new ConcurrentHashMap<>();
+
+   /**
+    * Constructor.
+    *
+    * @param fifoDao
+    *           Queue dao.
+    */
+   CompletionListener(FifoDao fifoDao) {
+      this.fifoDao = fifoDao;
+   }
+
+   /**
+    * Wait for the completion of the job execution with the given id.
+    *
+    * @param id
+    *           Id of the job.
+    * @param timeout
+    *           Timeout.
+    * @param unit
+    *           Unit of the timeout.
+    * @return Future for the completed execution.
+    */
+   CompletableFuture<Execution> await(long id, int timeout, TimeUnit unit) {
+      CompletableFuture<Execution> future = new CompletableFuture<>();
+      waiting.compute(id, (i, futures) -> {
+         List<CompletableFuture<Execution>> result = futures != null ? futures : new ArrayList<>();
+         result.add(future);
+         return result;
+      });
+      future.orTimeout(timeout, unit).whenComplete((execution, e) -> deregister(id, future));
+
+      // Register the future before checking the current state, so that no notification gets lost.
+      Execution execution = fifoDao.get(id);
+      if (execution == null || execution.getEnd() != null) {
+         future.complete(execution);
+      }
+
+      return future;
+   }
+
+   /**
+    * Remove a future from the waiting futures.
+    *
+    * @param id
+    *           Id of the job.
+    * @param future
+    *           Future.
+    */
+   private void deregister(long id, CompletableFuture<Execution> future) {
+      waiting.computeIfPresent(id, (i, futures) -> {
+         futures.remove(future);
+         return futures.isEmpty() ? null : futures;
+      });
+   }
+
+   @Override
+   public void onMessage(Message message, byte[] pattern) {
+      long id = fifoDao.getId(message);
+      List<CompletableFuture<Execution>> futures = waiting.remove(id);
+      if (futures == null) {
+         return;
+      }
+
+      try {
+         Execution execution = fifoDao.get(id);
+         futures.forEach(future -> future.complete(execution));
+      } catch (Exception e) {
+         log.error("Failed to load completed job execution {}: {}", id, e.getMessage());
+         futures.forEach(future -> future.completeExceptionally(e));
+      }
+   }
+}
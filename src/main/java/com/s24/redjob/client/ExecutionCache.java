@@ -0,0 +1,245 @@
+package com.s24.redjob.client;
+
+import com.s24.redjob.worker.Execution;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongFunction;
+
+import org.springframework.util.Assert;
+
+/**
+ * Bounded near cache for job executions by their id.
+ * Evicts the least recently used execution, if the cache is full, and executions older than the TTL.
+ * Executions need to be invalidated, whenever they change, e.g. via the change channel of the namespace.
+ *
+ * Cached executions are shared between all callers, so they must not be modified.
+ */
+public class ExecutionCache {
+   /**
+    * Max number of cached executions.
+    */
+   private final int maxSize;
+
+   /**
+    * Time to live of cached executions in milliseconds.
+    */
+   private final long ttlMillis;
+
+   /**
+    * Cached executions by id. Access ordered for LRU eviction. Guarded by itself.
+    */
+   private final LinkedHashMap<Long, Entry> cache;
+
+   /**
+    * Executions currently being loaded by id. Used to detect invalidations of an execution while loading it.
+    * Guarded by {@link #cache}.
+    */
+   private final Map<Long, Load> loads = new HashMap<>();
+
+   /**
+    * Number of invalidations of all executions. Used to detect these invalidations while loading an execution.
+    * Guarded by {@link #cache}.
+    */
+   private long generation = 0;
+
+   /**
+    * Number of cache hits.
+    */
+   private final LongAdder hits = new LongAdder();
+
+   /**
+    * Number of cache misses.
+    */
+   private final LongAdder misses = new LongAdder();
+
+   /**
+    * Constructor.
+    *
+    * @param maxSize
+    *           Max number of cached executions.
+    * @param ttlMillis
+    *           Time to live of cached executions in milliseconds.
+    */
+   public ExecutionCache(int maxSize, long ttlMillis) {
+      Assert.isTrue(maxSize > 0, "Precondition violated: maxSize > 0.");
+      Assert.isTrue(ttlMillis > 0, "Precondition violated: ttlMillis > 0.");
+
+      this.maxSize = maxSize;
+      this.ttlMillis = ttlMillis;
+      this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+         @Override
+         protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+            return size() > ExecutionCache.this.maxSize;
+         }
+      };
+   }
+
+   /**
+    * Get an execution from the cache or load it, if it is not cached.
+    * Not existing executions are not cached.
+    *
+    * @param id
+    *           Id of the job.
+    * @param loader
+    *           Loader for not cached executions.
+    * @return Execution or null, if not existing.
+    */
+   public Execution get(long id, LongFunction<Execution> loader) {
+      long now = System.currentTimeMillis();
+      synchronized (cache) {
+         Entry entry = cache.get(id);
+         if (entry != null) {
+            if (entry.expires > now) {
+               hits.increment();
+               return entry.execution;
+            }
+            cache.remove(id);
+         }
+      }
+
+      misses.increment();
+      Load load;
+      long version;
+      long generation;
+      synchronized (cache) {
+         load = loads.computeIfAbsent(id, ignored -> new Load());
+         load.loaders++;
+         version = load.version;
+         generation = this.generation;
+      }
+
+      Execution execution = null;
+      try {
+         execution = loader.apply(id);
+         return execution;
+      } finally {
+         synchronized (cache) {
+            // Do not cache possibly stale executions, if the execution has been invalidated while loading.
+            if (execution != null && version == load.version && generation == this.generation) {
+               cache.put(id, new Entry(execution, now + ttlMillis));
+            }
+            if (--load.loaders == 0) {
+               loads.remove(id);
+            }
+         }
+      }
+   }
+
+   /**
+    * Invalidate the execution with the given id.
+    *
+    * @param id
+    *           Id of the job.
+    */
+   public void invalidate(long id) {
+      synchronized (cache) {
+         cache.remove(id);
+         Load load = loads.get(id);
+         if (load != null) {
+            load.version++;
+         }
+      }
+   }
+
+   /**
+    * Invalidate all executions.
+    */
+   public void invalidateAll() {
+      synchronized (cache) {
+         generation++;
+         cache.clear();
+      }
+   }
+
+   /**
+    * Current number of cached executions.
+    */
+   public int size() {
+      synchronized (cache) {
+         return cache.size();
+      }
+   }
+
+   /**
+    * Number of cache hits.
+    */
+   public long getHits() {
+      return hits.sum();
+   }
+
+   /**
+    * Number of cache misses.
+    */
+   public long getMisses() {
+      return misses.sum();
+   }
+
+   /**
+    * Ratio of cache hits to all lookups. 0, if there have been no lookups yet.
+    */
+   public double getHitRate() {
+      long hits = getHits();
+      long lookups = hits + getMisses();
+      return lookups > 0 ? (double) hits / lookups : 0;
+   }
+
+   /**
+    * Max number of cached executions.
+    */
+   public int getMaxSize() {
+      return maxSize;
+   }
+
+   /**
+    * Time to live of cached executions in milliseconds.
+    */
+   public long getTtlMillis() {
+      return ttlMillis;
+   }
+
+   /**
+    * Cache entry.
+    */
+   private static class Entry {
+      /**
+       * Cached execution.
+       */
+      private final Execution execution;
+
+      /**
+       * Expiry timestamp in milliseconds.
+       */
+      private final long expires;
+
+      /**
+       * Constructor.
+       *
+       * @param execution
+       *           Cached execution.
+       * @param expires
+       *           Expiry timestamp in milliseconds.
+       */
+      private Entry(Execution execution, long expires) {
+         this.execution = execution;
+         this.expires = expires;
+      }
+   }
+
+   /**
+    * Loads of an execution in progress.
+    */
+   private static class Load {
+      /**
+       * Number of concurrent loads of the execution.
+       */
+      private int loaders = 0;
+
+      /**
+       * Number of invalidations of the execution since the first of the concurrent loads started.
+       */
+      private long version = 0;
+   }
+}
@@ -1,5 +1,6 @@
 package com.s24.redjob.listener;
 
+import com.s24.redjob.queue.FifoWorker;
 import com.s24.redjob.queue.QueueWorker;
 import com.s24.redjob.worker.Execution;
 import com.s24.redjob.worker.events.JobEvent;
@@ -15,20 +16,28 @@ import org.springframework.util.Assert;
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
 import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.Timer;
-import java.util.TimerTask;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
+import static java.util.Collections.emptyList;
 import static java.util.Collections.singleton;
+import static java.util.stream.Collectors.groupingBy;
 import static java.util.stream.Collectors.toList;
 
 /**
  * {@link QueueWorker} event listener for regularly updating job results.
  * So the client is able to see progress during job execution.
  *
+ * Just executions, whose state changed since their last update, are written.
+ * The updates are written in one batch per DAO.
+ *
  * Job results need to be thread safe for this to work reliably.
  */
 @Lazy(false)
@@ -50,31 +59,73 @@ public class ExecutionResultUpdateListener {
 
    /**
     * Job result updater.
+    * Uses a fixed delay between updates, so that slow updates do not pile up.
+    */
+   private final ScheduledExecutorService updater = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "Job result updater");
+      thread.setDaemon(true);
+      return thread;
+   });
+
+   /**
+    * Duration of the last update of all executions in milliseconds.
     */
-   private final Timer timer = new Timer("Job result updater", true);
+   private volatile long lastUpdateMillis = 0;
 
    @PostConstruct
    public void afterPropertiesSet() {
-      timer.scheduleAtFixedRate(new TimerTask() {
-         @Override
-         public void run() {
-            if (executions.isEmpty()) {
-               return;
-            }
-
-            for (Entry<QueueWorker, Execution> entry : executions.values()) {
-               QueueWorker worker = entry.getKey();
-               Execution execution = entry.getValue();
-               update(worker, execution);
-            }
-            handleUpdates(executions.values().stream().map(Entry::getValue).collect(toList()));
-         }
-      }, updateIntervalMillis, updateIntervalMillis);
+      updater.scheduleWithFixedDelay(this::updateAll, updateIntervalMillis, updateIntervalMillis, TimeUnit.MILLISECONDS);
    }
 
    @PreDestroy
    private void shutdown() {
-      timer.cancel();
+      updater.shutdownNow();
+   }
+
+   /**
+    * Update all currently executing jobs.
+    */
+   private void updateAll() {
+      if (executions.isEmpty()) {
+         return;
+      }
+
+      long start = System.currentTimeMillis();
+      try {
+         // The DAO, which started an execution, tracks its written state, so always update it through that DAO.
+         // Workers sharing a DAO get their executions updated at once.
+         Map<Object, List<Entry<QueueWorker, Execution>>> batches = executions.values().stream()
+               .collect(groupingBy(entry -> batchKey(entry.getKey())));
+         List<Execution> updated = new ArrayList<>();
+         for (List<Entry<QueueWorker, Execution>> entries : batches.values()) {
+            QueueWorker worker = entries.get(0).getKey();
+            updated.addAll(update(worker, entries.stream().map(Entry::getValue).collect(toList())));
+         }
+         if (!updated.isEmpty()) {
+            handleUpdates(updated);
+         }
+      } catch (Exception e) {
+         log.error("Failed to update job results.", e);
+      } finally {
+         lastUpdateMillis = System.currentTimeMillis() - start;
+         if (lastUpdateMillis > updateIntervalMillis) {
+            log.warn("Updating job results took {} ms, which is longer than the update interval of {} ms.",
+                  lastUpdateMillis, updateIntervalMillis);
+         }
+      }
+   }
+
+   /**
+    * Key for batching updates of executions of the given worker: Its DAO, if known, otherwise the worker itself.
+    *
+    * @param worker
+    *           Worker.
+    */
+   private Object batchKey(QueueWorker worker) {
+      if (worker instanceof FifoWorker && ((FifoWorker) worker).getFifoDao() != null) {
+         return ((FifoWorker) worker).getFifoDao();
+      }
+      return worker;
    }
 
    /**
@@ -207,6 +258,27 @@ public class ExecutionResultUpdateListener {
       }
    }
 
+   /**
+    * Update all given executions, whose state changed since their last update.
+    *
+    * @param worker
+    *           Worker.
+    * @param executions
+    *           Executions.
+    * @return Updated executions.
+    */
+   protected List<Execution> update(QueueWorker worker, Collection<Execution> executions) {
+      Assert.notNull(worker, "Pre-condition violated: worker != null.");
+      Assert.notNull(executions, "Pre-condition violated: executions != null.");
+
+      try {
+         return worker.update(executions);
+      } catch (Exception e) {
+         log.error("Failed to update job results.", e);
+         return emptyList();
+      }
+   }
+
    /**
     * Add custom functionality on update of {@link Execution}.
     *
@@ -243,4 +315,12 @@ public class ExecutionResultUpdateListener {
    public void setUpdateIntervalMillis(long updateIntervalMillis) {
       this.updateIntervalMillis = updateIntervalMillis;
    }
+
+   /**
+    * Duration of the last update of all executions in milliseconds.
+    * Should be well below the {@link #getUpdateIntervalMillis() update interval}.
+    */
+   public long getLastUpdateMillis() {
+      return lastUpdateMillis;
+   }
 }
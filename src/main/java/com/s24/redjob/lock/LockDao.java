@@ -1,11 +1,15 @@
 package com.s24.redjob.lock;
 
+import com.s24.redjob.Dao;
+
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
 /**
  * DAO for distributed locks.
  */
-public interface LockDao {
+public interface LockDao extends Dao {
    /**
     * Try to acquire a lock.
     *
@@ -21,13 +25,62 @@ public interface LockDao {
     */
    boolean tryLock(String lock, String holder, int timeout, TimeUnit unit);
 
+   /**
+    * Try to acquire a lock and get its fencing token.
+    * Each time the lock is newly acquired, it gets a higher fencing token.
+    * If the holder already holds the lock, the lock is refreshed and its current fencing token is returned.
+    *
+    * @param lock
+    *           Name of the lock.
+    * @param holder
+    *           Holder for the lock.
+    * @param timeout
+    *           Timeout for the lock. Should be >= 100 ms.
+    * @param unit
+    *           Unit of the timeout.
+    * @return Fencing token (> 0), if the lock has been acquired, otherwise 0.
+    */
+   long acquireLock(String lock, String holder, int timeout, TimeUnit unit);
+
+   /**
+    * Acquire a lock. If the lock is held by someone else, wait until it gets released or its lease expires.
+    * Waiters do not poll, but get notified by {@link #releaseLock(String, String)}.
+    * Each release wakes up just the longest waiting holder.
+    * Redis supports just whole seconds for blocking pops, so during the last second of the wait timeout
+    * waiters retry every 50 ms instead. The wait timeout is not exceeded by more than that.
+    *
+    * @param lock
+    *           Name of the lock.
+    * @param holder
+    *           Holder for the lock.
+    * @param timeout
+    *           Timeout (lease) for the lock. Should be >= 100 ms.
+    * @param waitTimeout
+    *           Max time to wait for the lock.
+    * @param unit
+    *           Unit of the timeouts.
+    * @return Fencing token (> 0), if the lock has been acquired, otherwise 0.
+    */
+   long lock(String lock, String holder, int timeout, int waitTimeout, TimeUnit unit);
+
+   /**
+    * Refresh the timeout of multiple locks at once.
+    *
+    * @param locks
+    *           Holders by name of the lock.
+    * @param timeout
+    *           Timeout for the locks. Should be >= 100 ms.
+    * @param unit
+    *           Unit of the timeout.
+    * @return Names of the locks which are not held by the given holders anymore.
+    */
+   Set<String> renewLocks(Map<String, String> locks, int timeout, TimeUnit unit);
+
    /**
     * Release a lock.
     *
     * This operations does nothing, if the lock is not held by the given holder.
-    *
-    * Nevertheless it should not be called unnecessarily,
-    * because it acquires the lock for one second to avoid race conditions.
+    * Otherwise it notifies the longest waiting caller of {@link #lock(String, String, int, int, TimeUnit)}.
     *
     * @param lock
     *           Name of the lock.
@@ -35,4 +88,91 @@ public interface LockDao {
     *           Holder for the lock.
     */
    void releaseLock(String lock, String holder);
+
+   /**
+    * Try to acquire a permit of a counting semaphore.
+    * Each holder gets at most one permit. If the holder already holds a permit, its lease is refreshed.
+    * Permits whose lease expired, e.g. because their holder crashed, are freed automatically.
+    *
+    * @param semaphore
+    *           Name of the semaphore.
+    * @param holder
+    *           Holder for the permit.
+    * @param permits
+    *           Max number of permits. All holders of the semaphore should use the same value.
+    * @param timeout
+    *           Timeout (lease) for the permit. Should be >= 100 ms.
+    * @param unit
+    *           Unit of the timeout.
+    * @return Permit has been acquired.
+    */
+   boolean tryAcquireSemaphore(String semaphore, String holder, int permits, int timeout, TimeUnit unit);
+
+   /**
+    * Release the permit of a semaphore.
+    * This operations does nothing, if the holder does not hold a permit.
+    *
+    * @param semaphore
+    *           Name of the semaphore.
+    * @param holder
+    *           Holder for the permit.
+    */
+   void releaseSemaphore(String semaphore, String holder);
+
+   /**
+    * Try to acquire the read lock of a read-write lock.
+    * Any number of holders may hold the read lock at the same time, as long as no one holds the write lock.
+    * If the holder already holds the read lock, its lease is refreshed.
+    *
+    * @param lock
+    *           Name of the lock.
+    * @param holder
+    *           Holder for the lock.
+    * @param timeout
+    *           Timeout (lease) for the lock. Should be >= 100 ms.
+    * @param unit
+    *           Unit of the timeout.
+    * @return Lock has been acquired.
+    */
+   boolean tryReadLock(String lock, String holder, int timeout, TimeUnit unit);
+
+   /**
+    * Release the read lock of a read-write lock.
+    * This operations does nothing, if the read lock is not held by the given holder.
+    *
+    * @param lock
+    *           Name of the lock.
+    * @param holder
+    *           Holder for the lock.
+    */
+   void releaseReadLock(String lock, String holder);
+
+   /**
+    * Try to acquire the write lock of a read-write lock.
+    * Just one holder may hold the write lock and only if no one else holds the read lock.
+    * If the holder already holds the write lock, its lease is refreshed.
+    * Writers do not block new readers, so under constant read load writers may not get the lock.
+    *
+    * @param lock
+    *           Name of the lock.
+    * @param holder
+    *           Holder for the lock.
+    * @param timeout
+    *           Timeout (lease) for the lock. Should be >= 100 ms.
+    * @param unit
+    *           Unit of the timeout.
+    * @return Lock has been acquired.
+    */
+   boolean tryWriteLock(String lock, String holder, int timeout, TimeUnit unit);
+
+   /**
+    * Release the write lock of a read-write lock.
+    * This operations does nothing, if the write lock is not held by the given holder.
+    *
+    * @param lock
+    *           Name of the lock.
+    * @param holder
+    *           Holder for the lock.
+    */
+   void releaseWriteLock(String lock, String holder);
 }
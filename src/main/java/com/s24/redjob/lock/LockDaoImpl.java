@@ -2,10 +2,17 @@ package com.s24.redjob.lock;
 
 import com.s24.redjob.AbstractDao;
 import com.s24.redjob.ByteArrayRedisSerializer;
+import com.s24.redjob.LuaScript;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.ReturnType;
 import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.data.redis.core.script.DefaultRedisScript;
 import org.springframework.util.Assert;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -17,6 +24,189 @@ public class LockDaoImpl extends AbstractDao implements LockDao {
     */
    public static final String LOCK = "lock";
 
+   /**
+    * Redis key part for fencing tokens of locks.
+    */
+   public static final String TOKEN = "lock-token";
+
+   /**
+    * Redis key part for release notifications of locks.
+    */
+   public static final String RELEASED = "lock-released";
+
+   /**
+    * Redis key part for semaphores.
+    */
+   public static final String SEMAPHORE = "semaphore";
+
+   /**
+    * Redis key part for the readers of read-write locks.
+    */
+   public static final String READ_LOCK = "read-lock";
+
+   /**
+    * Redis key part for the writer of read-write locks.
+    */
+   public static final String WRITE_LOCK = "write-lock";
+
+   /**
+    * Time to live of release notifications in milliseconds.
+    */
+   private static final long RELEASED_TTL_MILLIS = 60_000;
+
+   /**
+    * Delay before retrying to acquire a lock, if less than a second is left to wait for it.
+    */
+   private static final long RETRY_MILLIS = 50;
+
+   /**
+    * Lua script for acquiring or refreshing a lock.
+    */
+   // KEYS[1]: key
+   // KEYS[2]: token key
+   // ARGV[1]: timeout
+   // ARGV[2]: value
+   private static final LuaScript ACQUIRE_LOCK = new LuaScript(
+         "local lock = redis.call('get', KEYS[1]); " +
+         "if (lock == ARGV[2]) then " +
+            // We own the lock -> Refresh expiration.
+            "redis.call('pexpire', KEYS[1], ARGV[1]); " +
+            "return tonumber(redis.call('get', KEYS[2])) or redis.call('incr', KEYS[2]); " +
+         "end; " +
+         "if (lock) then " +
+            // Someone else owns the lock -> Abort and return remaining lease time as negative number.
+            "return -math.max(redis.call('pttl', KEYS[1]), 1); " +
+         "end; " +
+         // No one owns the lock -> Create lock with expiration and next fencing token.
+         "redis.call('psetex', KEYS[1], ARGV[1], ARGV[2]); " +
+         "return redis.call('incr', KEYS[2]);");
+
+   /**
+    * Lua script for refreshing multiple locks.
+    */
+   // KEYS[1..n]: keys
+   // ARGV[1]: timeout
+   // ARGV[2..n+1]: values
+   private static final LuaScript RENEW_LOCKS = new LuaScript(
+         "local result = {}; " +
+         "for i = 1, #KEYS do " +
+            "if (redis.call('get', KEYS[i]) == ARGV[i + 1]) then " +
+               "redis.call('pexpire', KEYS[i], ARGV[1]); " +
+               "result[i] = 1; " +
+            "else " +
+               "result[i] = 0; " +
+            "end; " +
+         "end; " +
+         "return result;");
+
+   /**
+    * Lua script for releasing a lock.
+    */
+   // KEYS[1]: key
+   // KEYS[2]: release notification key
+   // ARGV[1]: value
+   // ARGV[2]: release notification timeout
+   private static final LuaScript RELEASE_LOCK = new LuaScript(
+         "local lock = redis.call('get', KEYS[1]); " +
+         "if (lock == ARGV[1]) then " +
+            // We own the lock -> We may release it by deleting the lock.
+            "redis.call('del', KEYS[1]); " +
+            // Wake up the longest waiting holder, if any.
+            "redis.call('del', KEYS[2]); " +
+            "redis.call('rpush', KEYS[2], '1'); " +
+            "redis.call('pexpire', KEYS[2], ARGV[2]); " +
+         "end;");
+
+   /**
+    * Lua snippet determining the current Redis server time in milliseconds as variable "now".
+    * Needs effects replication, because "time" is not deterministic.
+    */
+   private static final String NOW =
+         "redis.replicate_commands(); " +
+         "local time = redis.call('time'); " +
+         "local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000); ";
+
+   /**
+    * Lua snippet adding or refreshing the holder in a sorted set of holders, scored by their lease expiration.
+    */
+   // KEYS[1]: holders key
+   // ARGV[1]: timeout
+   // ARGV[2]: value
+   private static final String ADD_HOLDER =
+         "redis.call('zadd', KEYS[1], now + tonumber(ARGV[1]), ARGV[2]); " +
+         "if (redis.call('pttl', KEYS[1]) < tonumber(ARGV[1])) then " +
+            "redis.call('pexpire', KEYS[1], ARGV[1]); " +
+         "end; ";
+
+   /**
+    * Lua script for acquiring or refreshing a permit of a semaphore.
+    */
+   // KEYS[1]: key
+   // ARGV[1]: timeout
+   // ARGV[2]: value
+   // ARGV[3]: permits
+   private static final LuaScript ACQUIRE_SEMAPHORE = new LuaScript(
+         NOW +
+         // Remove holders whose lease expired, e.g. because they crashed.
+         "redis.call('zremrangebyscore', KEYS[1], '-inf', now); " +
+         "if (not redis.call('zscore', KEYS[1], ARGV[2]) and redis.call('zcard', KEYS[1]) >= tonumber(ARGV[3])) then " +
+            // No permits left -> Abort.
+            "return 0; " +
+         "end; " +
+         ADD_HOLDER +
+         "return 1;");
+
+   /**
+    * Lua script for acquiring or refreshing a read lock.
+    */
+   // KEYS[1]: readers key
+   // KEYS[2]: writer key
+   // ARGV[1]: timeout
+   // ARGV[2]: value
+   private static final LuaScript ACQUIRE_READ_LOCK = new LuaScript(
+         "local writer = redis.call('get', KEYS[2]); " +
+         "if (writer and writer ~= ARGV[2]) then " +
+            // Someone else writes -> Abort.
+            "return 0; " +
+         "end; " +
+         NOW +
+         "redis.call('zremrangebyscore', KEYS[1], '-inf', now); " +
+         ADD_HOLDER +
+         "return 1;");
+
+   /**
+    * Lua script for acquiring or refreshing a write lock.
+    */
+   // KEYS[1]: readers key
+   // KEYS[2]: writer key
+   // ARGV[1]: timeout
+   // ARGV[2]: value
+   private static final LuaScript ACQUIRE_WRITE_LOCK = new LuaScript(
+         "local writer = redis.call('get', KEYS[2]); " +
+         "if (writer and writer ~= ARGV[2]) then " +
+            // Someone else writes -> Abort.
+            "return 0; " +
+         "end; " +
+         NOW +
+         "redis.call('zremrangebyscore', KEYS[1], '-inf', now); " +
+         "local readers = redis.call('zcard', KEYS[1]); " +
+         "if (readers > 1 or (readers == 1 and not redis.call('zscore', KEYS[1], ARGV[2]))) then " +
+            // Someone else reads -> Abort.
+            "return 0; " +
+         "end; " +
+         "redis.call('psetex', KEYS[2], ARGV[1], ARGV[2]); " +
+         "return 1;");
+
+   /**
+    * Lua script for releasing a write lock.
+    */
+   // KEYS[1]: writer key
+   // ARGV[1]: value
+   private static final LuaScript RELEASE_WRITE_LOCK = new LuaScript(
+         "if (redis.call('get', KEYS[1]) == ARGV[1]) then " +
+            "redis.call('del', KEYS[1]); " +
+         "end;");
+
    /**
     * Redis access.
     */
@@ -35,50 +225,167 @@ public class LockDaoImpl extends AbstractDao implements LockDao {
 
    @Override
    public boolean tryLock(final String lock, final String holder, final int timeout, final TimeUnit unit) {
+      return acquireLock(lock, holder, timeout, unit) > 0;
+   }
+
+   @Override
+   public long acquireLock(final String lock, final String holder, final int timeout, final TimeUnit unit) {
       Assert.notNull(lock, "Pre-condition violated: lock != null.");
       Assert.notNull(holder, "Pre-condition violated: holder != null.");
+
+      return Math.max(acquire(lock, holder, timeoutMillis(timeout, unit)), 0);
+   }
+
+   @Override
+   public long lock(final String lock, final String holder, final int timeout, final int waitTimeout, final TimeUnit unit) {
+      Assert.notNull(lock, "Pre-condition violated: lock != null.");
+      Assert.notNull(holder, "Pre-condition violated: holder != null.");
+      Assert.isTrue(waitTimeout >= 0, "Pre-condition violated: waitTimeout >= 0.");
+      long timeoutMillis = timeoutMillis(timeout, unit);
+      long deadline = System.currentTimeMillis() + unit.toMillis(waitTimeout);
+
+      for (;;) {
+         long result = acquire(lock, holder, timeoutMillis);
+         if (result > 0) {
+            return result;
+         }
+
+         long remainingMillis = deadline - System.currentTimeMillis();
+         if (remainingMillis <= 0) {
+            return 0;
+         }
+
+         // Wait for the release of the lock, but at max until the current lease expires or the deadline is reached.
+         long waitMillis = Math.max(1, Math.min(-result, remainingMillis));
+         if (waitMillis < 1000) {
+            // Redis supports just whole seconds as timeout for blocking pops, so retry shortly instead.
+            try {
+               Thread.sleep(Math.min(waitMillis, RETRY_MILLIS));
+            } catch (InterruptedException e) {
+               Thread.currentThread().interrupt();
+               return 0;
+            }
+            continue;
+         }
+         int waitSeconds = (int) (waitMillis / 1000);
+         redis.execute((RedisConnection connection) -> connection.bLPop(waitSeconds, key(RELEASED, lock)));
+      }
+   }
+
+   /**
+    * Try to acquire a lock.
+    *
+    * @return Fencing token (> 0), if the lock has been acquired,
+    *         otherwise the negated remaining lease time of the current holder in milliseconds.
+    */
+   private long acquire(String lock, String holder, long timeoutMillis) {
+      Long result = redis.execute((RedisConnection connection) -> ACQUIRE_LOCK.eval(connection, ReturnType.INTEGER, 2,
+            key(LOCK, lock), key(TOKEN, lock), value(timeoutMillis), value(holder)));
+      return result != null ? result : 0;
+   }
+
+   @Override
+   public Set<String> renewLocks(final Map<String, String> locks, final int timeout, final TimeUnit unit) {
+      Assert.notNull(locks, "Pre-condition violated: locks != null.");
+      long timeoutMillis = timeoutMillis(timeout, unit);
+      if (locks.isEmpty()) {
+         return Set.of();
+      }
+
+      List<String> names = new ArrayList<>(locks.keySet());
+      byte[][] keysAndArgs = new byte[2 * names.size() + 1][];
+      keysAndArgs[names.size()] = value(timeoutMillis);
+      for (int i = 0; i < names.size(); i++) {
+         keysAndArgs[i] = key(LOCK, names.get(i));
+         keysAndArgs[names.size() + 1 + i] = value(locks.get(names.get(i)));
+      }
+
+      List<Long> renewed = redis.execute((RedisConnection connection) -> RENEW_LOCKS.eval(connection, ReturnType.MULTI,
+            names.size(), keysAndArgs));
+
+      Set<String> lost = new HashSet<>();
+      for (int i = 0; i < names.size(); i++) {
+         if (renewed.get(i) != 1) {
+            lost.add(names.get(i));
+         }
+      }
+      return lost;
+   }
+
+   /**
+    * Convert and check timeout.
+    */
+   private long timeoutMillis(int timeout, TimeUnit unit) {
       Assert.isTrue(timeout > 0, "Pre-condition violated: timeout > 0.");
       Assert.notNull(unit, "Pre-condition violated: unit != null.");
       long timeoutMillis = unit.toMillis(timeout);
       Assert.isTrue(timeoutMillis >= 100, "Pre-condition violated: timeoutMillis >= 100.");
+      return timeoutMillis;
+   }
 
-      // KEYS[1]: key
-      // ARGV[1]: timeout
-      // ARGV[2]: value
-      DefaultRedisScript<Boolean> s = new DefaultRedisScript<>(
-            "local lock = redis.call('get', KEYS[1]); " +
-            "if (lock == ARGV[2]) then " +
-               // We own the lock -> Refresh expiration.
-               "redis.call('pexpire', KEYS[1], ARGV[1]); " +
-               "return true; " +
-            "end; " +
-            "if (lock) then " +
-               // Someone else owns the lock -> Abort.
-               "return false; " +
-            "end; " +
-            // No one owns the lock -> Create lock with expiration.
-            "redis.call('psetex', KEYS[1], ARGV[1], ARGV[2]); " +
-            "return true;",
-            Boolean.class);
+   @Override
+   public void releaseLock(final String lock, final String holder) {
+      Assert.notNull(lock, "Pre-condition violated: lock != null.");
+      Assert.notNull(holder, "Pre-condition violated: holder != null.");
 
-      return redis.execute(s, keys(key(LOCK, lock)), value(timeoutMillis), value(holder));
+      redis.execute((RedisConnection connection) -> RELEASE_LOCK.eval(connection, ReturnType.STATUS, 2,
+            key(LOCK, lock), key(RELEASED, lock), value(holder), value(RELEASED_TTL_MILLIS)));
    }
 
    @Override
-   public void releaseLock(final String lock, final String holder) {
+   public boolean tryAcquireSemaphore(final String semaphore, final String holder, final int permits,
+         final int timeout, final TimeUnit unit) {
+      Assert.notNull(semaphore, "Pre-condition violated: semaphore != null.");
+      Assert.notNull(holder, "Pre-condition violated: holder != null.");
+      Assert.isTrue(permits > 0, "Pre-condition violated: permits > 0.");
+      long timeoutMillis = timeoutMillis(timeout, unit);
+
+      return redis.execute((RedisConnection connection) -> ACQUIRE_SEMAPHORE.eval(connection, ReturnType.BOOLEAN, 1,
+            key(SEMAPHORE, semaphore), value(timeoutMillis), value(holder), value(permits)));
+   }
+
+   @Override
+   public void releaseSemaphore(final String semaphore, final String holder) {
+      Assert.notNull(semaphore, "Pre-condition violated: semaphore != null.");
+      Assert.notNull(holder, "Pre-condition violated: holder != null.");
+
+      redis.execute((RedisConnection connection) -> connection.zRem(key(SEMAPHORE, semaphore), value(holder)));
+   }
+
+   @Override
+   public boolean tryReadLock(final String lock, final String holder, final int timeout, final TimeUnit unit) {
       Assert.notNull(lock, "Pre-condition violated: lock != null.");
       Assert.notNull(holder, "Pre-condition violated: holder != null.");
+      long timeoutMillis = timeoutMillis(timeout, unit);
 
-      // KEYS[1]: key
-      // ARGV[1]: value
-      DefaultRedisScript<Void> s = new DefaultRedisScript<>(
-            "local lock = redis.call('get', KEYS[1]); " +
-            "if (lock == ARGV[1]) then " +
-               // We own the lock -> We may release it by deleting the lock.
-               "redis.call('del', KEYS[1]); " +
-            "end;");
+      return redis.execute((RedisConnection connection) -> ACQUIRE_READ_LOCK.eval(connection, ReturnType.BOOLEAN, 2,
+            key(READ_LOCK, lock), key(WRITE_LOCK, lock), value(timeoutMillis), value(holder)));
+   }
 
-      redis.execute(s, keys(key(LOCK, lock)), value(holder));
+   @Override
+   public void releaseReadLock(final String lock, final String holder) {
+      Assert.notNull(lock, "Pre-condition violated: lock != null.");
+      Assert.notNull(holder, "Pre-condition violated: holder != null.");
+
+      redis.execute((RedisConnection connection) -> connection.zRem(key(READ_LOCK, lock), value(holder)));
    }
 
+   @Override
+   public boolean tryWriteLock(final String lock, final String holder, final int timeout, final TimeUnit unit) {
+      Assert.notNull(lock, "Pre-condition violated: lock != null.");
+      Assert.notNull(holder, "Pre-condition violated: holder != null.");
+      long timeoutMillis = timeoutMillis(timeout, unit);
+
+      return redis.execute((RedisConnection connection) -> ACQUIRE_WRITE_LOCK.eval(connection, ReturnType.BOOLEAN, 2,
+            key(READ_LOCK, lock), key(WRITE_LOCK, lock), value(timeoutMillis), value(holder)));
+   }
+
+   @Override
+   public void releaseWriteLock(final String lock, final String holder) {
+      Assert.notNull(lock, "Pre-condition violated: lock != null.");
+      Assert.notNull(holder, "Pre-condition violated: holder != null.");
+
+      redis.execute((RedisConnection connection) -> RELEASE_WRITE_LOCK.eval(connection, ReturnType.STATUS, 1,
+            key(WRITE_LOCK, lock), value(holder)));
+   }
 }
@@ -0,0 +1,132 @@
+package com.s24.redjob.lock;
+
+import org.springframework.util.Assert;
+
+/**
+ * Handle for a lock acquired via {@link LockWatchdog}.
+ * The lease of the lock is renewed in the background until the handle gets closed.
+ */
+public class LockHandle implements AutoCloseable {
+   /**
+    * Watchdog renewing the lock.
+    */
+   private final LockWatchdog watchdog;
+
+   /**
+    * Name of the lock.
+    */
+   private final String lock;
+
+   /**
+    * Holder of the lock.
+    */
+   private final String holder;
+
+   /**
+    * Fencing token.
+    */
+   private final long token;
+
+   /**
+    * Is the lock still held?.
+    */
+   private volatile boolean held = true;
+
+   /**
+    * Timestamp when the lease of the lock expires, if it does not get renewed.
+    */
+   private volatile long expires;
+
+   /**
+    * Constructor.
+    *
+    * @param watchdog
+    *           Watchdog renewing the lock.
+    * @param lock
+    *           Name of the lock.
+    * @param holder
+    *           Holder of the lock.
+    * @param token
+    *           Fencing token.
+    * @param expires
+    *           Timestamp when the lease of the lock expires, if it does not get renewed.
+    */
+   LockHandle(LockWatchdog watchdog, String lock, String holder, long token, long expires) {
+      Assert.notNull(watchdog, "Precondition violated: watchdog != null.");
+      Assert.notNull(lock, "Precondition violated: lock != null.");
+      Assert.notNull(holder, "Precondition violated: holder != null.");
+      Assert.isTrue(token > 0, "Precondition violated: token > 0.");
+
+      this.watchdog = watchdog;
+      this.lock = lock;
+      this.holder = holder;
+      this.token = token;
+      this.expires = expires;
+   }
+
+   /**
+    * Name of the lock.
+    */
+   public String getLock() {
+      return lock;
+   }
+
+   /**
+    * Holder of the lock.
+    */
+   public String getHolder() {
+      return holder;
+   }
+
+   /**
+    * Fencing token. Each time the lock gets acquired, its fencing token increases.
+    * Pass it along with writes protected by the lock, so stale holders can be rejected.
+    */
+   public long getToken() {
+      return token;
+   }
+
+   /**
+    * Is the lock still held?. False, after the handle has been closed or the lease could not be renewed in time.
+    */
+   public boolean isHeld() {
+      return held && System.currentTimeMillis() < expires;
+   }
+
+   /**
+    * Timestamp when the lease of the lock expires, if it does not get renewed.
+    */
+   long getExpires() {
+      return expires;
+   }
+
+   /**
+    * The lease of the lock has been renewed.
+    *
+    * @param expires
+    *           Timestamp when the renewed lease expires.
+    */
+   void renewed(long expires) {
+      this.expires = expires;
+   }
+
+   /**
+    * Mark lock as not held anymore.
+    */
+   void lost() {
+      held = false;
+   }
+
+   /**
+    * Release the lock.
+    */
+   @Override
+   public void close() {
+      watchdog.release(this);
+   }
+
+   @Override
+   public String toString() {
+      return lock + " held by " + holder + " (token " + token + ")";
+   }
+}
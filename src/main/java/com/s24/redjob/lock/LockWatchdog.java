@@ -0,0 +1,314 @@
+package com.s24.redjob.lock;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
+
+/**
+ * Acquires locks and renews their leases in the background until they get released.
+ * The leases of all held locks are renewed together with one Redis call.
+ * If the leases can not be renewed in time, e.g. because Redis is not reachable, the locks are considered lost.
+ * A lock can be held just once per watchdog, even if the holders are the same.
+ */
+public class LockWatchdog {
+   /**
+    * Logger.
+    */
+   private static final Logger log = LoggerFactory.getLogger(LockWatchdog.class);
+
+   /**
+    * Lock dao.
+    */
+   private LockDao lockDao;
+
+   /**
+    * Lease time of the locks in milliseconds. Defaults to 30 seconds.
+    * The leases get renewed after a third of the lease time.
+    */
+   private int leaseTimeMillis = 30_000;
+
+   /**
+    * Held locks by name.
+    */
+   private final Map<String, LockHandle> handles = new ConcurrentHashMap<>();
+
+   /**
+    * Executor for the renewal. Started with the first acquired lock.
+    */
+   private ScheduledExecutorService executor;
+
+   /**
+    * Init.
+    */
+   @PostConstruct
+   public void afterPropertiesSet() {
+      Assert.notNull(lockDao, "Precondition violated: lockDao != null.");
+      Assert.isTrue(leaseTimeMillis >= 300, "Precondition violated: leaseTimeMillis >= 300.");
+   }
+
+   /**
+    * Start the renewal, if not started yet.
+    */
+   private synchronized void startRenewal() {
+      if (executor != null) {
+         return;
+      }
+
+      executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+         Thread thread = new Thread(runnable, "Lock watchdog");
+         thread.setDaemon(true);
+         return thread;
+      });
+      long interval = leaseTimeMillis / 3;
+      executor.scheduleWithFixedDelay(this::renew, interval, interval, TimeUnit.MILLISECONDS);
+   }
+
+   /**
+    * Stop the renewal and release all held locks.
+    */
+   @PreDestroy
+   public void destroy() {
+      synchronized (this) {
+         if (executor != null) {
+            executor.shutdownNow();
+         }
+      }
+      handles.values().forEach(this::release);
+   }
+
+   /**
+    * Try to acquire a lock. The lease of the lock gets renewed until the returned handle is closed.
+    *
+    * @param lock
+    *           Name of the lock.
+    * @param holder
+    *           Holder for the lock.
+    * @return Handle for the lock, or null, if the lock is held by someone else or already via this watchdog.
+    */
+   public LockHandle tryLock(String lock, String holder) {
+      Assert.notNull(lock, "Precondition violated: lock != null.");
+      Assert.notNull(holder, "Precondition violated: holder != null.");
+
+      if (handles.containsKey(lock)) {
+         return null;
+      }
+
+      long expires = System.currentTimeMillis() + leaseTimeMillis;
+      return handle(lock, holder, lockDao.acquireLock(lock, holder, leaseTimeMillis, TimeUnit.MILLISECONDS), expires);
+   }
+
+   /**
+    * Acquire a lock, waiting for its release, if it is held by someone else or already via this watchdog.
+    * The lease of the lock gets renewed until the returned handle is closed.
+    *
+    * @param lock
+    *           Name of the lock.
+    * @param holder
+    *           Holder for the lock.
+    * @param waitTimeout
+    *           Max time to wait for the lock.
+    * @param unit
+    *           Unit of the wait timeout.
+    * @return Handle for the lock, or null, if the lock could not be acquired within the wait timeout.
+    * @see LockDao#lock(String, String, int, int, TimeUnit)
+    */
+   public LockHandle lock(String lock, String holder, int waitTimeout, TimeUnit unit) {
+      Assert.notNull(lock, "Precondition violated: lock != null.");
+      Assert.notNull(holder, "Precondition violated: holder != null.");
+      Assert.notNull(unit, "Precondition violated: unit != null.");
+
+      long deadline = System.currentTimeMillis() + unit.toMillis(waitTimeout);
+      for (;;) {
+         if (!awaitLocalRelease(lock, deadline)) {
+            return null;
+         }
+
+         long now = System.currentTimeMillis();
+         int remaining = Math.toIntExact(Math.max(deadline - now, 0));
+         LockHandle handle = handle(lock, holder,
+               lockDao.lock(lock, holder, leaseTimeMillis, remaining, TimeUnit.MILLISECONDS), now + leaseTimeMillis);
+         if (handle != null) {
+            return handle;
+         }
+         if (System.currentTimeMillis() >= deadline) {
+            return null;
+         }
+      }
+   }
+
+   /**
+    * Wait until the lock is not held via this watchdog anymore.
+    *
+    * @param lock
+    *           Name of the lock.
+    * @param deadline
+    *           Timestamp until when to wait at max.
+    * @return Whether the lock is not held via this watchdog anymore.
+    */
+   private synchronized boolean awaitLocalRelease(String lock, long deadline) {
+      try {
+         while (handles.containsKey(lock)) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+               return false;
+            }
+            wait(remaining);
+         }
+         return true;
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         return false;
+      }
+   }
+
+   /**
+    * Create handle for an acquired lock.
+    *
+    * @param lock
+    *           Name of the lock.
+    * @param holder
+    *           Holder for the lock.
+    * @param token
+    *           Fencing token of the lock, or 0, if the lock has not been acquired.
+    * @param expires
+    *           Timestamp when the lease of the lock expires, if it does not get renewed.
+    * @return Handle for the lock, or null, if the lock has not been acquired.
+    */
+   private LockHandle handle(String lock, String holder, long token, long expires) {
+      if (token <= 0) {
+         return null;
+      }
+
+      LockHandle handle = new LockHandle(this, lock, holder, token, expires);
+      // If another thread acquired the lock for the same holder concurrently, that thread owns it.
+      // Our acquisition just refreshed its lease.
+      if (handles.putIfAbsent(lock, handle) != null) {
+         return null;
+      }
+      startRenewal();
+      return handle;
+   }
+
+   /**
+    * Release a lock.
+    *
+    * @param handle
+    *           Handle of the lock.
+    */
+   void release(LockHandle handle) {
+      if (!remove(handle)) {
+         return;
+      }
+
+      boolean held = handle.isHeld();
+      handle.lost();
+      if (held) {
+         lockDao.releaseLock(handle.getLock(), handle.getHolder());
+      }
+   }
+
+   /**
+    * Remove handle and wake up threads waiting for the lock.
+    *
+    * @param handle
+    *           Handle of the lock.
+    * @return Whether the handle has been removed.
+    */
+   private synchronized boolean remove(LockHandle handle) {
+      boolean removed = handles.remove(handle.getLock(), handle);
+      if (removed) {
+         notifyAll();
+      }
+      return removed;
+   }
+
+   /**
+    * Renew the leases of all held locks.
+    */
+   void renew() {
+      List<LockHandle> renew = new ArrayList<>(handles.values());
+      if (renew.isEmpty()) {
+         return;
+      }
+
+      Map<String, String> holders = new HashMap<>();
+      renew.forEach(handle -> holders.put(handle.getLock(), handle.getHolder()));
+      long expires = System.currentTimeMillis() + leaseTimeMillis;
+      try {
+         Set<String> lost = lockDao.renewLocks(holders, leaseTimeMillis, TimeUnit.MILLISECONDS);
+         for (LockHandle handle : renew) {
+            if (lost.contains(handle.getLock())) {
+               lost(handle);
+            } else {
+               handle.renewed(expires);
+            }
+         }
+      } catch (Exception e) {
+         // Retry with the next renewal, but give up on locks whose lease has already expired.
+         log.error("Failed to renew locks.", e);
+         long now = System.currentTimeMillis();
+         renew.stream()
+               .filter(handle -> handle.getExpires() <= now)
+               .forEach(this::lost);
+      }
+   }
+
+   /**
+    * Mark lock as lost.
+    *
+    * @param handle
+    *           Handle of the lock.
+    */
+   private void lost(LockHandle handle) {
+      if (remove(handle)) {
+         log.warn("Lost lock {}.", handle);
+         handle.lost();
+      }
+   }
+
+   //
+   // Injections.
+   //
+
+   /**
+    * Lock dao.
+    */
+   public LockDao getLockDao() {
+      return lockDao;
+   }
+
+   /**
+    * Lock dao.
+    */
+   public void setLockDao(LockDao lockDao) {
+      this.lockDao = lockDao;
+   }
+
+   /**
+    * Lease time of the locks in milliseconds. Defaults to 30 seconds.
+    * The leases get renewed after a third of the lease time.
+    */
+   public int getLeaseTimeMillis() {
+      return leaseTimeMillis;
+   }
+
+   /**
+    * Lease time of the locks in milliseconds. Defaults to 30 seconds.
+    * The leases get renewed after a third of the lease time.
+    */
+   public void setLeaseTimeMillis(int leaseTimeMillis) {
+      this.leaseTimeMillis = leaseTimeMillis;
+   }
+}
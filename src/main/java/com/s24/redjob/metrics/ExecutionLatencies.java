@@ -0,0 +1,245 @@
+package com.s24.redjob.metrics;
+
+import com.s24.redjob.worker.Execution;
+import com.s24.redjob.worker.events.JobFailure;
+import com.s24.redjob.worker.events.JobStart;
+import com.s24.redjob.worker.events.JobSuccess;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.util.Assert;
+
+/**
+ * Event listener recording the latencies of job executions per queue and job type:
+ * Wait time between enqueueing and start, run time between start and end
+ * and total time between enqueueing and end.
+ *
+ * The latencies are reported regularly to a {@link LatencyReporter} and reset afterwards.
+ * Recording latencies does not allocate any objects, once a queue and job type has been seen.
+ */
+@Lazy(false)
+public class ExecutionLatencies {
+   /**
+    * Logger.
+    */
+   private static final Logger log = LoggerFactory.getLogger(ExecutionLatencies.class);
+
+   /**
+    * Histograms by queue and job type.
+    */
+   private final ConcurrentMap<String, ConcurrentMap<Class<?>, Latencies>> latencies = new ConcurrentHashMap<>();
+
+   /**
+    * Reporter. Defaults to {@link LoggingLatencyReporter}.
+    */
+   private LatencyReporter reporter = new LoggingLatencyReporter();
+
+   /**
+    * Report interval in milliseconds. Defaults to 60 seconds.
+    */
+   private long reportIntervalMillis = 60_000;
+
+   /**
+    * Scheduler for reports.
+    */
+   private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "Job latency reporter");
+      thread.setDaemon(true);
+      return thread;
+   });
+
+   @PostConstruct
+   public void afterPropertiesSet() {
+      Assert.notNull(reporter, "Precondition violated: reporter != null.");
+      Assert.isTrue(reportIntervalMillis > 0, "Precondition violated: reportIntervalMillis > 0.");
+
+      scheduler.scheduleWithFixedDelay(this::report, reportIntervalMillis, reportIntervalMillis, TimeUnit.MILLISECONDS);
+   }
+
+   @PreDestroy
+   public void destroy() {
+      scheduler.shutdownNow();
+   }
+
+   /**
+    * On job start record the wait time.
+    *
+    * @param event
+    *           Job start event.
+    */
+   @EventListener
+   public void onJobStart(JobStart event) {
+      Execution execution = event.getExecution();
+      latencies(event.getQueue(), execution).wait.record(millis(execution.getCreated(), execution.getStart()));
+   }
+
+   /**
+    * On job success record the run and the total time.
+    *
+    * @param event
+    *           Job success event.
+    */
+   @EventListener
+   public void onJobSuccess(JobSuccess event) {
+      onJobEnd(event.getQueue(), event.getExecution());
+   }
+
+   /**
+    * On job failure record the run and the total time.
+    *
+    * @param event
+    *           Job failure event.
+    */
+   @EventListener
+   public void onJobFailure(JobFailure event) {
+      onJobEnd(event.getQueue(), event.getExecution());
+   }
+
+   /**
+    * Record the run and the total time.
+    *
+    * @param queue
+    *           Queue name.
+    * @param execution
+    *           Execution.
+    */
+   private void onJobEnd(String queue, Execution execution) {
+      Latencies latencies = latencies(queue, execution);
+      latencies.run.record(millis(execution.getStart(), execution.getEnd()));
+      latencies.total.record(millis(execution.getCreated(), execution.getEnd()));
+   }
+
+   /**
+    * Histograms for the queue and the job type of the given execution.
+    *
+    * @param queue
+    *           Queue name.
+    * @param execution
+    *           Execution.
+    */
+   private Latencies latencies(String queue, Execution execution) {
+      Class<?> jobType = execution.getJob().getClass();
+      // Lookup first, because computeIfAbsent() with capturing lambdas allocates.
+      ConcurrentMap<Class<?>, Latencies> queueLatencies = latencies.get(queue);
+      if (queueLatencies == null) {
+         queueLatencies = latencies.computeIfAbsent(queue, q -> new ConcurrentHashMap<>());
+      }
+      Latencies result = queueLatencies.get(jobType);
+      if (result == null) {
+         result = queueLatencies.computeIfAbsent(jobType, type -> new Latencies());
+      }
+      return result;
+   }
+
+   /**
+    * Milliseconds between two instants. 0, if one of them is missing.
+    */
+   private static long millis(Instant from, Instant to) {
+      return from != null && to != null ? to.toEpochMilli() - from.toEpochMilli() : 0;
+   }
+
+   /**
+    * Snapshot of the latencies recorded since the last reset.
+    *
+    * @param reset
+    *           Reset latencies?.
+    * @return Latencies per queue and job type. Queues and job types without job executions are skipped.
+    */
+   public List<LatencySnapshot> snapshot(boolean reset) {
+      List<LatencySnapshot> result = new ArrayList<>();
+      latencies.forEach((queue, queueLatencies) -> queueLatencies.forEach((jobType, latencies) -> {
+         LatencySnapshot snapshot = reset ?
+               new LatencySnapshot(queue, jobType,
+                     latencies.wait.snapshotAndReset(),
+                     latencies.run.snapshotAndReset(),
+                     latencies.total.snapshotAndReset()) :
+               new LatencySnapshot(queue, jobType,
+                     latencies.wait.snapshot(),
+                     latencies.run.snapshot(),
+                     latencies.total.snapshot());
+         if (snapshot.getWait().getCount() > 0 || snapshot.getTotal().getCount() > 0) {
+            result.add(snapshot);
+         }
+      }));
+      return result;
+   }
+
+   /**
+    * Report the latencies recorded since the last report.
+    */
+   private void report() {
+      try {
+         List<LatencySnapshot> snapshots = snapshot(true);
+         if (!snapshots.isEmpty()) {
+            reporter.report(snapshots);
+         }
+      } catch (Exception e) {
+         log.error("Failed to report job latencies.", e);
+      }
+   }
+
+   /**
+    * Histograms for one queue and job type.
+    */
+   private static class Latencies {
+      /**
+       * Time between enqueueing and start.
+       */
+      private final Histogram wait = new Histogram();
+
+      /**
+       * Time between start and end.
+       */
+      private final Histogram run = new Histogram();
+
+      /**
+       * Time between enqueueing and end.
+       */
+      private final Histogram total = new Histogram();
+   }
+
+   //
+   // Injections.
+   //
+
+   /**
+    * Reporter. Defaults to {@link LoggingLatencyReporter}.
+    */
+   public LatencyReporter getReporter() {
+      return reporter;
+   }
+
+   /**
+    * Reporter. Defaults to {@link LoggingLatencyReporter}.
+    */
+   public void setReporter(LatencyReporter reporter) {
+      this.reporter = reporter;
+   }
+
+   /**
+    * Report interval in milliseconds. Defaults to 60 seconds.
+    */
+   public long getReportIntervalMillis() {
+      return reportIntervalMillis;
+   }
+
+   /**
+    * Report interval in milliseconds. Defaults to 60 seconds.
+    */
+   public void setReportIntervalMillis(long reportIntervalMillis) {
+      this.reportIntervalMillis = reportIntervalMillis;
+   }
+}
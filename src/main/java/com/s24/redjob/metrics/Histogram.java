@@ -0,0 +1,119 @@
+package com.s24.redjob.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock free histogram for non-negative values, e.g. durations in milliseconds.
+ * Values are counted in log-linear buckets: Each power of 2 is split into {@value #SUB_BUCKETS} buckets,
+ * so the relative error of the recorded values is below 7 %.
+ * Recording a value does not allocate any objects.
+ */
+public class Histogram {
+   /**
+    * Bits for the sub buckets per power of 2.
+    */
+   private static final int SUB_BUCKET_BITS = 4;
+
+   /**
+    * Number of sub buckets per power of 2.
+    */
+   private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+   /**
+    * Number of buckets. Covers all non-negative long values.
+    */
+   private static final int BUCKETS = SUB_BUCKETS + (63 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+   /**
+    * Counts per bucket.
+    */
+   private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+   /**
+    * Number of recorded values.
+    */
+   private final LongAdder count = new LongAdder();
+
+   /**
+    * Sum of recorded values.
+    */
+   private final LongAdder sum = new LongAdder();
+
+   /**
+    * Max recorded value.
+    */
+   private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+   /**
+    * Record a value. Negative values are recorded as 0.
+    *
+    * @param value
+    *           Value.
+    */
+   public void record(long value) {
+      long v = Math.max(0, value);
+      counts.incrementAndGet(bucket(v));
+      count.increment();
+      sum.add(v);
+      max.accumulate(v);
+   }
+
+   /**
+    * Snapshot of all values recorded so far.
+    */
+   public HistogramSnapshot snapshot() {
+      long[] snapshot = new long[BUCKETS];
+      for (int i = 0; i < BUCKETS; i++) {
+         snapshot[i] = counts.get(i);
+      }
+      return new HistogramSnapshot(snapshot, count.sum(), sum.sum(), max.get());
+   }
+
+   /**
+    * Snapshot of all values recorded so far and reset of the histogram.
+    * Values recorded concurrently are either part of this snapshot or of the next one.
+    */
+   public HistogramSnapshot snapshotAndReset() {
+      long[] snapshot = new long[BUCKETS];
+      long total = 0;
+      for (int i = 0; i < BUCKETS; i++) {
+         snapshot[i] = counts.getAndSet(i, 0);
+         total += snapshot[i];
+      }
+      count.add(-total);
+      // Sum and max may be slightly off for concurrently recorded values.
+      return new HistogramSnapshot(snapshot, total, sum.sumThenReset(), max.getThenReset());
+   }
+
+   /**
+    * Index of the bucket for the given value.
+    *
+    * @param value
+    *           Non-negative value.
+    */
+   static int bucket(long value) {
+      if (value < SUB_BUCKETS) {
+         return (int) value;
+      }
+      int exponent = 63 - Long.numberOfLeadingZeros(value);
+      int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+      return SUB_BUCKETS + (exponent - SUB_BUCKET_BITS) * SUB_BUCKETS + subBucket;
+   }
+
+   /**
+    * Highest value of the bucket with the given index.
+    *
+    * @param bucket
+    *           Index of the bucket.
+    */
+   static long highestValue(int bucket) {
+      if (bucket < SUB_BUCKETS) {
+         return bucket;
+      }
+      int shift = (bucket - SUB_BUCKETS) / SUB_BUCKETS;
+      long lowest = (long) (SUB_BUCKETS + (bucket - SUB_BUCKETS) % SUB_BUCKETS) << shift;
+      return lowest + (1L << shift) - 1;
+   }
+}
@@ -0,0 +1,125 @@
+package com.s24.redjob.metrics;
+
+import org.springframework.util.Assert;
+
+/**
+ * Immutable snapshot of a {@link Histogram}.
+ */
+public class HistogramSnapshot {
+   /**
+    * Counts per bucket.
+    */
+   private final long[] counts;
+
+   /**
+    * Number of recorded values.
+    */
+   private final long count;
+
+   /**
+    * Sum of recorded values.
+    */
+   private final long sum;
+
+   /**
+    * Max recorded value.
+    */
+   private final long max;
+
+   /**
+    * Constructor.
+    *
+    * @param counts
+    *           Counts per bucket.
+    * @param count
+    *           Number of recorded values.
+    * @param sum
+    *           Sum of recorded values.
+    * @param max
+    *           Max recorded value.
+    */
+   HistogramSnapshot(long[] counts, long count, long sum, long max) {
+      this.counts = counts;
+      this.count = count;
+      this.sum = sum;
+      this.max = max;
+   }
+
+   /**
+    * Number of recorded values.
+    */
+   public long getCount() {
+      return count;
+   }
+
+   /**
+    * Mean of recorded values. 0, if no values have been recorded.
+    */
+   public double getMean() {
+      return count > 0 ? (double) sum / count : 0;
+   }
+
+   /**
+    * Max recorded value.
+    */
+   public long getMax() {
+      return max;
+   }
+
+   /**
+    * Value below or equal to which the given percentage of the recorded values are.
+    * The result is the upper bound of the bucket containing the percentile, but never more than the max value.
+    *
+    * @param percentile
+    *           Percentile, between 0 and 100.
+    * @return Value at the given percentile. 0, if no values have been recorded.
+    */
+   public long getValueAtPercentile(double percentile) {
+      Assert.isTrue(percentile >= 0 && percentile <= 100, "Precondition violated: 0 <= percentile <= 100.");
+
+      long total = 0;
+      for (long c : counts) {
+         total += c;
+      }
+      if (total == 0) {
+         return 0;
+      }
+
+      long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+      long seen = 0;
+      for (int i = 0; i < counts.length; i++) {
+         seen += counts[i];
+         if (seen >= rank) {
+            return Math.min(Histogram.highestValue(i), max);
+         }
+      }
+      return max;
+   }
+
+   /**
+    * Median.
+    */
+   public long getP50() {
+      return getValueAtPercentile(50);
+   }
+
+   /**
+    * 90th percentile.
+    */
+   public long getP90() {
+      return getValueAtPercentile(90);
+   }
+
+   /**
+    * 99th percentile.
+    */
+   public long getP99() {
+      return getValueAtPercentile(99);
+   }
+
+   @Override
+   public String toString() {
+      return "count=" + count + ", mean=" + Math.round(getMean()) + ", p50=" + getP50() + ", p90=" + getP90() +
+            ", p99=" + getP99() + ", max=" + max;
+   }
+}
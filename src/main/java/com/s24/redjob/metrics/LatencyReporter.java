@@ -0,0 +1,17 @@
+package com.s24.redjob.metrics;
+
+import java.util.List;
+
+/**
+ * Reporter for the latencies of job executions, e.g. to export them to a monitoring system.
+ */
+@FunctionalInterface
+public interface LatencyReporter {
+   /**
+    * Report latencies. Called regularly with the latencies recorded since the last call.
+    *
+    * @param latencies
+    *           Latencies per queue and job type. Queues and job types without job executions are skipped.
+    */
+   void report(List<LatencySnapshot> latencies);
+}
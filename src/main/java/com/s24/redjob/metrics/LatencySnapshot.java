@@ -0,0 +1,104 @@
+package com.s24.redjob.metrics;
+
+import org.springframework.util.Assert;
+
+/**
+ * Snapshot of the latencies of the job executions of one job type in one queue.
+ * All latencies are in milliseconds.
+ */
+public class LatencySnapshot {
+   /**
+    * Queue name.
+    */
+   private final String queue;
+
+   /**
+    * Job type.
+    */
+   private final Class<?> jobType;
+
+   /**
+    * Time between enqueueing and start of the job executions.
+    */
+   private final HistogramSnapshot wait;
+
+   /**
+    * Time between start and end of the job executions.
+    */
+   private final HistogramSnapshot run;
+
+   /**
+    * Time between enqueueing and end of the job executions.
+    */
+   private final HistogramSnapshot total;
+
+   /**
+    * Constructor.
+    *
+    * @param queue
+    *           Queue name.
+    * @param jobType
+    *           Job type.
+    * @param wait
+    *           Time between enqueueing and start of the job executions.
+    * @param run
+    *           Time between start and end of the job executions.
+    * @param total
+    *           Time between enqueueing and end of the job executions.
+    */
+   public LatencySnapshot(String queue, Class<?> jobType,
+         HistogramSnapshot wait, HistogramSnapshot run, HistogramSnapshot total) {
+      Assert.notNull(queue, "Precondition violated: queue != null.");
+      Assert.notNull(jobType, "Precondition violated: jobType != null.");
+      Assert.notNull(wait, "Precondition violated: wait != null.");
+      Assert.notNull(run, "Precondition violated: run != null.");
+      Assert.notNull(total, "Precondition violated: total != null.");
+
+      this.queue = queue;
+      this.jobType = jobType;
+      this.wait = wait;
+      this.run = run;
+      this.total = total;
+   }
+
+   /**
+    * Queue name.
+    */
+   public String getQueue() {
+      return queue;
+   }
+
+   /**
+    * Job type.
+    */
+   public Class<?> getJobType() {
+      return jobType;
+   }
+
+   /**
+    * Time between enqueueing and start of the job executions.
+    * Enqueue timestamps are stored with a resolution of seconds, so this is less precise than the run time.
+    */
+   public HistogramSnapshot getWait() {
+      return wait;
+   }
+
+   /**
+    * Time between start and end of the job executions.
+    */
+   public HistogramSnapshot getRun() {
+      return run;
+   }
+
+   /**
+    * Time between enqueueing and end of the job executions.
+    */
+   public HistogramSnapshot getTotal() {
+      return total;
+   }
+
+   @Override
+   public String toString() {
+      return queue + "/" + jobType.getSimpleName() + ": wait [" + wait + "], run [" + run + "], total [" + total + "]";
+   }
+}
@@ -0,0 +1,21 @@
+package com.s24.redjob.metrics;
+
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link LatencyReporter} which logs the latencies.
+ */
+public class LoggingLatencyReporter implements LatencyReporter {
+   /**
+    * Logger.
+    */
+   private static final Logger log = LoggerFactory.getLogger(LoggingLatencyReporter.class);
+
+   @Override
+   public void report(List<LatencySnapshot> latencies) {
+      latencies.forEach(latency -> log.info("Latencies of {}.", latency));
+   }
+}
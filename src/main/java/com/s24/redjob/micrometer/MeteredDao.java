@@ -0,0 +1,110 @@
+package com.s24.redjob.micrometer;
+
+import com.s24.redjob.Dao;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Proxy timing every call of a DAO with the timer {@value #DAO_TIMER},
+ * tagged with the DAO interface ("dao"), the called method ("method") and the namespace.
+ */
+public class MeteredDao implements InvocationHandler {
+   /**
+    * Name of the timer for DAO calls.
+    */
+   public static final String DAO_TIMER = "redjob.dao";
+
+   /**
+    * Timed DAO.
+    */
+   private final Object dao;
+
+   /**
+    * Timers by method. Created upfront, so timing a call does not need a registry lookup.
+    */
+   private final Map<Method, Timer> timers = new HashMap<>();
+
+   /**
+    * Constructor.
+    *
+    * @param dao
+    *           DAO.
+    * @param registry
+    *           Meter registry.
+    */
+   private MeteredDao(Dao dao, MeterRegistry registry) {
+      this.dao = dao;
+      for (Class<?> type : ClassUtils.getAllInterfacesForClassAsSet(dao.getClass())) {
+         if (!Dao.class.isAssignableFrom(type)) {
+            continue;
+         }
+         for (Method method : type.getMethods()) {
+            if (method.getDeclaringClass() == Dao.class) {
+               // Skip trivial getters.
+               continue;
+            }
+            timers.put(method, Timer.builder(DAO_TIMER)
+                  .description("Calls of RedJob DAOs")
+                  .tag("dao", method.getDeclaringClass().getSimpleName())
+                  .tag("method", method.getName())
+                  .tag("namespace", dao.getNamespace())
+                  .register(registry));
+         }
+      }
+   }
+
+   /**
+    * Wrap the given DAO with a proxy timing all calls of its DAO interfaces.
+    *
+    * @param dao
+    *           DAO.
+    * @param registry
+    *           Meter registry.
+    * @return Proxy implementing all interfaces of the DAO.
+    */
+   @SuppressWarnings("unchecked")
+   public static <D extends Dao> D meter(D dao, MeterRegistry registry) {
+      Assert.notNull(dao, "Precondition violated: dao != null.");
+      Assert.notNull(registry, "Precondition violated: registry != null.");
+
+      return (D) Proxy.newProxyInstance(dao.getClass().getClassLoader(),
+            ClassUtils.getAllInterfaces(dao), new MeteredDao(dao, registry));
+   }
+
+   /**
+    * Has the given DAO already been wrapped with a {@link MeteredDao} proxy?.
+    *
+    * @param dao
+    *           DAO.
+    */
+   public static boolean isMetered(Dao dao) {
+      return Proxy.isProxyClass(dao.getClass()) && Proxy.getInvocationHandler(dao) instanceof MeteredDao;
+   }
+
+   @Override
+   public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      Timer timer = timers.get(method);
+      long start = timer != null ? System.nanoTime() : 0;
+      try {
+         return method.invoke(dao, args);
+      } catch (InvocationTargetException e) {
+         throw e.getTargetException();
+      } finally {
+         if (timer != null) {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+         }
+      }
+   }
+}
@@ -0,0 +1,101 @@
+package com.s24.redjob.micrometer;
+
+import com.s24.redjob.Dao;
+import com.s24.redjob.client.ClientFactoryBean;
+import com.s24.redjob.client.ExecutionCache;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * {@link BeanPostProcessor} wrapping all DAO beans with a {@link MeteredDao} proxy.
+ * The DAOs of {@link ClientFactoryBean}s are wrapped too.
+ * The near caches of {@link ClientFactoryBean}s are bound to {@value RedJobMeters#CACHE_GETS}
+ * and {@value RedJobMeters#CACHE_SIZE}, tagged with the "namespace".
+ * Inject DAOs by their interfaces (e.g. {@link com.s24.redjob.queue.FifoDao}), because the proxies just implement them.
+ * Without a {@link MeterRegistry} bean the DAOs are not touched at all.
+ */
+public class MeteredDaoPostProcessor implements BeanPostProcessor {
+   /**
+    * Meter registry, if any.
+    */
+   private final ObjectProvider<MeterRegistry> registry;
+
+   /**
+    * Constructor.
+    *
+    * @param registry
+    *           Meter registry, if any.
+    */
+   public MeteredDaoPostProcessor(ObjectProvider<MeterRegistry> registry) {
+      this.registry = registry;
+   }
+
+   @Override
+   public Object postProcessBeforeInitialization(Object bean, String beanName) {
+      if (!(bean instanceof ClientFactoryBean)) {
+         return bean;
+      }
+
+      MeterRegistry registry = this.registry.getIfAvailable();
+      if (registry == null) {
+         return bean;
+      }
+
+      // The factory creates its own DAOs, which are no beans.
+      ClientFactoryBean factory = (ClientFactoryBean) bean;
+      factory.setDaoDecorator(dao -> meter(dao, registry));
+      return factory;
+   }
+
+   @Override
+   public Object postProcessAfterInitialization(Object bean, String beanName) {
+      if (!(bean instanceof Dao) && !(bean instanceof ClientFactoryBean)) {
+         return bean;
+      }
+
+      MeterRegistry registry = this.registry.getIfAvailable();
+      if (registry == null) {
+         return bean;
+      }
+
+      if (bean instanceof ClientFactoryBean) {
+         ClientFactoryBean factory = (ClientFactoryBean) bean;
+         if (factory.getExecutionCache() != null) {
+            bind(factory.getExecutionCache(), factory.getNamespace(), registry);
+         }
+         return factory;
+      }
+
+      return meter((Dao) bean, registry);
+   }
+
+   /**
+    * Bind the hit and miss statistics and the size of the near cache of a client.
+    */
+   private static void bind(ExecutionCache cache, String namespace, MeterRegistry registry) {
+      FunctionCounter.builder(RedJobMeters.CACHE_GETS, cache, ExecutionCache::getHits)
+            .description("Lookups in the near cache of the client")
+            .tags("namespace", namespace, "result", "hit")
+            .register(registry);
+      FunctionCounter.builder(RedJobMeters.CACHE_GETS, cache, ExecutionCache::getMisses)
+            .description("Lookups in the near cache of the client")
+            .tags("namespace", namespace, "result", "miss")
+            .register(registry);
+      Gauge.builder(RedJobMeters.CACHE_SIZE, cache, ExecutionCache::size)
+            .description("Executions in the near cache of the client")
+            .tag("namespace", namespace)
+            .register(registry);
+   }
+
+   /**
+    * Wrap the given DAO with a {@link MeteredDao} proxy, if it has not been wrapped yet.
+    */
+   private static <D extends Dao> D meter(D dao, MeterRegistry registry) {
+      return MeteredDao.isMetered(dao) ? dao : MeteredDao.meter(dao, registry);
+   }
+}
@@ -0,0 +1,649 @@
+package com.s24.redjob.micrometer;
+
+import com.s24.redjob.queue.FifoDao;
+import com.s24.redjob.queue.QueueStats;
+import com.s24.redjob.worker.Execution;
+import com.s24.redjob.worker.Worker;
+import com.s24.redjob.worker.WorkerState;
+import com.s24.redjob.worker.events.JobFailure;
+import com.s24.redjob.worker.events.JobSkipped;
+import com.s24.redjob.worker.events.JobStart;
+import com.s24.redjob.worker.events.JobSuccess;
+import com.s24.redjob.worker.events.ListenerAwareEventMulticaster;
+import com.s24.redjob.worker.events.WorkerEvent;
+import com.s24.redjob.worker.events.WorkerFailure;
+import com.s24.redjob.worker.events.WorkerNext;
+import com.s24.redjob.worker.events.WorkerPause;
+import com.s24.redjob.worker.events.WorkerPoll;
+import com.s24.redjob.worker.events.WorkerStart;
+import com.s24.redjob.worker.events.WorkerStopped;
+import com.s24.redjob.worker.events.WorkerStopping;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.event.SmartApplicationListener;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Micrometer meters for jobs, workers and queues, fed by worker events:
+ * <ul>
+ * <li>{@value #JOBS}: Counter of jobs, tagged with "queue" and "result" (processed, failed, skipped).
+ * Jobs are skipped, if their processing or execution has been vetoed.</li>
+ * <li>{@value #JOBS_DURATION}: Timer of job executions, tagged with "queue" and "result" (processed, failed).</li>
+ * <li>{@value #JOBS_ACTIVE}: Gauge of the jobs currently being executed by the local workers.</li>
+ * <li>{@value #POLLS_VETOED}: Counter of vetoed queue polls, tagged with "queue".</li>
+ * <li>{@value #WORKERS}: Gauge of the local workers, tagged with their "state"
+ * (running, paused, stopping, stopped, failed).</li>
+ * <li>{@value #WORKERS_BUSY}, {@value #WORKERS_IDLE}: Counters of the time in seconds the running local workers
+ * spent executing jobs respectively polling for jobs or sleeping in their poll loop.
+ * The busy ratio is the rate of the busy time divided by the sum of the rates of both.</li>
+ * <li>{@value #QUEUE_LENGTH}, {@value #QUEUE_INFLIGHT}: Gauges of the number of queued respectively inflight jobs,
+ * tagged with "queue". Just available, if a {@link FifoDao} has been set. Refreshed regularly.</li>
+ * </ul>
+ * The Redis calls of DAOs are timed by {@link MeteredDaoPostProcessor}.
+ * It binds the near caches of clients to {@value #CACHE_GETS} and {@value #CACHE_SIZE} too.
+ *
+ * Without a {@link MeterRegistry} bean no event types are supported, so this listener does not cause
+ * any events to be published, e.g. when using the {@link ListenerAwareEventMulticaster}.
+ */
+public class RedJobMeters implements SmartApplicationListener {
+   /**
+    * Name of the counter of jobs.
+    */
+   public static final String JOBS = "redjob.jobs";
+
+   /**
+    * Name of the timer of job executions.
+    */
+   public static final String JOBS_DURATION = "redjob.jobs.duration";
+
+   /**
+    * Name of the gauge of jobs currently being executed.
+    */
+   public static final String JOBS_ACTIVE = "redjob.jobs.active";
+
+   /**
+    * Name of the counter of vetoed queue polls.
+    */
+   public static final String POLLS_VETOED = "redjob.polls.vetoed";
+
+   /**
+    * Name of the gauge of workers per state.
+    */
+   public static final String WORKERS = "redjob.workers";
+
+   /**
+    * Name of the counter of the time workers spent executing jobs.
+    */
+   public static final String WORKERS_BUSY = "redjob.workers.busy";
+
+   /**
+    * Name of the counter of the time workers spent waiting for jobs.
+    */
+   public static final String WORKERS_IDLE = "redjob.workers.idle";
+
+   /**
+    * Name of the gauge of the queue lengths.
+    */
+   public static final String QUEUE_LENGTH = "redjob.queue.length";
+
+   /**
+    * Name of the gauge of the inflight jobs per queue.
+    */
+   public static final String QUEUE_INFLIGHT = "redjob.queue.inflight";
+
+   /**
+    * Name of the counter of lookups in the near cache of clients.
+    */
+   public static final String CACHE_GETS = "redjob.cache.gets";
+
+   /**
+    * Name of the gauge of the size of the near cache of clients.
+    */
+   public static final String CACHE_SIZE = "redjob.cache.size";
+
+   /**
+    * Event types this listener handles, if a meter registry is available.
+    */
+   private static final List<Class<? extends ApplicationEvent>> EVENT_TYPES = List.of(
+         JobStart.class, JobSuccess.class, JobFailure.class, JobSkipped.class,
+         WorkerPoll.class, WorkerNext.class,
+         WorkerStart.class, WorkerPause.class, WorkerStopping.class, WorkerStopped.class, WorkerFailure.class);
+
+   /**
+    * Logger.
+    */
+   private static final Logger log = LoggerFactory.getLogger(RedJobMeters.class);
+
+   /**
+    * Meter registry. Null, if not available.
+    */
+   private MeterRegistry registry;
+
+   /**
+    * Queue dao for queue gauges. Optional.
+    */
+   private FifoDao fifoDao;
+
+   /**
+    * Refresh interval of the queue gauges in milliseconds. Defaults to 10 seconds.
+    */
+   private long queueStatsIntervalMillis = 10_000;
+
+   /**
+    * Meters by queue.
+    */
+   private final Map<String, QueueMeters> queueMeters = new ConcurrentHashMap<>();
+
+   /**
+    * Jobs currently being executed.
+    */
+   private final AtomicInteger activeJobs = new AtomicInteger();
+
+   /**
+    * States of the local workers.
+    */
+   private final Map<Worker, String> workerStates = new ConcurrentHashMap<>();
+
+   /**
+    * Busy and idle time of the local workers.
+    */
+   private final Map<Worker, WorkerTime> workerTimes = new ConcurrentHashMap<>();
+
+   /**
+    * Last queue poll of the current worker thread.
+    */
+   private final ThreadLocal<WorkerPoll> lastPoll = new ThreadLocal<>();
+
+   /**
+    * Last statistics by queue.
+    */
+   private final Map<String, QueueStats> queueStats = new ConcurrentHashMap<>();
+
+   /**
+    * Scheduler for refreshing the queue gauges.
+    */
+   private ScheduledExecutorService scheduler;
+
+   @PostConstruct
+   public void afterPropertiesSet() {
+      if (registry == null) {
+         log.info("No meter registry available. Metrics are disabled.");
+         return;
+      }
+
+      Gauge.builder(JOBS_ACTIVE, activeJobs, AtomicInteger::get)
+            .description("Jobs currently being executed")
+            .register(registry);
+      for (String state : new String[] {
+            WorkerState.RUNNING, WorkerState.PAUSED, WorkerState.STOPPING, WorkerState.STOPPED, WorkerState.FAILED }) {
+         Gauge.builder(WORKERS, workerStates, states -> count(states, state))
+               .description("Workers per state")
+               .tag("state", state)
+               .register(registry);
+      }
+      FunctionCounter.builder(WORKERS_BUSY, workerTimes, times -> seconds(times, true))
+            .description("Time running workers spent executing jobs")
+            .baseUnit("seconds")
+            .register(registry);
+      FunctionCounter.builder(WORKERS_IDLE, workerTimes, times -> seconds(times, false))
+            .description("Time running workers spent waiting for jobs")
+            .baseUnit("seconds")
+            .register(registry);
+
+      if (fifoDao != null) {
+         scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Queue meters");
+            thread.setDaemon(true);
+            return thread;
+         });
+         scheduler.scheduleWithFixedDelay(this::refreshQueueStats, 0, queueStatsIntervalMillis, TimeUnit.MILLISECONDS);
+      }
+   }
+
+   @PreDestroy
+   public void destroy() {
+      if (scheduler != null) {
+         scheduler.shutdownNow();
+      }
+   }
+
+   @Override
+   public boolean supportsEventType(Class<? extends ApplicationEvent> eventType) {
+      return registry != null && EVENT_TYPES.stream().anyMatch(type -> type.isAssignableFrom(eventType));
+   }
+
+   @Override
+   public void onApplicationEvent(ApplicationEvent event) {
+      if (event instanceof JobStart) {
+         onJobStart((JobStart) event);
+      } else if (event instanceof JobSuccess) {
+         onJobSuccess((JobSuccess) event);
+      } else if (event instanceof JobFailure) {
+         onJobFailure((JobFailure) event);
+      } else if (event instanceof JobSkipped) {
+         onJobSkipped((JobSkipped) event);
+      } else if (event instanceof WorkerPoll) {
+         onWorkerPoll((WorkerPoll) event);
+      } else if (event instanceof WorkerNext) {
+         onWorkerNext((WorkerNext) event);
+      } else if (event instanceof WorkerStart) {
+         onWorkerStart((WorkerStart) event);
+      } else if (event instanceof WorkerPause) {
+         onWorkerPause((WorkerPause) event);
+      } else if (event instanceof WorkerStopping) {
+         onWorkerStopping((WorkerStopping) event);
+      } else if (event instanceof WorkerStopped) {
+         onWorkerStopped((WorkerStopped) event);
+      } else if (event instanceof WorkerFailure) {
+         onWorkerFailure((WorkerFailure) event);
+      }
+   }
+
+   //
+   // Jobs.
+   //
+
+   /**
+    * Count active jobs.
+    */
+   public void onJobStart(JobStart event) {
+      if (registry == null) {
+         return;
+      }
+
+      activeJobs.incrementAndGet();
+      workerTime(event.getWorker()).jobStarted();
+   }
+
+   /**
+    * Count and time processed jobs.
+    */
+   public void onJobSuccess(JobSuccess event) {
+      if (registry == null) {
+         return;
+      }
+
+      activeJobs.decrementAndGet();
+      workerTime(event.getWorker()).jobFinished();
+      QueueMeters meters = queueMeters(event.getQueue());
+      meters.processed.increment();
+      record(meters.processedDuration, event.getExecution());
+   }
+
+   /**
+    * Count and time failed jobs.
+    */
+   public void onJobFailure(JobFailure event) {
+      if (registry == null) {
+         return;
+      }
+
+      activeJobs.decrementAndGet();
+      workerTime(event.getWorker()).jobFinished();
+      QueueMeters meters = queueMeters(event.getQueue());
+      meters.failed.increment();
+      record(meters.failedDuration, event.getExecution());
+   }
+
+   /**
+    * Count skipped (vetoed) jobs.
+    */
+   public void onJobSkipped(JobSkipped event) {
+      if (registry == null) {
+         return;
+      }
+
+      queueMeters(event.getQueue()).skipped.increment();
+   }
+
+   /**
+    * Record the duration of the execution.
+    */
+   private void record(Timer timer, Execution execution) {
+      if (execution.getStart() != null && execution.getEnd() != null) {
+         timer.record(execution.getEnd().toEpochMilli() - execution.getStart().toEpochMilli(), TimeUnit.MILLISECONDS);
+      }
+   }
+
+   //
+   // Polls.
+   //
+
+   /**
+    * Remember poll to check for a veto after all listeners have been called.
+    */
+   public void onWorkerPoll(WorkerPoll event) {
+      if (registry == null) {
+         return;
+      }
+
+      lastPoll.set(event);
+   }
+
+   /**
+    * Count vetoed polls. Published after the poll by the same thread.
+    */
+   public void onWorkerNext(WorkerNext event) {
+      if (registry == null) {
+         return;
+      }
+
+      WorkerPoll poll = lastPoll.get();
+      lastPoll.remove();
+      if (poll != null && poll.isVeto()) {
+         queueMeters(event.getQueue()).vetoedPolls.increment();
+      }
+   }
+
+   //
+   // Workers.
+   //
+
+   /**
+    * Track worker state.
+    */
+   public void onWorkerStart(WorkerStart event) {
+      workerState(event, WorkerState.RUNNING);
+   }
+
+   /**
+    * Track worker state.
+    */
+   public void onWorkerPause(WorkerPause event) {
+      workerState(event, WorkerState.PAUSED);
+   }
+
+   /**
+    * Track worker state.
+    */
+   public void onWorkerStopping(WorkerStopping event) {
+      workerState(event, WorkerState.STOPPING);
+   }
+
+   /**
+    * Track worker state.
+    */
+   public void onWorkerStopped(WorkerStopped event) {
+      workerState(event, WorkerState.STOPPED);
+   }
+
+   /**
+    * Track worker state.
+    */
+   public void onWorkerFailure(WorkerFailure event) {
+      workerState(event, WorkerState.FAILED);
+   }
+
+   /**
+    * Track worker state.
+    */
+   private void workerState(WorkerEvent event, String state) {
+      if (registry == null) {
+         return;
+      }
+
+      workerStates.put(event.getWorker(), state);
+      workerTime(event.getWorker()).running(WorkerState.RUNNING.equals(state));
+   }
+
+   /**
+    * Number of workers in the given state.
+    */
+   private static int count(Map<Worker, String> states, String state) {
+      return (int) states.values().stream().filter(state::equals).count();
+   }
+
+   /**
+    * Busy and idle time of the given worker.
+    */
+   private WorkerTime workerTime(Worker worker) {
+      WorkerTime time = workerTimes.get(worker);
+      if (time == null) {
+         time = workerTimes.computeIfAbsent(worker, w -> new WorkerTime());
+      }
+      return time;
+   }
+
+   /**
+    * Sum of the busy respectively idle time of all workers in seconds.
+    */
+   private static double seconds(Map<Worker, WorkerTime> times, boolean busy) {
+      long now = System.nanoTime();
+      long nanos = times.values().stream().mapToLong(time -> time.nanos(busy, now)).sum();
+      return (double) nanos / TimeUnit.SECONDS.toNanos(1);
+   }
+
+   /**
+    * Busy and idle time of one worker.
+    * Time is tracked just while the worker is running.
+    */
+   private static class WorkerTime {
+      /**
+       * Is the worker running?.
+       */
+      private boolean running;
+
+      /**
+       * Jobs currently being executed. Channel workers may execute multiple jobs at once.
+       */
+      private int activeJobs;
+
+      /**
+       * Start of the current busy or idle period (System.nanoTime()).
+       */
+      private long since = System.nanoTime();
+
+      /**
+       * Busy time of finished periods in nanoseconds.
+       */
+      private long busyNanos;
+
+      /**
+       * Idle time of finished periods in nanoseconds.
+       */
+      private long idleNanos;
+
+      /**
+       * The worker started or stopped running.
+       */
+      private synchronized void running(boolean running) {
+         finishPeriod();
+         this.running = running;
+      }
+
+      /**
+       * The worker started a job.
+       */
+      private synchronized void jobStarted() {
+         finishPeriod();
+         activeJobs++;
+      }
+
+      /**
+       * The worker finished a job.
+       */
+      private synchronized void jobFinished() {
+         finishPeriod();
+         activeJobs = Math.max(activeJobs - 1, 0);
+      }
+
+      /**
+       * Add the time of the current period to the busy or idle time and start a new period.
+       */
+      private void finishPeriod() {
+         long now = System.nanoTime();
+         if (activeJobs > 0) {
+            busyNanos += now - since;
+         } else if (running) {
+            idleNanos += now - since;
+         }
+         since = now;
+      }
+
+      /**
+       * Busy respectively idle time including the current period in nanoseconds.
+       */
+      private synchronized long nanos(boolean busy, long now) {
+         if (busy) {
+            return busyNanos + (activeJobs > 0 ? now - since : 0);
+         }
+         return idleNanos + (activeJobs == 0 && running ? now - since : 0);
+      }
+   }
+
+   //
+   // Queues.
+   //
+
+   /**
+    * Meters of the given queue.
+    */
+   private QueueMeters queueMeters(String queue) {
+      QueueMeters meters = queueMeters.get(queue);
+      if (meters == null) {
+         meters = queueMeters.computeIfAbsent(queue, q -> new QueueMeters(registry, q));
+      }
+      return meters;
+   }
+
+   /**
+    * Refresh queue statistics.
+    */
+   private void refreshQueueStats() {
+      try {
+         List<QueueStats> stats = fifoDao.getQueueStats();
+         for (QueueStats stat : stats) {
+            String queue = stat.getQueue();
+            if (queueStats.put(queue, stat) == null) {
+               Gauge.builder(QUEUE_LENGTH, queueStats, s -> s.get(queue).getLength())
+                     .description("Queued jobs")
+                     .tag("queue", queue)
+                     .register(registry);
+               Gauge.builder(QUEUE_INFLIGHT, queueStats, s -> s.get(queue).getInflight())
+                     .description("Inflight jobs")
+                     .tag("queue", queue)
+                     .register(registry);
+            }
+         }
+      } catch (Exception e) {
+         log.error("Failed to refresh queue statistics: {}", e.getMessage());
+      }
+   }
+
+   /**
+    * Meters of one queue.
+    */
+   private static class QueueMeters {
+      /**
+       * Processed jobs.
+       */
+      private final Counter processed;
+
+      /**
+       * Failed jobs.
+       */
+      private final Counter failed;
+
+      /**
+       * Skipped jobs.
+       */
+      private final Counter skipped;
+
+      /**
+       * Duration of processed jobs.
+       */
+      private final Timer processedDuration;
+
+      /**
+       * Duration of failed jobs.
+       */
+      private final Timer failedDuration;
+
+      /**
+       * Vetoed polls.
+       */
+      private final Counter vetoedPolls;
+
+      /**
+       * Constructor.
+       *
+       * @param registry
+       *           Meter registry.
+       * @param queue
+       *           Queue name.
+       */
+      private QueueMeters(MeterRegistry registry, String queue) {
+         processed = registry.counter(JOBS, "queue", queue, "result", "processed");
+         failed = registry.counter(JOBS, "queue", queue, "result", "failed");
+         skipped = registry.counter(JOBS, "queue", queue, "result", "skipped");
+         processedDuration = registry.timer(JOBS_DURATION, "queue", queue, "result", "processed");
+         failedDuration = registry.timer(JOBS_DURATION, "queue", queue, "result", "failed");
+         vetoedPolls = registry.counter(POLLS_VETOED, "queue", queue);
+      }
+   }
+
+   //
+   // Injections.
+   //
+
+   /**
+    * Meter registry. Optional: Without it, no meters are recorded.
+    */
+   public MeterRegistry getMeterRegistry() {
+      return registry;
+   }
+
+   /**
+    * Meter registry. Optional: Without it, no meters are recorded.
+    */
+   @Autowired(required = false)
+   public void setMeterRegistry(MeterRegistry registry) {
+      this.registry = registry;
+   }
+
+   /**
+    * Queue dao for queue gauges. Optional: Without it, there are no queue gauges.
+    */
+   public FifoDao getFifoDao() {
+      return fifoDao;
+   }
+
+   /**
+    * Queue dao for queue gauges. Optional: Without it, there are no queue gauges.
+    */
+   public void setFifoDao(FifoDao fifoDao) {
+      this.fifoDao = fifoDao;
+   }
+
+   /**
+    * Refresh interval of the queue gauges in milliseconds. Defaults to 10 seconds.
+    */
+   public long getQueueStatsIntervalMillis() {
+      return queueStatsIntervalMillis;
+   }
+
+   /**
+    * Refresh interval of the queue gauges in milliseconds. Defaults to 10 seconds.
+    */
+   public void setQueueStatsIntervalMillis(long queueStatsIntervalMillis) {
+      this.queueStatsIntervalMillis = queueStatsIntervalMillis;
+   }
+}
@@ -15,7 +15,9 @@ import com.s24.redjob.worker.events.WorkerStopped;
 
 import javax.annotation.PostConstruct;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.slf4j.MDC;
@@ -59,6 +61,24 @@ public abstract class AbstractQueueWorker extends AbstractWorker<QueueWorkerStat
     */
    protected final AtomicBoolean pause = new AtomicBoolean(false);
 
+   /**
+    * Interval for checking whether paused queues have been unpaused, in milliseconds. Defaults to 1 second.
+    * Used, if all queues of the worker have been paused.
+    */
+   private long pausedQueuesSleepMillis = 1000;
+
+   /**
+    * Queues of this worker, which have been paused when polled last.
+    * Just accessed by the worker thread.
+    */
+   private final Set<String> pausedQueues = new HashSet<>();
+
+   /**
+    * Have all queues of this worker been paused?.
+    * Just accessed by the worker thread.
+    */
+   private boolean queuesPaused = false;
+
    /**
     * Constructor.
     */
@@ -73,6 +93,7 @@ public abstract class AbstractQueueWorker extends AbstractWorker<QueueWorkerStat
    @PostConstruct
    public void afterPropertiesSet() throws Exception {
       Assert.notEmpty(queues, "Precondition violated: queues not empty.");
+      Assert.isTrue(pausedQueuesSleepMillis > 0, "Precondition violated: pausedQueuesSleepMillis > 0.");
 
       super.afterPropertiesSet();
    }
@@ -221,23 +242,70 @@ public abstract class AbstractQueueWorker extends AbstractWorker<QueueWorkerStat
     */
    protected void pollQueues() throws Throwable {
       for (String queue : queues) {
-         try {
-            MDC.put("queue", queue);
-            WorkerPoll workerPoll = new WorkerPoll(this, queue);
-            eventBus.publishEvent(workerPoll);
-            if (workerPoll.isVeto()) {
-               log.debug("Queue poll vetoed.");
-            } else if (pollQueue(queue)) {
-               // Event popped and executed -> Start over with polling.
-               return;
-            }
-         } finally {
-            eventBus.publishEvent(new WorkerNext(this, queue));
-            MDC.remove("queue");
+         if (pollQueueIfNotVetoed(queue)) {
+            // Event popped and executed -> Start over with polling.
+            return;
+         }
+      }
+
+      // The pause state of the queues is reported by the polls, so it does not need an additional Redis call.
+      if (pausedQueues.containsAll(queues)) {
+         queuesPaused();
+         synchronized (this.pause) {
+            // Woken up early on stop.
+            this.pause.wait(pausedQueuesSleepMillis);
          }
+      } else {
+         queuesUnpaused();
+         Thread.sleep(emptyQueuesSleepMillis);
       }
+   }
 
-      Thread.sleep(emptyQueuesSleepMillis);
+   /**
+    * All queues of this worker have been paused.
+    * The queues are polled just every {@link #pausedQueuesSleepMillis} then.
+    */
+   private void queuesPaused() {
+      if (!queuesPaused) {
+         queuesPaused = true;
+         log.info("Queues of worker {} have been paused.", name);
+         setWorkerState(WorkerState::pause, new WorkerPause(this));
+      }
+   }
+
+   /**
+    * Not all queues of this worker are paused (anymore).
+    */
+   private void queuesUnpaused() {
+      if (queuesPaused) {
+         queuesPaused = false;
+         log.info("Queues of worker {} have been unpaused.", name);
+         setWorkerState(WorkerState::start, new WorkerStart(this));
+      }
+   }
+
+   /**
+    * Poll the given queue, if not vetoed by a {@link WorkerPoll} listener.
+    *
+    * @param queue
+    *           Queue name.
+    * @return Has a job been polled and executed?.
+    * @throws Throwable
+    *            In case of errors.
+    */
+   protected boolean pollQueueIfNotVetoed(String queue) throws Throwable {
+      try {
+         MDC.put("queue", queue);
+         WorkerPoll workerPoll = publishEvent(WorkerPoll.class, () -> new WorkerPoll(this, queue));
+         if (workerPoll != null && workerPoll.isVeto()) {
+            log.debug("Queue poll vetoed.");
+            return false;
+         }
+         return pollQueue(queue);
+      } finally {
+         publishEvent(WorkerNext.class, () -> new WorkerNext(this, queue));
+         MDC.remove("queue");
+      }
    }
 
    /**
@@ -250,11 +318,18 @@ public abstract class AbstractQueueWorker extends AbstractWorker<QueueWorkerStat
     *            In case of errors.
     */
    protected boolean pollQueue(String queue) throws Throwable {
-      Execution execution = doPollQueue(queue);
+      PopResult result = tryPollQueue(queue);
+      if (result.isPaused()) {
+         pausedQueues.add(queue);
+      } else {
+         pausedQueues.remove(queue);
+      }
+      Execution execution = result.getExecution();
       if (execution == null) {
-         log.debug("Queue is empty.");
+         log.debug("No job polled: {}.", result.getStatus());
          return false;
       }
+      queuesUnpaused();
 
       boolean restore = false;
       try {
@@ -322,9 +397,9 @@ public abstract class AbstractQueueWorker extends AbstractWorker<QueueWorkerStat
       // An execution is stale if it is marked as being executed by this worker,
       // without the worker knowing about it.
       if (execution != null && execution.isRunning() && name.equals(execution.getWorker())) {
-         execution.stop();
-         eventBus.publishEvent(new JobStale(this, execution.getQueue(), execution));
-         update(execution);
+         execution.fail();
+         publishEvent(JobStale.class, () -> new JobStale(this, execution.getQueue(), execution));
+         finish(execution);
       }
    }
 
@@ -351,6 +426,21 @@ public abstract class AbstractQueueWorker extends AbstractWorker<QueueWorkerStat
     */
    protected abstract Execution doPollQueue(String queue) throws Throwable;
 
+   /**
+    * Poll the given queue and report why no job has been polled.
+    * If all queues of the worker have been paused, the worker polls them less often.
+    * Defaults to {@link #doPollQueue(String)}, which does not report paused queues.
+    *
+    * @param queue
+    *           Queue name.
+    * @return The polled job or whether the queue is empty, paused or the worker got no permit.
+    * @throws Throwable
+    *            In case of errors.
+    */
+   protected PopResult tryPollQueue(String queue) throws Throwable {
+      return PopResult.of(doPollQueue(queue));
+   }
+
    /**
     * Remove executed (or maybe aborted) job from the inflight queue.
     *
@@ -371,15 +461,37 @@ public abstract class AbstractQueueWorker extends AbstractWorker<QueueWorkerStat
     */
    protected abstract void restoreInflight(String queue) throws Throwable;
 
+   /**
+    * Save the start of the execution.
+    * Defaults to {@link #update(Execution)}.
+    *
+    * @param execution
+    *           Execution.
+    */
+   protected void begin(Execution execution) {
+      update(execution);
+   }
+
+   /**
+    * Save the final state of the execution and notify clients waiting for its completion.
+    * Defaults to {@link #update(Execution)}, which does not notify clients.
+    *
+    * @param execution
+    *           Execution.
+    */
+   protected void finish(Execution execution) {
+      update(execution);
+   }
+
    @Override
    protected void run(String queue, Execution execution) {
       try {
          // Save start time.
-         update(execution);
+         begin(execution);
          super.run(queue, execution);
       } finally {
          // Save stop time.
-         update(execution);
+         finish(execution);
       }
    }
 
@@ -408,4 +520,19 @@ public abstract class AbstractQueueWorker extends AbstractWorker<QueueWorkerStat
    public void setQueues(List<String> queues) {
       this.queues = queues;
    }
+
+   /**
+    * Interval for checking whether paused queues have been unpaused, in milliseconds. Defaults to 1 second.
+    */
+   public long getPausedQueuesSleepMillis() {
+      return pausedQueuesSleepMillis;
+   }
+
+   /**
+    * Interval for checking whether paused queues have been unpaused, in milliseconds. Defaults to 1 second.
+    * Used, if all queues of the worker have been paused.
+    */
+   public void setPausedQueuesSleepMillis(long pausedQueuesSleepMillis) {
+      this.pausedQueuesSleepMillis = pausedQueuesSleepMillis;
+   }
 }
@@ -0,0 +1,122 @@
+package com.s24.redjob.queue;
+
+import org.springframework.util.Assert;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Change in the lifecycle of a job execution. Published as JSON to a Redis channel.
+ * Contains just the id and the queue of the execution, so it stays small.
+ */
+public class ExecutionChange {
+   /**
+    * Type of change.
+    */
+   public enum Type {
+      /**
+       * Job has been enqueued.
+       */
+      ENQUEUED,
+
+      /**
+       * Job execution has been started by a worker.
+       */
+      STARTED,
+
+      /**
+       * Result of running job execution has been updated.
+       */
+      PROGRESS,
+
+      /**
+       * Job execution has finished, either successfully or not.
+       */
+      FINISHED,
+
+      /**
+       * Job has been dequeued (deleted).
+       */
+      DEQUEUED
+   }
+
+   /**
+    * Type of change.
+    */
+   @JsonProperty(value = "type", required = true)
+   private final Type type;
+
+   /**
+    * Id of job.
+    */
+   @JsonProperty(value = "id", required = true)
+   private final long id;
+
+   /**
+    * Queue of job.
+    */
+   @JsonProperty(value = "queue", required = true)
+   private final String queue;
+
+   /**
+    * Constructor.
+    *
+    * @param type
+    *           Type of change.
+    * @param id
+    *           Id of job.
+    * @param queue
+    *           Queue of job.
+    */
+   @JsonCreator
+   public ExecutionChange(
+         @JsonProperty(value = "type", required = true) Type type,
+         @JsonProperty(value = "id", required = true) long id,
+         @JsonProperty(value = "queue", required = true) String queue) {
+      Assert.notNull(type, "Precondition violated: type != null.");
+      Assert.notNull(queue, "Precondition violated: queue != null.");
+
+      this.type = type;
+      this.id = id;
+      this.queue = queue;
+   }
+
+   /**
+    * Type of change.
+    */
+   public Type getType() {
+      return type;
+   }
+
+   /**
+    * Id of job.
+    */
+   public long getId() {
+      return id;
+   }
+
+   /**
+    * Queue of job.
+    */
+   public String getQueue() {
+      return queue;
+   }
+
+   @Override
+   public boolean equals(Object o) {
+      return o instanceof ExecutionChange &&
+            type == ((ExecutionChange) o).type &&
+            id == ((ExecutionChange) o).id &&
+            queue.equals(((ExecutionChange) o).queue);
+   }
+
+   @Override
+   public int hashCode() {
+      return Long.hashCode(id);
+   }
+
+   @Override
+   public String toString() {
+      return type + " " + queue + ":" + id;
+   }
+}
@@ -0,0 +1,26 @@
+package com.s24.redjob.queue;
+
+/**
+ * Status of a job execution, as stored in the index of all job executions.
+ */
+public enum ExecutionStatus {
+   /**
+    * Job is waiting in its queue.
+    */
+   QUEUED,
+
+   /**
+    * Job has been popped by a worker and is being executed.
+    */
+   RUNNING,
+
+   /**
+    * Job execution has finished successfully.
+    */
+   SUCCEEDED,
+
+   /**
+    * Job execution has failed.
+    */
+   FAILED
+}
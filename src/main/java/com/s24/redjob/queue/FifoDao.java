@@ -1,6 +1,14 @@
 package com.s24.redjob.queue;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.listener.Topic;
 
 import com.s24.redjob.Dao;
 import com.s24.redjob.worker.Execution;
@@ -24,23 +32,91 @@ public interface FifoDao extends Dao {
 
    /**
     * Dequeue the job with the given id from the given queue.
+    * Takes constant time, because just the execution gets deleted.
+    * The id stays in the queue until a worker pops and discards it.
+    * Jobs which are not queued anymore get deleted too.
     *
     * @param queue
     *           Queue name.
     * @param id
     *           Id of the job.
-    * @return true, if at least one job is dequeued.
+    * @return true, if the job was still queued in the given queue.
     */
    boolean dequeue(String queue, long id);
 
    /**
-    * Update a job execution.
+    * Cancel the jobs with the given ids, regardless of their queue.
+    * Takes constant time per job, because just the executions get deleted.
+    * The ids stay in their queues until a worker pops and discards them.
+    * Jobs which are not queued anymore get deleted too.
+    *
+    * @param ids
+    *           Ids of the jobs.
+    * @return Number of cancelled jobs, which were still queued.
+    */
+   int cancel(Collection<Long> ids);
+
+   /**
+    * Update the mutable state of a job execution, which just has been started by a worker.
+    *
+    * @param execution
+    *           Job execution.
+    */
+   void start(Execution execution);
+
+   /**
+    * Update the mutable state (worker, start, end, result) of a job execution.
+    * The job itself does not change after enqueueing, so it is not written again.
     *
     * @param execution
     *           Job execution.
     */
    void update(Execution execution);
 
+   /**
+    * Update the mutable state of all given job executions, whose state changed since their last update.
+    * All updates are written in one batch.
+    *
+    * @param executions
+    *           Job executions.
+    * @return Job executions that have been updated.
+    */
+   List<Execution> update(Collection<Execution> executions);
+
+   /**
+    * Update the final state of a job execution and notify clients waiting for its completion.
+    *
+    * @param execution
+    *           Job execution.
+    */
+   void finish(Execution execution);
+
+   /**
+    * Topic for notifications about completed job executions.
+    */
+   Topic getCompletionTopic();
+
+   /**
+    * Extract the id of the completed job execution from a notification message.
+    *
+    * @param message
+    *           Message.
+    */
+   long getId(Message message);
+
+   /**
+    * Topic for changes in the lifecycle of job executions.
+    */
+   Topic getChangeTopic();
+
+   /**
+    * Extract the change of a job execution from a change message.
+    *
+    * @param message
+    *           Message.
+    */
+   ExecutionChange getChange(Message message);
+
    /**
     * Get a job execution.
     *
@@ -50,6 +126,43 @@ public interface FifoDao extends Dao {
     */
    Execution get(long id);
 
+   /**
+    * Get job executions. Reads them in chunks.
+    *
+    * @param ids
+    *           Ids of the jobs.
+    * @return Executions in the order of the given ids. Not existing or not deserializable executions are skipped.
+    */
+   List<Execution> get(Collection<Long> ids);
+
+   /**
+    * Get the status of a job execution from the index, without reading the execution.
+    *
+    * @param id
+    *           Id of the job.
+    * @return Status or null, if not existing.
+    */
+   ExecutionStatus getStatus(long id);
+
+   /**
+    * Get statistics of all queues in two round trips, without reading any job executions:
+    * One pipeline reading the names of the queues and workers and one script reading the statistics.
+    */
+   List<QueueStats> getQueueStats();
+
+   /**
+    * Get the ids of all jobs with the given status from the status index.
+    *
+    * @param status
+    *           Status.
+    * @param from
+    *           Min timestamp of the last status change (inclusive). Null for no lower bound.
+    * @param to
+    *           Max timestamp of the last status change (inclusive). Null for no upper bound.
+    * @return Ids ordered by the timestamp of their last status change.
+    */
+   List<Long> getIds(ExecutionStatus status, Instant from, Instant to);
+
    /**
     * Get all jobs of a queue.
     *
@@ -59,6 +172,18 @@ public interface FifoDao extends Dao {
     */
    List<Execution> getQueued(String queue);
 
+   /**
+    * Pass all jobs of a queue in chunks to the given action, without reading the whole queue at once.
+    * The queue is read from its end, so jobs popped meanwhile do not cause others to be skipped.
+    * Jobs enqueued meanwhile may be passed again or not at all.
+    *
+    * @param queue
+    *           Queue name.
+    * @param action
+    *           Action for each chunk of executions. Not existing or not deserializable executions are skipped.
+    */
+   void forEachQueued(String queue, Consumer<List<Execution>> action);
+
    /**
     * Get all jobs.
     *
@@ -80,10 +205,71 @@ public interface FifoDao extends Dao {
     *           Queue name.
     * @param worker
     *           Name of worker.
-    * @return Job or null, if none is in the queue.
+    * @return Job or null, if none is in the queue or the queue is paused.
     */
    Execution pop(String queue, String worker);
 
+   /**
+    * Pop first job from queue and report why no job has been popped, without an additional Redis call.
+    *
+    * @param queue
+    *           Queue name.
+    * @param worker
+    *           Name of worker.
+    * @return The popped job or whether the queue is empty, paused or the worker got no permit.
+    */
+   PopResult tryPop(String queue, String worker);
+
+   /**
+    * Pause or unpause a queue for all workers.
+    * Jobs can still be enqueued to paused queues, but workers do not pop them until the queue gets unpaused.
+    *
+    * @param queue
+    *           Queue name.
+    * @param pause
+    *           Pause (true) or unpause (false)?.
+    */
+   void pause(String queue, boolean pause);
+
+   /**
+    * Get all paused queues.
+    */
+   Set<String> getPausedQueues();
+
+   /**
+    * Limit the number of concurrently running jobs of a queue for all workers.
+    * Workers do not pop jobs of the queue while the limit is reached.
+    * Workers renew their permits while executing a job, so permits of crashed workers are reclaimed after a lease time.
+    *
+    * @param queue
+    *           Queue name.
+    * @param limit
+    *           Max number of concurrently running jobs. Values <= 0 remove the limit.
+    */
+   void limit(String queue, int limit);
+
+   /**
+    * Get the concurrency limits of all limited queues.
+    */
+   Map<String, Integer> getLimits();
+
+   /**
+    * Renew the lease of the permit of a worker for a queue with a concurrency limit.
+    *
+    * @param queue
+    *           Queue name.
+    * @param worker
+    *           Name of worker.
+    * @return Whether the worker holds a permit of the queue.
+    */
+   boolean renewPermit(String queue, String worker);
+
+   /**
+    * Lease time of permits of queues with a concurrency limit in milliseconds.
+    * Workers have to renew their permits within this time.
+    */
+   long getPermitLeaseMillis();
+
    /**
     * Remove job from inflight queue.
     *
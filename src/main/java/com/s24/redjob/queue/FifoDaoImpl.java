@@ -1,22 +1,43 @@
 package com.s24.redjob.queue;
 
 import com.s24.redjob.AbstractDao;
+import com.s24.redjob.LuaScript;
+import com.s24.redjob.queue.ExecutionChange.Type;
 import com.s24.redjob.worker.Execution;
+import com.s24.redjob.worker.ExecutionState;
+import com.s24.redjob.worker.WorkerDaoImpl;
 import com.s24.redjob.worker.json.ExecutionRedisSerializer;
 
 import javax.annotation.PostConstruct;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
 
+import org.springframework.data.redis.connection.Message;
 import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisZSetCommands.Range;
+import org.springframework.data.redis.connection.ReturnType;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
 import org.springframework.util.Assert;
 
 import static java.util.Collections.emptyList;
 import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
 import static org.springframework.util.CollectionUtils.isEmpty;
 
 /**
@@ -39,31 +60,366 @@ public class FifoDaoImpl extends AbstractDao implements FifoDao {
    public static final String QUEUE = "queue";
 
    /**
-    * Redis key part for the hash of id -> job.
+    * Redis key part for the hash of id -> job execution.
+    * The execution is written once when enqueueing the job and never changes afterwards.
     */
    public static final String JOBS = "jobs";
 
+   /**
+    * Redis key part for the hash of id -> mutable state (worker, start, end, result) of the job execution.
+    */
+   public static final String STATES = "states";
+
+   /**
+    * Redis key part for the hash of id -> status and queue of the job execution.
+    * Allows to look up the status and the queue of jobs without reading and deserializing their executions.
+    */
+   public static final String INDEX = "index";
+
+   /**
+    * Redis key part for the sorted sets of status -> job ids, scored by the timestamp of the last status change.
+    */
+   public static final String STATUS = "status";
+
    /**
     * Redis key part for the list of all job ids of a queue.
     */
    public static final String INFLIGHT = "inflight";
 
+   /**
+    * Redis key part for the channel for notifications about completed job executions.
+    */
+   public static final String COMPLETED = "completed";
+
+   /**
+    * Redis key part for the channel for changes in the lifecycle of job executions.
+    */
+   public static final String CHANGES = "changes";
+
+   /**
+    * Redis key part for the set of paused queues.
+    */
+   public static final String PAUSED = "paused";
+
+   /**
+    * Redis key part for the hash of queue -> number of ids of deleted jobs, which are still in the queue.
+    */
+   public static final String TOMBSTONES = "tombstones";
+
+   /**
+    * Redis key part for the hash of queue -> max number of concurrently running jobs of the queue.
+    */
+   public static final String LIMITS = "limits";
+
+   /**
+    * Redis key part for the sorted sets of workers running a job of a limited queue,
+    * scored by the expiration of their permit.
+    */
+   public static final String PERMITS = "permits";
+
+   /**
+    * Max number of cancelled job ids to skip per pop.
+    */
+   private static final int MAX_SKIPS = 1000;
+
+   /**
+    * Result of {@link #POP}, if just cancelled jobs have been discarded.
+    */
+   private static final byte[] SKIPPED = "skipped".getBytes(StandardCharsets.UTF_8);
+
+   /**
+    * Result of {@link #POP}, if the queue is paused.
+    */
+   private static final byte[] PAUSED_QUEUE = "paused".getBytes(StandardCharsets.UTF_8);
+
+   /**
+    * Result of {@link #POP}, if no permit is available for the worker.
+    */
+   private static final byte[] NO_PERMIT = "no_permit".getBytes(StandardCharsets.UTF_8);
+
+   /**
+    * Max number of ids to read at once.
+    */
+   private static final int CHUNK_SIZE = 1000;
+
+   /**
+    * Lua script for popping the first not cancelled job from a queue, if the queue is not paused.
+    * Ids of cancelled jobs, whose execution has been deleted, are discarded.
+    * If the queue has a concurrency limit, the job is just popped, if a permit is available for the worker.
+    */
+   // KEYS[1]: queue
+   // KEYS[2]: inflight queue
+   // KEYS[3]: jobs
+   // KEYS[4]: states
+   // KEYS[5]: index
+   // KEYS[6]: status set of queued jobs
+   // KEYS[7]: status set of running jobs
+   // KEYS[8]: paused queues
+   // KEYS[9]: concurrency limits
+   // KEYS[10]: permits of the queue
+   // KEYS[11]: tombstones
+   // ARGV[1]: max skips
+   // ARGV[2]: index value for running jobs
+   // ARGV[3]: current timestamp
+   // ARGV[4]: queue name
+   // ARGV[5]: worker name
+   // ARGV[6]: permit lease time
+   private static final LuaScript POP = new LuaScript(
+         "if (redis.call('sismember', KEYS[8], ARGV[4]) == 1) then " +
+            // Queue is paused.
+            "return { 'paused' }; " +
+         "end; " +
+         "local limit = tonumber(redis.call('hget', KEYS[9], ARGV[4])); " +
+         "local now; " +
+         "if (limit) then " +
+            // Use the server time for permits, so that the clocks of the workers do not matter.
+            "redis.replicate_commands(); " +
+            "local time = redis.call('time'); " +
+            "now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000); " +
+            // Reclaim permits of crashed workers.
+            "redis.call('zremrangebyscore', KEYS[10], '-inf', now); " +
+            "if (not redis.call('zscore', KEYS[10], ARGV[5]) and redis.call('zcard', KEYS[10]) >= limit) then " +
+               // No permit available.
+               "return { 'no_permit' }; " +
+            "end; " +
+         "end; " +
+         "for i = 1, tonumber(ARGV[1]) do " +
+            "local id = redis.call('lpop', KEYS[1]); " +
+            "if (not id) then " +
+               // Queue is empty.
+               "return {}; " +
+            "end; " +
+            "local job = redis.call('hget', KEYS[3], id); " +
+            "if (job) then " +
+               "if (limit) then " +
+                  "redis.call('zadd', KEYS[10], now + tonumber(ARGV[6]), ARGV[5]); " +
+                  "if (redis.call('pttl', KEYS[10]) < tonumber(ARGV[6])) then " +
+                     "redis.call('pexpire', KEYS[10], ARGV[6]); " +
+                  "end; " +
+               "end; " +
+               "redis.call('lpush', KEYS[2], id); " +
+               "redis.call('hset', KEYS[5], id, ARGV[2]); " +
+               "redis.call('zrem', KEYS[6], id); " +
+               "redis.call('zadd', KEYS[7], ARGV[3], id); " +
+               // Return an empty state instead of nil, if the job has not been started yet.
+               "return { id, job, redis.call('hget', KEYS[4], id) or '' }; " +
+            "end; " +
+            // Job has been cancelled -> Discard id.
+            "if (tonumber(redis.call('hget', KEYS[11], ARGV[4]) or '0') > 0) then " +
+               "redis.call('hincrby', KEYS[11], ARGV[4], -1); " +
+            "end; " +
+         "end; " +
+         // Too many cancelled jobs -> Let the caller continue popping.
+         "return { 'skipped' };");
+
+   /**
+    * Lua script for deleting jobs.
+    * Ids of jobs that are still queued stay in their queue, because removing them is O(n).
+    * They are counted as tombstones of the queue, until a worker pops and discards them.
+    * Returns the former index entry of each job or an empty string, if the job did not exist.
+    */
+   // KEYS[1]: jobs
+   // KEYS[2]: states
+   // KEYS[3]: index
+   // KEYS[4]: tombstones
+   // KEYS[5..]: status sets
+   // ARGV[1]: prefix of index values of queued jobs
+   // ARGV[2..]: ids
+   private static final LuaScript DELETE = new LuaScript(
+         "local result = {}; " +
+         "for i = 2, #ARGV do " +
+            "local id = ARGV[i]; " +
+            "local index = redis.call('hget', KEYS[3], id) or ''; " +
+            "if (redis.call('hdel', KEYS[1], id) == 0) then " +
+               "index = ''; " +
+            "end; " +
+            "redis.call('hdel', KEYS[2], id); " +
+            "redis.call('hdel', KEYS[3], id); " +
+            "for k = 5, #KEYS do " +
+               "redis.call('zrem', KEYS[k], id); " +
+            "end; " +
+            "if (string.sub(index, 1, #ARGV[1]) == ARGV[1]) then " +
+               "redis.call('hincrby', KEYS[4], string.sub(index, #ARGV[1] + 1), 1); " +
+            "end; " +
+            "result[i - 1] = index; " +
+         "end; " +
+         "return result;");
+
+   /**
+    * Lua script for removing a job from the inflight queue and releasing the permit of the worker.
+    */
+   // KEYS[1]: inflight queue
+   // KEYS[2]: permits of the queue
+   // ARGV[1]: worker name
+   private static final LuaScript REMOVE_INFLIGHT = new LuaScript(
+         "redis.call('lpop', KEYS[1]); " +
+         "redis.call('zrem', KEYS[2], ARGV[1]);");
+
+   /**
+    * Lua script for renewing the lease of the permit of a worker.
+    * Returns 1, if the worker holds a permit, otherwise 0.
+    */
+   // KEYS[1]: permits of the queue
+   // ARGV[1]: worker name
+   // ARGV[2]: permit lease time
+   private static final LuaScript RENEW_PERMIT = new LuaScript(
+         "if (not redis.call('zscore', KEYS[1], ARGV[1])) then " +
+            "return 0; " +
+         "end; " +
+         // Use the server time for permits, so that the clocks of the workers do not matter.
+         "redis.replicate_commands(); " +
+         "local time = redis.call('time'); " +
+         "local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000); " +
+         "redis.call('zadd', KEYS[1], now + tonumber(ARGV[2]), ARGV[1]); " +
+         "if (redis.call('pttl', KEYS[1]) < tonumber(ARGV[2])) then " +
+            "redis.call('pexpire', KEYS[1], ARGV[2]); " +
+         "end; " +
+         "return 1;");
+
+   /**
+    * Lua script for saving the mutable states of running job executions and notifying about the changes.
+    * States of executions, which are not running anymore, are not written, because they would overwrite the final state.
+    * Stale states of deleted executions are removed.
+    * Returns for each execution, whether its state has been written (1) or not (0).
+    */
+   // KEYS[1]: index
+   // KEYS[2]: states
+   // ARGV[1]: change channel
+   // ARGV[2]: prefix of index values of running jobs
+   // ARGV[3 * i]: id
+   // ARGV[3 * i + 1]: state
+   // ARGV[3 * i + 2]: change
+   private static final LuaScript UPDATE = new LuaScript(
+         "local result = {}; " +
+         "for i = 1, (#ARGV - 2) / 3 do " +
+            "local id = ARGV[3 * i]; " +
+            "local index = redis.call('hget', KEYS[1], id); " +
+            "if (index and string.sub(index, 1, #ARGV[2]) == ARGV[2]) then " +
+               "redis.call('hset', KEYS[2], id, ARGV[3 * i + 1]); " +
+               // Notify after the state has been written, so that clients are able to read it.
+               "redis.call('publish', ARGV[1], ARGV[3 * i + 2]); " +
+               "result[i] = 1; " +
+            "else " +
+               "if (not index) then " +
+                  // Job had been deleted before -> Remove stale state.
+                  "redis.call('hdel', KEYS[2], id); " +
+               "end; " +
+               "result[i] = 0; " +
+            "end; " +
+         "end; " +
+         "return result;");
+
+   /**
+    * Lua script for saving the final state of a job execution.
+    * Moves the job from the running jobs to the succeeded or failed jobs
+    * and notifies about the completion and the change.
+    */
+   // KEYS[1]: jobs
+   // KEYS[2]: states
+   // KEYS[3]: index
+   // KEYS[4]: status set of running jobs
+   // KEYS[5]: status set of succeeded or failed jobs
+   // ARGV[1]: id
+   // ARGV[2]: state
+   // ARGV[3]: index value
+   // ARGV[4]: end timestamp
+   // ARGV[5]: change channel
+   // ARGV[6]: change
+   // ARGV[7]: completion channel
+   private static final LuaScript FINISH = new LuaScript(
+         "local exists = redis.call('hexists', KEYS[1], ARGV[1]); " +
+         "if (exists == 1) then " +
+            "redis.call('hset', KEYS[2], ARGV[1], ARGV[2]); " +
+            "redis.call('hset', KEYS[3], ARGV[1], ARGV[3]); " +
+            "redis.call('zrem', KEYS[4], ARGV[1]); " +
+            "redis.call('zadd', KEYS[5], ARGV[4], ARGV[1]); " +
+            "redis.call('publish', ARGV[5], ARGV[6]); " +
+         "else " +
+            // Job had been deleted before -> Do not create a stale state.
+            "redis.call('hdel', KEYS[2], ARGV[1]); " +
+            "redis.call('hdel', KEYS[3], ARGV[1]); " +
+         "end; " +
+         // Notify waiting clients in any case, so they do not have to wait for a timeout.
+         "redis.call('publish', ARGV[7], ARGV[1]); " +
+         "return exists;");
+
+   /**
+    * Lua script for reading the statistics of all queues at once.
+    * Returns queue name, length, number of inflight jobs and the enqueue timestamp of the oldest queued job of each queue.
+    * Ids of cancelled jobs are neither counted nor considered for the oldest job.
+    */
+   // KEYS[1]: tombstones
+   // KEYS[2]: status set of queued jobs
+   // KEYS[3..]: for each queue: queue, followed by the inflight queues of all workers
+   // ARGV[1]: number of workers
+   // ARGV[2]: max number of cancelled job ids to skip when looking for the oldest job
+   // ARGV[3..]: queue names
+   private static final LuaScript STATS = new LuaScript(
+         "local workers = tonumber(ARGV[1]); " +
+         "local result = {}; " +
+         "for q = 3, #ARGV do " +
+            "local queue = ARGV[q]; " +
+            "local queueKey = 3 + (q - 3) * (workers + 1); " +
+            "local inflight = 0; " +
+            "for w = 1, workers do " +
+               "inflight = inflight + redis.call('llen', KEYS[queueKey + w]); " +
+            "end; " +
+            "local tombstones = tonumber(redis.call('hget', KEYS[1], queue) or '0'); " +
+            "local length = math.max(redis.call('llen', KEYS[queueKey]) - tombstones, 0); " +
+            "local oldest = ''; " +
+            "if (length > 0) then " +
+               // Cancelled jobs have no status -> Skip them.
+               "local head = redis.call('lrange', KEYS[queueKey], 0, math.min(tombstones, tonumber(ARGV[2]))); " +
+               "for _, id in ipairs(head) do " +
+                  "local score = redis.call('zscore', KEYS[2], id); " +
+                  "if (score) then " +
+                     "oldest = score; " +
+                     "break; " +
+                  "end; " +
+               "end; " +
+            "end; " +
+            "table.insert(result, queue); " +
+            "table.insert(result, tostring(length)); " +
+            "table.insert(result, tostring(inflight)); " +
+            "table.insert(result, oldest); " +
+         "end; " +
+         "return result;");
+
    /**
     * Redis serializer for job executions.
     */
    private ExecutionRedisSerializer executions;
 
+   /**
+    * Lease time of permits of queues with a concurrency limit in milliseconds. Defaults to 30 seconds.
+    * Workers renew their permits after a third of the lease time. Permits of crashed workers are reclaimed after it.
+    */
+   private long permitLeaseMillis = 30_000;
+
+   /**
+    * Redis serializer for changes of job executions.
+    */
+   private final Jackson2JsonRedisSerializer<ExecutionChange> changes =
+         new Jackson2JsonRedisSerializer<>(ExecutionChange.class);
+
    /**
     * Redis access.
     */
    private RedisTemplate<String, String> redis;
 
+   /**
+    * Hashes of the last written states of the currently running executions by their id.
+    * Used to skip updates of unchanged executions.
+    */
+   private final Map<Long, Integer> writtenStates = new ConcurrentHashMap<>();
+
    @Override
    @PostConstruct
    public void afterPropertiesSet() {
       super.afterPropertiesSet();
 
       Assert.notNull(executions, "Precondition violated: executions != null.");
+      Assert.isTrue(permitLeaseMillis > 0, "Precondition violated: permitLeaseMillis > 0.");
 
       redis = new RedisTemplate<>();
       redis.setConnectionFactory(connectionFactory);
@@ -89,12 +445,17 @@ public class FifoDaoImpl extends AbstractDao implements FifoDao {
          if (log.isDebugEnabled()) {
             log.debug("Enqueuing: {}", new String(executionBytes, StandardCharsets.UTF_8));
          }
+         connection.multi();
          connection.hSet(key(JOBS), idBytes, executionBytes);
+         connection.hSet(key(INDEX), idBytes, indexValue(ExecutionStatus.QUEUED, queue));
+         connection.zAdd(statusKey(ExecutionStatus.QUEUED), execution.getCreated().toEpochMilli(), idBytes);
          if (front) {
             connection.lPush(key(QUEUE, queue), idBytes);
          } else {
             connection.rPush(key(QUEUE, queue), idBytes);
          }
+         connection.publish(key(CHANGES), value(Type.ENQUEUED, execution));
+         connection.exec();
 
          return execution;
       });
@@ -103,80 +464,392 @@ public class FifoDaoImpl extends AbstractDao implements FifoDao {
    @Override
    public boolean dequeue(String queue, long id) {
       return redis.execute((RedisConnection connection) -> {
-         byte[] idBytes = value(id);
-         Long deletes = connection.lRem(key(QUEUE, queue), 0, idBytes);
-         connection.hDel(key(JOBS), idBytes);
-         return deletes != null && deletes > 0;
+         byte[] index = delete(connection, List.of(value(id))).get(0);
+         return ExecutionStatus.QUEUED.equals(parseIndexStatus(index)) && queue.equals(parseIndexQueue(index));
       });
    }
 
+   @Override
+   public int cancel(Collection<Long> ids) {
+      if (ids.isEmpty()) {
+         return 0;
+      }
+
+      return redis.execute((RedisConnection connection) -> {
+         List<byte[]> idsBytes = ids.stream().map(this::value).collect(toList());
+         return (int) delete(connection, idsBytes).stream()
+               .filter(index -> ExecutionStatus.QUEUED.equals(parseIndexStatus(index)))
+               .count();
+      });
+   }
+
+   /**
+    * Delete jobs and notify about their removal.
+    *
+    * @param connection
+    *           Redis connection.
+    * @param idsBytes
+    *           Ids of the jobs.
+    * @return Former index entry of each job, or null, if the job did not exist.
+    */
+   @SuppressWarnings("unchecked")
+   private List<byte[]> delete(RedisConnection connection, List<byte[]> idsBytes) {
+      ExecutionStatus[] statuses = ExecutionStatus.values();
+      byte[][] keysAndArgs = new byte[4 + statuses.length + 1 + idsBytes.size()][];
+      int i = 0;
+      keysAndArgs[i++] = key(JOBS);
+      keysAndArgs[i++] = key(STATES);
+      keysAndArgs[i++] = key(INDEX);
+      keysAndArgs[i++] = key(TOMBSTONES);
+      for (ExecutionStatus status : statuses) {
+         keysAndArgs[i++] = statusKey(status);
+      }
+      keysAndArgs[i++] = value(ExecutionStatus.QUEUED.name().toLowerCase() + ":");
+      for (byte[] idBytes : idsBytes) {
+         writtenStates.remove(parseLong(idBytes));
+         keysAndArgs[i++] = idBytes;
+      }
+
+      List<byte[]> indexes = new ArrayList<>(idsBytes.size());
+      List<byte[]> changesBytes = new ArrayList<>(idsBytes.size());
+      List<Object> results = DELETE.eval(connection, ReturnType.MULTI, 4 + statuses.length, keysAndArgs);
+      for (int j = 0; j < idsBytes.size(); j++) {
+         byte[] index = (byte[]) results.get(j);
+         if (index.length == 0) {
+            indexes.add(null);
+            continue;
+         }
+         indexes.add(index);
+         ExecutionChange change = new ExecutionChange(Type.DEQUEUED, parseLong(idsBytes.get(j)), parseIndexQueue(index));
+         changesBytes.add(changes.serialize(change));
+      }
+      if (!changesBytes.isEmpty()) {
+         // Publish all changes in one round trip.
+         byte[] changesKey = key(CHANGES);
+         pipeline(connection, pipeline -> changesBytes.forEach(changeBytes -> pipeline.publish(changesKey, changeBytes)));
+      }
+      return indexes;
+   }
+
    @Override
    public Execution get(long id) {
       return redis.execute((RedisConnection connection) -> {
          byte[] idBytes = value(id);
-         byte[] executionBytes = connection.hGet(key(JOBS), idBytes);
-         if (executionBytes == null) {
-            return null;
+         List<Object> results = pipeline(connection, pipeline -> {
+            pipeline.hGet(key(JOBS), idBytes);
+            pipeline.hGet(key(STATES), idBytes);
+         });
+
+         return parseExecution((byte[]) results.get(0), (byte[]) results.get(1));
+      });
+   }
+
+   @Override
+   public List<Execution> get(Collection<Long> ids) {
+      if (ids.isEmpty()) {
+         return emptyList();
+      }
+
+      return redis.execute((RedisConnection connection) -> {
+         List<byte[]> idsBytes = ids.stream().map(this::value).collect(toList());
+         List<Execution> result = new ArrayList<>(ids.size());
+         // Read in chunks to avoid blocking Redis with huge responses.
+         for (int i = 0; i < idsBytes.size(); i += CHUNK_SIZE) {
+            result.addAll(getAll(connection, idsBytes.subList(i, Math.min(i + CHUNK_SIZE, idsBytes.size()))));
          }
+         return result;
+      });
+   }
 
-         return parseExecution(executionBytes);
+   @Override
+   public List<Long> getIds(ExecutionStatus status, Instant from, Instant to) {
+      Range range = Range.range();
+      if (from != null) {
+         range = range.gte(from.toEpochMilli());
+      }
+      if (to != null) {
+         range = range.lte(to.toEpochMilli());
+      }
+      Range scores = range;
+
+      return redis.execute((RedisConnection connection) ->
+            connection.zRangeByScore(statusKey(status), scores).stream()
+                  .map(this::parseLong)
+                  .collect(toList()));
+   }
+
+   @Override
+   @SuppressWarnings("unchecked")
+   public List<QueueStats> getQueueStats() {
+      return redis.execute((RedisConnection connection) -> {
+         List<Object> names = pipeline(connection, pipeline -> {
+            pipeline.sMembers(key(QUEUES));
+            pipeline.sMembers(key(WorkerDaoImpl.WORKERS));
+         });
+         List<String> queues = ((Set<byte[]>) names.get(0)).stream().map(this::parseString).collect(toList());
+         List<String> workers = ((Set<byte[]>) names.get(1)).stream().map(this::parseString).collect(toList());
+         if (queues.isEmpty()) {
+            return emptyList();
+         }
+
+         List<byte[]> keys = new ArrayList<>();
+         keys.add(key(TOMBSTONES));
+         keys.add(statusKey(ExecutionStatus.QUEUED));
+         List<byte[]> args = new ArrayList<>();
+         args.add(value(workers.size()));
+         args.add(value(MAX_SKIPS));
+         for (String queue : queues) {
+            keys.add(key(QUEUE, queue));
+            workers.forEach(worker -> keys.add(key(INFLIGHT, worker, queue)));
+            args.add(value(queue));
+         }
+         keys.addAll(args);
+
+         List<byte[]> result = STATS.eval(connection, ReturnType.MULTI, keys.size() - args.size(),
+               keys.toArray(new byte[keys.size()][]));
+         long now = System.currentTimeMillis();
+         List<QueueStats> stats = new ArrayList<>();
+         for (int i = 0; i + 3 < result.size(); i += 4) {
+            String oldest = parseString(result.get(i + 3));
+            stats.add(new QueueStats(
+                  parseString(result.get(i)),
+                  parseLong(result.get(i + 1)),
+                  parseLong(result.get(i + 2)),
+                  oldest.isEmpty() ? null : Duration.ofMillis(Math.max(0, now - Long.parseLong(oldest)))));
+         }
+         return stats;
       });
    }
 
+   @Override
+   public ExecutionStatus getStatus(long id) {
+      return redis.execute((RedisConnection connection) ->
+            parseIndexStatus(connection.hGet(key(INDEX), value(id))));
+   }
+
+   @Override
+   public void start(Execution execution) {
+      update(execution, stateValue(execution), Type.STARTED);
+   }
+
    @Override
    public void update(Execution execution) {
-      redis.execute((RedisConnection connection) -> {
-         byte[] idBytes = value(execution.getId());
-         byte[] executionBytes = value(execution);
-         boolean created = connection.hSet(key(JOBS), idBytes, executionBytes);
-         if (created) {
-            // Job had been deleted before, so updates are not useful, because they will create a stale job.
-            connection.hDel(key(JOBS), idBytes);
+      update(execution, stateValue(execution), Type.PROGRESS);
+   }
+
+   @Override
+   public List<Execution> update(Collection<Execution> executions) {
+      // Serialize all states and skip the ones, that did not change since their last update.
+      Map<Execution, byte[]> changed = new LinkedHashMap<>();
+      for (Execution execution : executions) {
+         byte[] stateBytes = stateValue(execution);
+         if (!Integer.valueOf(Arrays.hashCode(stateBytes)).equals(writtenStates.get(execution.getId()))) {
+            changed.put(execution, stateBytes);
          }
+      }
+      if (changed.isEmpty()) {
+         return emptyList();
+      }
 
-         return null;
+      List<Long> results = update(changed, Type.PROGRESS);
+      List<Execution> updated = new ArrayList<>(changed.size());
+      int i = 0;
+      for (Entry<Execution, byte[]> entry : changed.entrySet()) {
+         Execution execution = entry.getKey();
+         if (results.get(i++) == 1) {
+            written(execution, entry.getValue());
+            updated.add(execution);
+         } else {
+            writtenStates.remove(execution.getId());
+         }
+      }
+
+      return updated;
+   }
+
+   @Override
+   public void finish(Execution execution) {
+      redis.execute((RedisConnection connection) -> {
+         ExecutionStatus status = execution.isFailed() ? ExecutionStatus.FAILED : ExecutionStatus.SUCCEEDED;
+         Instant end = execution.getEnd() != null ? execution.getEnd() : Instant.now();
+         writtenStates.remove(execution.getId());
+         return FINISH.eval(connection, ReturnType.INTEGER, 5,
+               key(JOBS), key(STATES), key(INDEX), statusKey(ExecutionStatus.RUNNING), statusKey(status),
+               value(execution.getId()), stateValue(execution), indexValue(status, execution.getQueue()),
+               value(end.toEpochMilli()), key(CHANGES), value(Type.FINISHED, execution), key(COMPLETED));
       });
    }
 
+   @Override
+   public ChannelTopic getCompletionTopic() {
+      return new ChannelTopic(keyString(COMPLETED));
+   }
+
+   @Override
+   public long getId(Message message) {
+      return parseLong(message.getBody());
+   }
+
+   @Override
+   public ChannelTopic getChangeTopic() {
+      return new ChannelTopic(keyString(CHANGES));
+   }
+
+   @Override
+   public ExecutionChange getChange(Message message) {
+      return changes.deserialize(message.getBody());
+   }
+
+   /**
+    * Update the mutable state of a job execution and publish the change.
+    *
+    * @param execution
+    *           Job execution.
+    * @param stateBytes
+    *           Serialized state of the job execution.
+    * @param type
+    *           Type of change.
+    */
+   private void update(Execution execution, byte[] stateBytes, Type type) {
+      if (update(Map.of(execution, stateBytes), type).get(0) == 1) {
+         written(execution, stateBytes);
+      } else {
+         writtenStates.remove(execution.getId());
+      }
+   }
+
+   /**
+    * Write the mutable states of running job executions and notify about the changes.
+    *
+    * @param states
+    *           Serialized states by job execution.
+    * @param type
+    *           Type of change.
+    * @return For each execution, whether its state has been written (1) or not (0), because it is not running anymore.
+    */
+   private List<Long> update(Map<Execution, byte[]> states, Type type) {
+      byte[][] keysAndArgs = new byte[4 + 3 * states.size()][];
+      keysAndArgs[0] = key(INDEX);
+      keysAndArgs[1] = key(STATES);
+      keysAndArgs[2] = key(CHANGES);
+      keysAndArgs[3] = value(ExecutionStatus.RUNNING.name().toLowerCase() + ":");
+      int i = 4;
+      for (Entry<Execution, byte[]> entry : states.entrySet()) {
+         keysAndArgs[i++] = value(entry.getKey().getId());
+         keysAndArgs[i++] = entry.getValue();
+         keysAndArgs[i++] = value(type, entry.getKey());
+      }
+
+      return redis.execute((RedisConnection connection) -> UPDATE.eval(connection, ReturnType.MULTI, 2, keysAndArgs));
+   }
+
+   /**
+    * Remember the hash of the last written state of a running job execution.
+    *
+    * @param execution
+    *           Job execution.
+    * @param stateBytes
+    *           Written state of the job execution.
+    */
+   private void written(Execution execution, byte[] stateBytes) {
+      if (execution.getEnd() != null) {
+         // No further updates are expected for finished executions.
+         writtenStates.remove(execution.getId());
+      } else {
+         writtenStates.put(execution.getId(), Arrays.hashCode(stateBytes));
+      }
+   }
+
    @Override
    public List<Execution> getQueued(String queue) {
       return redis.execute((RedisConnection connection) -> {
          // Get all ids from queue.
          List<byte[]> idsBytes = connection.lRange(key(QUEUE, queue), 0, -1);
-         if (isEmpty(idsBytes)) {
-            return emptyList();
-         }
+         return getAll(connection, idsBytes);
+      });
+   }
 
-         // Lookup all executions for all ids at once.
-         List<byte[]> executionsBytes = connection.hMGet(key(JOBS), idsBytes.toArray(new byte[idsBytes.size()][]));
-         if (isEmpty(executionsBytes)) {
-            return emptyList();
+   @Override
+   public void forEachQueued(String queue, Consumer<List<Execution>> action) {
+      byte[] queueKey = key(QUEUE, queue);
+      // Page from the end of the queue, because popping jobs from its start does not shift these pages.
+      for (long offset = 0; ; offset += CHUNK_SIZE) {
+         long end = -1 - offset;
+         long start = end - CHUNK_SIZE + 1;
+         List<byte[]> idsBytes = new ArrayList<>();
+         List<Execution> executions = redis.execute((RedisConnection connection) -> {
+            idsBytes.addAll(connection.lRange(queueKey, start, end));
+            return getAll(connection, idsBytes);
+         });
+         if (idsBytes.isEmpty()) {
+            return;
          }
-         Assert.isTrue(executionsBytes.size() == idsBytes.size(),
-               "Precondition violated: Redis response has the expected length.");
-
-         return executionsBytes.stream()
-               .map(this::parseExecution)
-               .filter(Objects::nonNull)
-               .collect(toList());
-      });
+         action.accept(executions);
+         if (idsBytes.size() < CHUNK_SIZE) {
+            return;
+         }
+      }
    }
 
    @Override
+   @SuppressWarnings("unchecked")
    public List<Execution> getAll() {
       return redis.execute((RedisConnection connection) -> {
-         Map<byte[], byte[]> executionsBytes = connection.hGetAll(key(JOBS));
+         List<Object> results = pipeline(connection, pipeline -> {
+            pipeline.hGetAll(key(JOBS));
+            pipeline.hGetAll(key(STATES));
+         });
+         Map<byte[], byte[]> executionsBytes = (Map<byte[], byte[]>) results.get(0);
          if (isEmpty(executionsBytes)) {
             return emptyList();
          }
 
-         return executionsBytes.values().stream()
-               .map(this::parseExecution)
+         // byte[] does not support equals(), so index the states by the string representation of the ids.
+         Map<String, byte[]> statesBytes = new HashMap<>();
+         ((Map<byte[], byte[]>) results.get(1)).forEach((idBytes, stateBytes) ->
+               statesBytes.put(parseString(idBytes), stateBytes));
+
+         return executionsBytes.entrySet().stream()
+               .map(entry -> parseExecution(entry.getValue(), statesBytes.get(parseString(entry.getKey()))))
                .filter(Objects::nonNull)
                .collect(toList());
       });
    }
 
+   /**
+    * Lookup all executions for all ids at once.
+    *
+    * @param connection
+    *           Redis connection.
+    * @param idsBytes
+    *           Ids of executions.
+    * @return Executions. Not existing or not deserializable executions are skipped.
+    */
+   @SuppressWarnings("unchecked")
+   private List<Execution> getAll(RedisConnection connection, List<byte[]> idsBytes) {
+      if (isEmpty(idsBytes)) {
+         return emptyList();
+      }
+
+      byte[][] ids = idsBytes.toArray(new byte[idsBytes.size()][]);
+      List<Object> results = pipeline(connection, pipeline -> {
+         pipeline.hMGet(key(JOBS), ids);
+         pipeline.hMGet(key(STATES), ids);
+      });
+      List<byte[]> executionsBytes = (List<byte[]>) results.get(0);
+      List<byte[]> statesBytes = (List<byte[]>) results.get(1);
+      if (isEmpty(executionsBytes)) {
+         return emptyList();
+      }
+      Assert.isTrue(executionsBytes.size() == idsBytes.size() && statesBytes.size() == idsBytes.size(),
+            "Precondition violated: Redis response has the expected length.");
+
+      return IntStream.range(0, ids.length)
+            .mapToObj(i -> parseExecution(executionsBytes.get(i), statesBytes.get(i)))
+            .filter(Objects::nonNull)
+            .collect(toList());
+   }
+
    @Override
    public int cleanUp() {
       return redis.execute((RedisConnection connection) -> {
@@ -193,7 +866,7 @@ public class FifoDaoImpl extends AbstractDao implements FifoDao {
             return 0;
          }
 
-         connection.hDel(key(JOBS), toDelete);
+         delete(connection, Arrays.asList(toDelete));
          return toDelete.length;
       });
    }
@@ -217,36 +890,107 @@ public class FifoDaoImpl extends AbstractDao implements FifoDao {
 
    @Override
    public Execution pop(String queue, String worker) {
+      return tryPop(queue, worker).getExecution();
+   }
+
+   @Override
+   @SuppressWarnings("unchecked")
+   public PopResult tryPop(String queue, String worker) {
       return redis.execute((RedisConnection connection) -> {
-         byte[] idBytes = connection.lPop(key(QUEUE, queue));
-         if (idBytes == null) {
-            return null;
-         }
-         connection.lPush(key(INFLIGHT, worker, queue), idBytes);
+         List<Object> result;
+         do {
+            result = POP.eval(connection, ReturnType.MULTI, 11,
+                  key(QUEUE, queue), key(INFLIGHT, worker, queue), key(JOBS), key(STATES), key(INDEX),
+                  statusKey(ExecutionStatus.QUEUED), statusKey(ExecutionStatus.RUNNING), key(PAUSED),
+                  key(LIMITS), key(PERMITS, queue), key(TOMBSTONES),
+                  value(MAX_SKIPS), indexValue(ExecutionStatus.RUNNING, queue), value(System.currentTimeMillis()),
+                  value(queue), value(worker), value(permitLeaseMillis));
+            // Continue, if just cancelled jobs have been discarded.
+         } while (isResult(result, SKIPPED));
 
-         byte[] executionBytes = connection.hGet(key(JOBS), idBytes);
-         if (executionBytes == null) {
-            return null;
+         if (isResult(result, PAUSED_QUEUE)) {
+            return PopResult.PAUSED;
+         }
+         if (isResult(result, NO_PERMIT)) {
+            return PopResult.NO_PERMIT;
+         }
+         if (isEmpty(result)) {
+            return PopResult.EMPTY;
          }
 
-         return parseExecution(executionBytes);
+         return PopResult.job(parseExecution((byte[]) result.get(1), (byte[]) result.get(2)));
       });
    }
 
+   /**
+    * Is the result of {@link #POP} the given marker?.
+    *
+    * @param result
+    *           Result of {@link #POP}.
+    * @param marker
+    *           Marker.
+    */
+   private boolean isResult(List<Object> result, byte[] marker) {
+      return result != null && result.size() == 1 && Arrays.equals(marker, (byte[]) result.get(0));
+   }
+
    @Override
-   public void removeInflight(String queue, String worker) {
-      redis.execute((RedisConnection connection) -> {
-         connection.lPop(key(INFLIGHT, worker, queue));
-         return null;
+   public void pause(String queue, boolean pause) {
+      redis.execute((RedisConnection connection) -> pause ?
+            connection.sAdd(key(PAUSED), value(queue)) :
+            connection.sRem(key(PAUSED), value(queue)));
+   }
+
+   @Override
+   public Set<String> getPausedQueues() {
+      return redis.execute((RedisConnection connection) -> connection.sMembers(key(PAUSED)).stream()
+            .map(this::parseString)
+            .collect(toSet()));
+   }
+
+   @Override
+   public void limit(String queue, int limit) {
+      redis.execute((RedisConnection connection) -> limit > 0 ?
+            connection.hSet(key(LIMITS), value(queue), value(limit)) :
+            connection.hDel(key(LIMITS), value(queue)));
+   }
+
+   @Override
+   public Map<String, Integer> getLimits() {
+      return redis.execute((RedisConnection connection) -> {
+         Map<String, Integer> limits = new HashMap<>();
+         connection.hGetAll(key(LIMITS)).forEach((queue, limit) ->
+               limits.put(parseString(queue), parseLong(limit).intValue()));
+         return limits;
       });
    }
 
+   @Override
+   public boolean renewPermit(String queue, String worker) {
+      Long result = redis.execute((RedisConnection connection) -> RENEW_PERMIT.eval(connection, ReturnType.INTEGER, 1,
+            key(PERMITS, queue), value(worker), value(permitLeaseMillis)));
+      return result != null && result > 0;
+   }
+
+   @Override
+   public void removeInflight(String queue, String worker) {
+      redis.execute((RedisConnection connection) -> REMOVE_INFLIGHT.eval(connection, ReturnType.STATUS, 2,
+            key(INFLIGHT, worker, queue), key(PERMITS, queue), value(worker)));
+   }
+
    @Override
    public void restoreInflight(String queue, String worker) {
       redis.execute((RedisConnection connection) -> {
          byte[] idBytes = connection.lPop(key(INFLIGHT, worker, queue));
+         // Release permit, even if there is no inflight job, e.g. after the restart of a crashed worker.
+         connection.zRem(key(PERMITS, queue), value(worker));
          if (idBytes != null) {
-            connection.lPush(key(QUEUE, queue), idBytes);
+            pipeline(connection, pipeline -> {
+               pipeline.lPush(key(QUEUE, queue), idBytes);
+               pipeline.hSet(key(INDEX), idBytes, indexValue(ExecutionStatus.QUEUED, queue));
+               pipeline.zRem(statusKey(ExecutionStatus.RUNNING), idBytes);
+               pipeline.zAdd(statusKey(ExecutionStatus.QUEUED), System.currentTimeMillis(), idBytes);
+            });
          }
          return null;
       });
@@ -256,22 +1000,7 @@ public class FifoDaoImpl extends AbstractDao implements FifoDao {
    public List<Execution> getInflight(String queue, String worker) {
       return redis.execute((RedisConnection connection) -> {
          List<byte[]> idsBytes = connection.lRange(key(INFLIGHT, worker, queue), 0, -1);
-         if (isEmpty(idsBytes)) {
-            return emptyList();
-         }
-
-         // Lookup all executions for all ids at once.
-         List<byte[]> executionsBytes = connection.hMGet(key(JOBS), idsBytes.toArray(new byte[idsBytes.size()][]));
-         if (isEmpty(executionsBytes)) {
-            return emptyList();
-         }
-         Assert.isTrue(executionsBytes.size() == idsBytes.size(),
-               "Precondition violated: Redis response has the expected length.");
-
-         return executionsBytes.stream()
-               .map(this::parseExecution)
-               .filter(Objects::nonNull)
-               .collect(toList());
+         return getAll(connection, idsBytes);
       });
    }
 
@@ -279,6 +1008,17 @@ public class FifoDaoImpl extends AbstractDao implements FifoDao {
    // Serialization.
    //
 
+   /**
+    * Key of the status set of the given status.
+    *
+    * @param status
+    *           Status.
+    * @return Key.
+    */
+   protected byte[] statusKey(ExecutionStatus status) {
+      return key(STATUS, status.name().toLowerCase());
+   }
+
    /**
     * Serialize execution.
     *
@@ -290,10 +1030,71 @@ public class FifoDaoImpl extends AbstractDao implements FifoDao {
       return executions.serialize(execution);
    }
 
+   /**
+    * Serialize mutable state of execution.
+    *
+    * @param execution
+    *           Execution.
+    * @return Serialized state of execution.
+    */
+   protected byte[] stateValue(Execution execution) {
+      return executions.serializeState(execution);
+   }
+
+   /**
+    * Serialize change of execution.
+    *
+    * @param type
+    *           Type of change.
+    * @param execution
+    *           Execution.
+    * @return Serialized change.
+    */
+   protected byte[] value(Type type, Execution execution) {
+      return changes.serialize(new ExecutionChange(type, execution.getId(), execution.getQueue()));
+   }
+
+   /**
+    * Serialize index entry.
+    *
+    * @param status
+    *           Status of execution.
+    * @param queue
+    *           Queue of execution.
+    * @return Serialized index entry.
+    */
+   protected byte[] indexValue(ExecutionStatus status, String queue) {
+      return value(status.name().toLowerCase() + ":" + queue);
+   }
+
    //
    // Deserialization.
    //
 
+   /**
+    * Deserialize status of index entry.
+    *
+    * @param indexBytes
+    *           Index entry.
+    * @return Status or null, if no index entry has been given.
+    */
+   protected ExecutionStatus parseIndexStatus(byte[] indexBytes) {
+      String index = parseString(indexBytes);
+      return index != null ? ExecutionStatus.valueOf(index.substring(0, index.indexOf(':')).toUpperCase()) : null;
+   }
+
+   /**
+    * Deserialize queue of index entry.
+    *
+    * @param indexBytes
+    *           Index entry.
+    * @return Queue or null, if no index entry has been given.
+    */
+   protected String parseIndexQueue(byte[] indexBytes) {
+      String index = parseString(indexBytes);
+      return index != null ? index.substring(index.indexOf(':') + 1) : null;
+   }
+
    /**
     * Deserialize long value.
     *
@@ -305,6 +1106,28 @@ public class FifoDaoImpl extends AbstractDao implements FifoDao {
       return executions.deserialize(executionBytes);
    }
 
+   /**
+    * Deserialize execution and restore its mutable state.
+    *
+    * @param executionBytes
+    *           Execution.
+    * @param stateBytes
+    *           Mutable state of execution. May be null, e.g. if the job has not been started yet.
+    * @return Deserialized execution or null, if no execution has been given.
+    */
+   protected Execution parseExecution(byte[] executionBytes, byte[] stateBytes) {
+      Execution execution = parseExecution(executionBytes);
+      if (execution == null) {
+         return null;
+      }
+
+      ExecutionState state = executions.deserializeState(stateBytes);
+      if (state != null) {
+         execution.restore(state);
+      }
+      return execution;
+   }
+
    //
    // Injections.
    //
@@ -322,4 +1145,17 @@ public class FifoDaoImpl extends AbstractDao implements FifoDao {
    public void setExecutions(ExecutionRedisSerializer executions) {
       this.executions = executions;
    }
+
+   @Override
+   public long getPermitLeaseMillis() {
+      return permitLeaseMillis;
+   }
+
+   /**
+    * Lease time of permits of queues with a concurrency limit in milliseconds. Defaults to 30 seconds.
+    * Workers renew their permits after a third of the lease time. Permits of crashed workers are reclaimed after it.
+    */
+   public void setPermitLeaseMillis(long permitLeaseMillis) {
+      this.permitLeaseMillis = permitLeaseMillis;
+   }
 }
@@ -5,16 +5,38 @@ import com.s24.redjob.worker.Worker;
 import org.springframework.util.Assert;
 
 import javax.annotation.PostConstruct;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Default implementation of {@link Worker} for queues based on a Redis list.
  */
 public class FifoWorker extends AbstractQueueWorker {
+   /**
+    * Scheduler renewing the permits of all workers for queues with a concurrency limit.
+    */
+   private static final ScheduledExecutorService permitRenewer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "Permit renewal");
+      thread.setDaemon(true);
+      return thread;
+   });
+
    /**
     * Queue dao.
     */
    private FifoDao fifoDao;
 
+   /**
+    * Renewal of the permit for the queue of the current job. Null, if no job is being executed.
+    * Just accessed by the worker thread.
+    */
+   private ScheduledFuture<?> permitRenewal;
+
    /**
     * Init.
     */
@@ -36,6 +58,11 @@ public class FifoWorker extends AbstractQueueWorker {
       return fifoDao.pop(queue, name);
    }
 
+   @Override
+   protected PopResult tryPollQueue(String queue) throws Throwable {
+      return fifoDao.tryPop(queue, name);
+   }
+
    @Override
    protected void removeInflight(String queue) throws Throwable {
       fifoDao.removeInflight(queue, name);
@@ -46,11 +73,74 @@ public class FifoWorker extends AbstractQueueWorker {
       fifoDao.restoreInflight(queue, name);
    }
 
+   @Override
+   protected void begin(Execution execution) {
+      fifoDao.start(execution);
+      schedulePermitRenewal(execution.getQueue());
+   }
+
+   @Override
+   protected void finish(Execution execution) {
+      cancelPermitRenewal();
+      fifoDao.finish(execution);
+   }
+
+   /**
+    * Renew the permit for the queue regularly while executing a job,
+    * so that permits of long running jobs do not expire and permits of crashed workers do.
+    *
+    * @param queue
+    *           Queue name.
+    */
+   private void schedulePermitRenewal(String queue) {
+      long interval = Math.max(fifoDao.getPermitLeaseMillis() / 3, 1);
+      AtomicReference<ScheduledFuture<?>> renewal = new AtomicReference<>();
+      renewal.set(permitRenewer.scheduleWithFixedDelay(() -> renewPermit(queue, renewal),
+            interval, interval, TimeUnit.MILLISECONDS));
+      permitRenewal = renewal.get();
+   }
+
+   /**
+    * Renew the permit for the queue. Stops renewing, if the queue is not limited.
+    *
+    * @param queue
+    *           Queue name.
+    * @param renewal
+    *           The renewal.
+    */
+   private void renewPermit(String queue, AtomicReference<ScheduledFuture<?>> renewal) {
+      try {
+         if (!fifoDao.renewPermit(queue, name)) {
+            // No permit held, e.g. because the queue is not limited.
+            renewal.get().cancel(false);
+         }
+      } catch (Exception e) {
+         // Retry with the next renewal.
+         log.error("Failed to renew permit for queue {}: {}", queue, e.getMessage());
+      }
+   }
+
+   /**
+    * Stop renewing the permit for the queue of the current job, if any.
+    */
+   private void cancelPermitRenewal() {
+      ScheduledFuture<?> renewal = permitRenewal;
+      if (renewal != null) {
+         renewal.cancel(false);
+         permitRenewal = null;
+      }
+   }
+
    @Override
    public void update(Execution execution) {
       fifoDao.update(execution);
    }
 
+   @Override
+   public List<Execution> update(Collection<Execution> executions) {
+      return fifoDao.update(executions);
+   }
+
    //
    // Injections.
    //
@@ -13,7 +13,7 @@ public class FifoWorkerFactoryBean extends AbstractWorkerFactoryBean<FifoWorker>
    /**
     * Queue dao.
     */
-   private FifoDaoImpl fifoDao;
+   private FifoDao fifoDao;
 
    /**
     * Should worker start paused?. Defaults to false.
@@ -42,14 +42,14 @@ public class FifoWorkerFactoryBean extends AbstractWorkerFactoryBean<FifoWorker>
    /**
     * Queue dao.
     */
-   public FifoDaoImpl getFifoDao() {
+   public FifoDao getFifoDao() {
       return fifoDao;
    }
 
    /**
     * Queue dao.
     */
-   public void setFifoDao(FifoDaoImpl fifoDao) {
+   public void setFifoDao(FifoDao fifoDao) {
       this.fifoDao = fifoDao;
    }
 
@@ -87,4 +87,19 @@ public class FifoWorkerFactoryBean extends AbstractWorkerFactoryBean<FifoWorker>
    public void setStartPaused(boolean startPaused) {
       this.startPaused = startPaused;
    }
+
+   /**
+    * Interval for checking whether paused queues have been unpaused, in milliseconds. Defaults to 1 second.
+    */
+   public long getPausedQueuesSleepMillis() {
+      return worker.getPausedQueuesSleepMillis();
+   }
+
+   /**
+    * Interval for checking whether paused queues have been unpaused, in milliseconds. Defaults to 1 second.
+    * Used, if all queues of the worker have been paused.
+    */
+   public void setPausedQueuesSleepMillis(long pausedQueuesSleepMillis) {
+      worker.setPausedQueuesSleepMillis(pausedQueuesSleepMillis);
+   }
 }
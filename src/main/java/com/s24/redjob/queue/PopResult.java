@@ -0,0 +1,134 @@
+package com.s24.redjob.queue;
+
+import com.s24.redjob.worker.Execution;
+
+import java.util.Objects;
+
+import org.springframework.util.Assert;
+
+/**
+ * Result of popping a job from a queue.
+ */
+public final class PopResult {
+   /**
+    * Outcome of popping a job from a queue.
+    */
+   public enum Status {
+      /**
+       * A job has been popped.
+       */
+      JOB,
+
+      /**
+       * The queue is empty.
+       */
+      EMPTY,
+
+      /**
+       * The queue is paused.
+       */
+      PAUSED,
+
+      /**
+       * The concurrency limit of the queue has been reached, so the worker did not get a permit.
+       */
+      NO_PERMIT
+   }
+
+   /**
+    * The queue is empty.
+    */
+   public static final PopResult EMPTY = new PopResult(Status.EMPTY, null);
+
+   /**
+    * The queue is paused.
+    */
+   public static final PopResult PAUSED = new PopResult(Status.PAUSED, null);
+
+   /**
+    * The concurrency limit of the queue has been reached.
+    */
+   public static final PopResult NO_PERMIT = new PopResult(Status.NO_PERMIT, null);
+
+   /**
+    * Outcome.
+    */
+   private final Status status;
+
+   /**
+    * Popped job execution. Null, if no job has been popped.
+    */
+   private final Execution execution;
+
+   /**
+    * Constructor.
+    *
+    * @param status
+    *           Outcome.
+    * @param execution
+    *           Popped job execution. Null, if no job has been popped.
+    */
+   private PopResult(Status status, Execution execution) {
+      this.status = status;
+      this.execution = execution;
+   }
+
+   /**
+    * A job has been popped.
+    *
+    * @param execution
+    *           Popped job execution.
+    */
+   public static PopResult job(Execution execution) {
+      Assert.notNull(execution, "Precondition violated: execution != null.");
+      return new PopResult(Status.JOB, execution);
+   }
+
+   /**
+    * Result for the given job execution, if any.
+    *
+    * @param execution
+    *           Popped job execution or null, if the queue is empty.
+    */
+   public static PopResult of(Execution execution) {
+      return execution != null ? job(execution) : EMPTY;
+   }
+
+   /**
+    * Outcome.
+    */
+   public Status getStatus() {
+      return status;
+   }
+
+   /**
+    * Popped job execution. Null, if no job has been popped.
+    */
+   public Execution getExecution() {
+      return execution;
+   }
+
+   /**
+    * Has the queue been paused?.
+    */
+   public boolean isPaused() {
+      return status == Status.PAUSED;
+   }
+
+   @Override
+   public boolean equals(Object o) {
+      return o instanceof PopResult &&
+            status == ((PopResult) o).status &&
+            Objects.equals(execution, ((PopResult) o).execution);
+   }
+
+   @Override
+   public int hashCode() {
+      return Objects.hash(status, execution);
+   }
+
+   @Override
+   public String toString() {
+      return execution != null ? status + ": " + execution.getId() : status.toString();
+   }
+}
@@ -0,0 +1,86 @@
+package com.s24.redjob.queue;
+
+import java.time.Duration;
+
+import org.springframework.util.Assert;
+
+/**
+ * Statistics of a queue.
+ */
+public class QueueStats {
+   /**
+    * Queue name.
+    */
+   private final String queue;
+
+   /**
+    * Number of job ids in the queue.
+    */
+   private final long length;
+
+   /**
+    * Number of jobs popped from the queue, which are currently being executed by workers.
+    */
+   private final long inflight;
+
+   /**
+    * Time the job at the head of the queue has been waiting since being enqueued.
+    */
+   private final Duration oldestAge;
+
+   /**
+    * Constructor.
+    *
+    * @param queue
+    *           Queue name.
+    * @param length
+    *           Number of job ids in the queue.
+    * @param inflight
+    *           Number of jobs popped from the queue, which are currently being executed by workers.
+    * @param oldestAge
+    *           Time the job at the head of the queue has been waiting since being enqueued.
+    *           Null, if the queue is empty.
+    */
+   public QueueStats(String queue, long length, long inflight, Duration oldestAge) {
+      Assert.notNull(queue, "Precondition violated: queue != null.");
+
+      this.queue = queue;
+      this.length = length;
+      this.inflight = inflight;
+      this.oldestAge = oldestAge;
+   }
+
+   /**
+    * Queue name.
+    */
+   public String getQueue() {
+      return queue;
+   }
+
+   /**
+    * Number of queued jobs. Ids of cancelled jobs, which have not been discarded by workers yet, are not counted.
+    */
+   public long getLength() {
+      return length;
+   }
+
+   /**
+    * Number of jobs popped from the queue, which are currently being executed by workers.
+    */
+   public long getInflight() {
+      return inflight;
+   }
+
+   /**
+    * Time the first not cancelled job of the queue has been waiting since being enqueued.
+    * Null, if the queue is empty or too many cancelled jobs are in front of it.
+    */
+   public Duration getOldestAge() {
+      return oldestAge;
+   }
+
+   @Override
+   public String toString() {
+      return queue + ": " + length + " queued, " + inflight + " inflight, oldest " + oldestAge;
+   }
+}
@@ -3,6 +3,8 @@ package com.s24.redjob.queue;
 import com.s24.redjob.worker.Execution;
 import com.s24.redjob.worker.Worker;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -34,4 +36,16 @@ public interface QueueWorker extends Worker {
     *           Execution.
     */
    void update(Execution execution);
+
+   /**
+    * Update all executions, whose state changed since their last update.
+    *
+    * @param executions
+    *           Executions.
+    * @return Executions that have been updated.
+    */
+   default List<Execution> update(Collection<Execution> executions) {
+      executions.forEach(this::update);
+      return new ArrayList<>(executions);
+   }
 }
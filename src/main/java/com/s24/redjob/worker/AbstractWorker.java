@@ -6,6 +6,7 @@ import com.s24.redjob.worker.events.JobProcess;
 import com.s24.redjob.worker.events.JobSkipped;
 import com.s24.redjob.worker.events.JobStart;
 import com.s24.redjob.worker.events.JobSuccess;
+import com.s24.redjob.worker.events.ListenerAwareEventMulticaster;
 import com.s24.redjob.worker.events.WorkerEvent;
 import com.s24.redjob.worker.events.WorkerStopping;
 import com.s24.redjob.worker.execution.ExecutionStrategy;
@@ -15,13 +16,17 @@ import java.lang.management.ManagementFactory;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.regex.Pattern;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.BeanFactory;
 import org.springframework.beans.factory.DisposableBean;
+import org.springframework.context.ApplicationEvent;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.ApplicationEventPublisherAware;
+import org.springframework.context.support.AbstractApplicationContext;
 import org.springframework.util.Assert;
 import org.springframework.util.StringUtils;
 
@@ -75,6 +80,17 @@ public abstract class AbstractWorker<S extends WorkerState> implements Worker, A
     */
    protected long emptyQueuesSleepMillis = DEFAULT_EMPTY_QUEUE_SLEEP_MILLIS;
 
+   /**
+    * Default: Number of milliseconds after which changed job counters of the worker state get written.
+    */
+   public static final int DEFAULT_STATE_FLUSH_MILLIS = 1000;
+
+   /**
+    * Number of milliseconds after which changed job counters of the worker state get written.
+    * State transitions get written immediately. Defaults to {@value #DEFAULT_STATE_FLUSH_MILLIS}.
+    */
+   protected long stateFlushMillis = DEFAULT_STATE_FLUSH_MILLIS;
+
    /**
     * Should worker run?.
     */
@@ -85,11 +101,21 @@ public abstract class AbstractWorker<S extends WorkerState> implements Worker, A
     */
    protected final S state;
 
+   /**
+    * Persister of the worker state.
+    */
+   private WorkerStatePersister statePersister;
+
    /**
     * Event bus.
     */
    protected ApplicationEventPublisher eventBus;
 
+   /**
+    * Multicaster of the event bus, if it tells whether an event type has listeners at all.
+    */
+   private ListenerAwareEventMulticaster multicaster;
+
    /**
     * Constructor.
     *
@@ -109,6 +135,7 @@ public abstract class AbstractWorker<S extends WorkerState> implements Worker, A
    public void afterPropertiesSet() throws Exception {
       Assert.notNull(executionStrategy, "Precondition violated: executionStrategy != null.");
       Assert.isTrue(emptyQueuesSleepMillis > 0, "Precondition violated: emptyQueuesSleepMillis > 0.");
+      Assert.isTrue(stateFlushMillis > 0, "Precondition violated: stateFlushMillis > 0.");
       Assert.notNull(eventBus, "Precondition violated: eventBus != null.");
 
       id = IDS.incrementAndGet();
@@ -117,6 +144,44 @@ public abstract class AbstractWorker<S extends WorkerState> implements Worker, A
       } else {
          name = createName();
       }
+      statePersister = new WorkerStatePersister(workerDao, name, state, stateFlushMillis);
+      multicaster = findMulticaster();
+   }
+
+   /**
+    * Find the {@link ListenerAwareEventMulticaster} of the application context, if any.
+    */
+   private ListenerAwareEventMulticaster findMulticaster() {
+      if (!(eventBus instanceof BeanFactory)) {
+         return null;
+      }
+
+      BeanFactory beanFactory = (BeanFactory) eventBus;
+      String name = AbstractApplicationContext.APPLICATION_EVENT_MULTICASTER_BEAN_NAME;
+      if (!beanFactory.containsBean(name)) {
+         return null;
+      }
+      Object multicaster = beanFactory.getBean(name);
+      return multicaster instanceof ListenerAwareEventMulticaster ? (ListenerAwareEventMulticaster) multicaster : null;
+   }
+
+   /**
+    * Publish an event, if anybody listens to its type.
+    *
+    * @param type
+    *       Event type.
+    * @param event
+    *       Creates the event. Not called, if nobody listens.
+    * @return The published event or null, if it has not been published.
+    */
+   protected <E extends ApplicationEvent> E publishEvent(Class<E> type, Supplier<E> event) {
+      if (multicaster != null && !multicaster.hasListeners(type)) {
+         return null;
+      }
+
+      E result = event.get();
+      eventBus.publishEvent(result);
+      return result;
    }
 
    @Override
@@ -173,14 +238,10 @@ public abstract class AbstractWorker<S extends WorkerState> implements Worker, A
    }
 
    /**
-    * Save worker state.
+    * Save worker state immediately.
     */
    protected void saveWorkerState() {
-      try {
-         workerDao.state(name, this.state);
-      } catch (Exception e) {
-         log.error("Failed to set worker state to {}.", state);
-      }
+      statePersister.transition();
    }
 
    @Override
@@ -226,11 +287,10 @@ public abstract class AbstractWorker<S extends WorkerState> implements Worker, A
          throw new IllegalArgumentException("Missing job.");
       }
 
-      JobProcess jobProcess = new JobProcess(this, queue, execution);
-      eventBus.publishEvent(jobProcess);
-      if (jobProcess.isVeto()) {
+      JobProcess jobProcess = publishEvent(JobProcess.class, () -> new JobProcess(this, queue, execution));
+      if (jobProcess != null && jobProcess.isVeto()) {
          log.debug("Job processing vetoed.");
-         eventBus.publishEvent(new JobSkipped(this, queue, execution));
+         publishEvent(JobSkipped.class, () -> new JobSkipped(this, queue, execution));
          return true;
       }
 
@@ -249,11 +309,10 @@ public abstract class AbstractWorker<S extends WorkerState> implements Worker, A
     *       In case of errors.
     */
    protected void execute(String queue, Execution execution) throws Throwable {
-      JobExecute jobExecute = new JobExecute(this, queue, execution);
-      eventBus.publishEvent(jobExecute);
-      if (jobExecute.isVeto()) {
+      JobExecute jobExecute = publishEvent(JobExecute.class, () -> new JobExecute(this, queue, execution));
+      if (jobExecute != null && jobExecute.isVeto()) {
          log.debug("Job execution vetoed.");
-         eventBus.publishEvent(new JobSkipped(this, queue, execution));
+         publishEvent(JobSkipped.class, () -> new JobSkipped(this, queue, execution));
          return;
       }
 
@@ -261,7 +320,9 @@ public abstract class AbstractWorker<S extends WorkerState> implements Worker, A
          execution.start(getName());
          run(queue, execution);
       } finally {
-         execution.stop();
+         if (execution.isRunning()) {
+            execution.stop();
+         }
       }
    }
 
@@ -275,20 +336,24 @@ public abstract class AbstractWorker<S extends WorkerState> implements Worker, A
     */
    protected void run(String queue, Execution execution) {
       log.debug("Starting job.");
-      eventBus.publishEvent(new JobStart(this, queue, execution));
+      publishEvent(JobStart.class, () -> new JobStart(this, queue, execution));
+      long start = System.nanoTime();
       try {
          executionStrategy.execute(queue, execution);
+         // Stop execution before publishing the result, so that the end of the execution gets saved too.
+         execution.stop();
          log.debug("Job succeeded.");
-         state.incSuccess();
-         saveWorkerState();
-         workerDao.success(name);
-         eventBus.publishEvent(new JobSuccess(this, queue, execution));
+         state.incSuccess(System.nanoTime() - start);
+         statePersister.changed();
+         workerDao.success(name, execution);
+         publishEvent(JobSuccess.class, () -> new JobSuccess(this, queue, execution));
       } catch (Throwable cause) {
+         execution.fail();
          log.warn("Job failed.", cause);
-         state.incFailed();
-         saveWorkerState();
-         workerDao.failure(name);
-         eventBus.publishEvent(new JobFailure(this, queue, execution, cause));
+         state.incFailed(System.nanoTime() - start);
+         statePersister.changed();
+         workerDao.failure(name, execution);
+         publishEvent(JobFailure.class, () -> new JobFailure(this, queue, execution, cause));
          throw new IllegalArgumentException("Job failed.", cause);
       } finally {
          log.debug("Job finished.", name, execution.getId());
@@ -365,6 +430,22 @@ public abstract class AbstractWorker<S extends WorkerState> implements Worker, A
       this.emptyQueuesSleepMillis = emptyQueuesSleepMillis;
    }
 
+   /**
+    * Number of milliseconds after which changed job counters of the worker state get written.
+    * State transitions get written immediately. Defaults to {@value #DEFAULT_STATE_FLUSH_MILLIS}.
+    */
+   public long getStateFlushMillis() {
+      return stateFlushMillis;
+   }
+
+   /**
+    * Number of milliseconds after which changed job counters of the worker state get written.
+    * State transitions get written immediately. Defaults to {@value #DEFAULT_STATE_FLUSH_MILLIS}.
+    */
+   public void setStateFlushMillis(long stateFlushMillis) {
+      this.stateFlushMillis = stateFlushMillis;
+   }
+
    @Override
    public void setApplicationEventPublisher(ApplicationEventPublisher eventBus) {
       this.eventBus = eventBus;
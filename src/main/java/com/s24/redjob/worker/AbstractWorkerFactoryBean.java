@@ -204,6 +204,22 @@ public abstract class AbstractWorkerFactoryBean<W extends AbstractWorker>
       worker.setEmptyQueuesSleepMillis(emptyQueuesSleepMillis);
    }
 
+   /**
+    * Number of milliseconds after which changed job counters of the worker state get written.
+    * State transitions get written immediately. Defaults to {@value AbstractWorker#DEFAULT_STATE_FLUSH_MILLIS}.
+    */
+   public long getStateFlushMillis() {
+      return worker.getStateFlushMillis();
+   }
+
+   /**
+    * Number of milliseconds after which changed job counters of the worker state get written.
+    * State transitions get written immediately. Defaults to {@value AbstractWorker#DEFAULT_STATE_FLUSH_MILLIS}.
+    */
+   public void setStateFlushMillis(long stateFlushMillis) {
+      worker.setStateFlushMillis(stateFlushMillis);
+   }
+
    @Override
    public void setApplicationEventPublisher(ApplicationEventPublisher eventBus) {
       this.worker.setApplicationEventPublisher(eventBus);
@@ -5,6 +5,7 @@ import java.time.Instant;
 import org.springframework.util.Assert;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonInclude.Include;
 import com.fasterxml.jackson.annotation.JsonProperty;
@@ -78,6 +79,20 @@ public class Execution {
    @JsonProperty(value = "end", required = false)
    private Instant end;
 
+   /**
+    * Redis key to write the execution to, after it has been processed.
+    * Used for replies to channel jobs. Null, if no reply is requested.
+    */
+   @JsonInclude(value = Include.NON_NULL)
+   @JsonProperty(value = "replyTo", required = false)
+   private String replyTo;
+
+   /**
+    * Has the execution failed?.
+    * Part of the mutable state, so not stored with the execution.
+    */
+   private boolean failed;
+
    /**
     * Constructor.
     *
@@ -211,6 +226,7 @@ public class Execution {
       start = Instant.now();
       // In case of restarts, reset end timestamp.
       end = null;
+      failed = false;
    }
 
    /**
@@ -234,6 +250,14 @@ public class Execution {
       end = Instant.now();
    }
 
+   /**
+    * End execution with a failure.
+    */
+   public void fail() {
+      stop();
+      failed = true;
+   }
+
    /**
     * End of execution.
     */
@@ -241,6 +265,46 @@ public class Execution {
       return end;
    }
 
+   /**
+    * Redis key to write the execution to, after it has been processed.
+    * Used for replies to channel jobs. Null, if no reply is requested.
+    */
+   public String getReplyTo() {
+      return replyTo;
+   }
+
+   /**
+    * Redis key to write the execution to, after it has been processed.
+    * Used for replies to channel jobs. Null, if no reply is requested.
+    */
+   public void setReplyTo(String replyTo) {
+      this.replyTo = replyTo;
+   }
+
+   /**
+    * Has the execution failed?.
+    */
+   @JsonIgnore
+   public boolean isFailed() {
+      return failed;
+   }
+
+   /**
+    * Restore the mutable state of this execution, e.g. after loading it from Redis.
+    *
+    * @param state
+    *           State of execution.
+    */
+   public void restore(ExecutionState state) {
+      Assert.notNull(state, "Precondition violated: state != null.");
+
+      this.result = state.getResult();
+      this.worker = state.getWorker();
+      this.start = state.getStart();
+      this.end = state.getEnd();
+      this.failed = state.isFailed();
+   }
+
    @Override
    public boolean equals(Object o) {
       return o instanceof Execution &&
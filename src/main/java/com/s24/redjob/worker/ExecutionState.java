@@ -0,0 +1,120 @@
+package com.s24.redjob.worker;
+
+import java.time.Instant;
+
+import org.springframework.util.Assert;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.annotation.JsonTypeInfo.As;
+import com.fasterxml.jackson.annotation.JsonTypeInfo.Id;
+
+/**
+ * Mutable state of a job {@link Execution}.
+ * Stored as JSON in Redis separately from the execution, which does not change after enqueueing.
+ */
+public class ExecutionState {
+   /**
+    * Job result.
+    */
+   @JsonProperty(value = "result", required = true)
+   @JsonTypeInfo(use = Id.NAME, include = As.EXTERNAL_PROPERTY, property = "resultType")
+   private final Object result;
+
+   /**
+    * Worker processing the execution.
+    */
+   @JsonInclude(value = Include.NON_NULL)
+   @JsonProperty(value = "worker", required = false)
+   private final String worker;
+
+   /**
+    * Start of execution.
+    */
+   @JsonInclude(value = Include.NON_NULL)
+   @JsonProperty(value = "start", required = false)
+   private final Instant start;
+
+   /**
+    * End of execution.
+    */
+   @JsonInclude(value = Include.NON_NULL)
+   @JsonProperty(value = "end", required = false)
+   private final Instant end;
+
+   /**
+    * Has the execution failed?.
+    */
+   @JsonInclude(value = Include.NON_DEFAULT)
+   @JsonProperty(value = "failed", required = false)
+   private final boolean failed;
+
+   /**
+    * Constructor capturing the current state of the given execution.
+    *
+    * @param execution
+    *           Execution.
+    */
+   public ExecutionState(Execution execution) {
+      this(execution.getResult(), execution.getWorker(), execution.getStart(), execution.getEnd(),
+            execution.isFailed());
+   }
+
+   /**
+    * Hidden constructor for Jackson.
+    */
+   @JsonCreator
+   ExecutionState(
+         @JsonProperty(value = "result", required = true) Object result,
+         @JsonProperty(value = "worker", required = false) String worker,
+         @JsonProperty(value = "start", required = false) Instant start,
+         @JsonProperty(value = "end", required = false) Instant end,
+         @JsonProperty(value = "failed", required = false) boolean failed) {
+      Assert.notNull(result, "Precondition violated: result != null.");
+
+      this.result = result;
+      this.worker = worker;
+      this.start = start;
+      this.end = end;
+      this.failed = failed;
+   }
+
+   /**
+    * Job result.
+    */
+   @SuppressWarnings("unchecked")
+   public <R> R getResult() {
+      return (R) result;
+   }
+
+   /**
+    * Worker processing the execution.
+    */
+   public String getWorker() {
+      return worker;
+   }
+
+   /**
+    * Start of execution.
+    */
+   public Instant getStart() {
+      return start;
+   }
+
+   /**
+    * End of execution.
+    */
+   public Instant getEnd() {
+      return end;
+   }
+
+   /**
+    * Has the execution failed?.
+    */
+   public boolean isFailed() {
+      return failed;
+   }
+}
@@ -0,0 +1,101 @@
+package com.s24.redjob.worker;
+
+import java.time.Instant;
+
+import org.springframework.util.Assert;
+
+/**
+ * Number of jobs of one type finished in one queue during one minute, summed up over all workers.
+ */
+public class Throughput {
+   /**
+    * Start of the minute.
+    */
+   private final Instant minute;
+
+   /**
+    * Queue name.
+    */
+   private final String queue;
+
+   /**
+    * Job type.
+    */
+   private final String jobType;
+
+   /**
+    * Number of successfully processed jobs.
+    */
+   private final long processed;
+
+   /**
+    * Number of failed jobs.
+    */
+   private final long failed;
+
+   /**
+    * Constructor.
+    *
+    * @param minute
+    *           Start of the minute.
+    * @param queue
+    *           Queue name.
+    * @param jobType
+    *           Job type.
+    * @param processed
+    *           Number of successfully processed jobs.
+    * @param failed
+    *           Number of failed jobs.
+    */
+   public Throughput(Instant minute, String queue, String jobType, long processed, long failed) {
+      Assert.notNull(minute, "Precondition violated: minute != null.");
+      Assert.notNull(queue, "Precondition violated: queue != null.");
+      Assert.notNull(jobType, "Precondition violated: jobType != null.");
+
+      this.minute = minute;
+      this.queue = queue;
+      this.jobType = jobType;
+      this.processed = processed;
+      this.failed = failed;
+   }
+
+   /**
+    * Start of the minute.
+    */
+   public Instant getMinute() {
+      return minute;
+   }
+
+   /**
+    * Queue name.
+    */
+   public String getQueue() {
+      return queue;
+   }
+
+   /**
+    * Job type: The JSON type name of the job, or its fully qualified class name, if it has none.
+    */
+   public String getJobType() {
+      return jobType;
+   }
+
+   /**
+    * Number of successfully processed jobs.
+    */
+   public long getProcessed() {
+      return processed;
+   }
+
+   /**
+    * Number of failed jobs.
+    */
+   public long getFailed() {
+      return failed;
+   }
+
+   @Override
+   public String toString() {
+      return minute + " " + queue + " " + jobType + ": " + processed + " processed, " + failed + " failed";
+   }
+}
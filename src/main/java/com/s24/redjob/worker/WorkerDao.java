@@ -1,5 +1,7 @@
 package com.s24.redjob.worker;
 
+import java.time.Instant;
+import java.util.List;
 import java.util.Set;
 
 import com.s24.redjob.Dao;
@@ -36,19 +38,59 @@ public interface WorkerDao extends Dao {
     *
     * @param name
     *           Name of worker.
+    * @deprecated Use {@link #success(String, Execution)}, which counts the throughput too.
     */
-   void success(String name);
+   @Deprecated
+   default void success(String name) {
+      success(name, null);
+   }
+
+   /**
+    * Job has been successfully been processed.
+    *
+    * @param name
+    *           Name of worker.
+    * @param execution
+    *           Execution of the job. Null, if unknown: Then the throughput is not counted.
+    */
+   void success(String name, Execution execution);
+
+   /**
+    * Job execution failed.
+    *
+    * @param name
+    *           Name of worker.
+    * @deprecated Use {@link #failure(String, Execution)}, which counts the throughput too.
+    */
+   @Deprecated
+   default void failure(String name) {
+      failure(name, null);
+   }
 
    /**
     * Job execution failed.
     *
     * @param name
     *           Name of worker.
+    * @param execution
+    *           Execution of the job. Null, if unknown: Then the throughput is not counted.
     */
-   void failure(String name);
+   void failure(String name, Execution execution);
 
    /**
     * Names of all active workers.
     */
    Set<String> names();
+
+   /**
+    * Throughput per minute, queue and job type of all workers in the given time window.
+    * Minutes older than the retention of the throughput counters are omitted.
+    *
+    * @param from
+    *           Start of the time window (inclusive).
+    * @param to
+    *           End of the time window (inclusive).
+    * @return Throughput ordered by minute, queue and job type. Minutes without finished jobs are omitted.
+    */
+   List<Throughput> throughput(Instant from, Instant to);
 }
@@ -2,19 +2,32 @@ package com.s24.redjob.worker;
 
 import static java.util.stream.Collectors.toSet;
 
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 
 import javax.annotation.PostConstruct;
 
 import org.springframework.data.redis.RedisConnectionFailureException;
 import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.ReturnType;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
 import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
 
+import com.fasterxml.jackson.annotation.JsonTypeName;
 import com.s24.redjob.AbstractDao;
+import com.s24.redjob.LuaScript;
 
 /**
  * Default implementation of {@link WorkerDao}.
@@ -50,6 +63,26 @@ public class WorkerDaoImpl extends AbstractDao implements WorkerDao {
     */
    public static final String FAILED = "failed";
 
+   /**
+    * Redis key part for throughput buckets: Hashes per minute.
+    */
+   public static final String THROUGHPUT = "throughput";
+
+   /**
+    * Lua script to increment the lifetime counters and the throughput counter of the current minute at once.
+    */
+   private static final LuaScript COUNT = new LuaScript(
+         "redis.call('incr', KEYS[1]); " +
+         "redis.call('incr', KEYS[2]); " +
+         "redis.call('hincrby', KEYS[3], ARGV[1], 1); " +
+         "redis.call('expire', KEYS[3], ARGV[2]); " +
+         "return 1;");
+
+   /**
+    * Retention of the throughput buckets in minutes. Defaults to 1 day.
+    */
+   private int throughputRetentionMinutes = 24 * 60;
+
    /**
     * Redis access.
     */
@@ -110,25 +143,64 @@ public class WorkerDaoImpl extends AbstractDao implements WorkerDao {
    }
 
    @Override
-   public void success(String name) {
+   public void success(String name, Execution execution) {
       Assert.notNull(name, "Precondition violated: name != null.");
 
-      redis.execute((RedisConnection connection) -> {
-         connection.incr(key(STAT, PROCESSED));
-         connection.incr(key(STAT, PROCESSED, name));
-         return null;
-      });
+      count(name, PROCESSED, execution);
    }
 
    @Override
-   public void failure(String name) {
+   public void failure(String name, Execution execution) {
       Assert.notNull(name, "Precondition violated: name != null.");
 
-      redis.execute((RedisConnection connection) -> {
-         connection.incr(key(STAT, FAILED));
-         connection.incr(key(STAT, FAILED, name));
-         return null;
-      });
+      count(name, FAILED, execution);
+   }
+
+   /**
+    * Increment the lifetime counters and the throughput counter of the current minute in one round trip.
+    *
+    * @param name
+    *           Name of worker.
+    * @param result
+    *           {@link #PROCESSED} or {@link #FAILED}.
+    * @param execution
+    *           Execution of the job. Null, if unknown: Then just the lifetime counters are incremented.
+    */
+   private void count(String name, String result, Execution execution) {
+      if (execution == null) {
+         redis.execute((RedisConnection connection) -> pipeline(connection, pipeline -> {
+            pipeline.incr(key(STAT, result));
+            pipeline.incr(key(STAT, result, name));
+         }));
+         return;
+      }
+
+      redis.execute((RedisConnection connection) -> COUNT.eval(connection, ReturnType.INTEGER, 3,
+            key(STAT, result), key(STAT, result, name), throughputKey(Instant.now().getEpochSecond() / 60),
+            value(throughputField(result, jobType(execution), execution.getQueue())),
+            value(throughputRetentionMinutes * 60L)));
+   }
+
+   /**
+    * Field of a throughput bucket: Result, job type and queue, each URL encoded and joined with ':'.
+    * The encoding escapes colons in job types and queue names.
+    */
+   private String throughputField(String result, String jobType, String queue) {
+      return encode(result) + ":" + encode(jobType) + ":" + encode(queue);
+   }
+
+   /**
+    * URL encode a part of a throughput field.
+    */
+   private static String encode(String part) {
+      return URLEncoder.encode(part, StandardCharsets.UTF_8);
+   }
+
+   /**
+    * URL decode a part of a throughput field.
+    */
+   private static String decode(String part) {
+      return URLDecoder.decode(part, StandardCharsets.UTF_8);
    }
 
    @Override
@@ -141,6 +213,75 @@ public class WorkerDaoImpl extends AbstractDao implements WorkerDao {
       });
    }
 
+   @Override
+   public List<Throughput> throughput(Instant from, Instant to) {
+      Assert.notNull(from, "Precondition violated: from != null.");
+      Assert.notNull(to, "Precondition violated: to != null.");
+
+      long oldest = Instant.now().getEpochSecond() / 60 - throughputRetentionMinutes;
+      long first = Math.max(from.getEpochSecond() / 60, oldest);
+      long last = to.getEpochSecond() / 60;
+      if (first > last) {
+         return new ArrayList<>();
+      }
+
+      return redis.execute((RedisConnection connection) -> {
+         List<Object> buckets = pipeline(connection, pipeline -> {
+            for (long minute = first; minute <= last; minute++) {
+               pipeline.hGetAll(throughputKey(minute));
+            }
+         });
+
+         List<Throughput> result = new ArrayList<>();
+         for (int i = 0; i < buckets.size(); i++) {
+            Instant minute = Instant.ofEpochSecond((first + i) * 60);
+            // Keys are job type and queue, sorted by queue and job type. Values are processed and failed counts.
+            Map<List<String>, long[]> counts = new TreeMap<>(
+                  Comparator.<List<String>, String> comparing(k -> k.get(1)).thenComparing(k -> k.get(0)));
+            @SuppressWarnings("unchecked")
+            Map<byte[], byte[]> bucket = (Map<byte[], byte[]>) buckets.get(i);
+            bucket.forEach((field, value) -> {
+               // result:jobType:queue, each part URL encoded, so that colons in the parts are escaped.
+               String[] parts = parseString(field).split(":");
+               if (parts.length != 3) {
+                  return;
+               }
+               long[] count = counts.computeIfAbsent(List.of(decode(parts[1]), decode(parts[2])), k -> new long[2]);
+               count[PROCESSED.equals(decode(parts[0])) ? 0 : 1] += parseLong(value);
+            });
+            counts.forEach((k, count) -> result.add(new Throughput(minute, k.get(1), k.get(0), count[0], count[1])));
+         }
+         return result;
+      });
+   }
+
+   /**
+    * Key of the throughput bucket of the given minute.
+    *
+    * @param minute
+    *           Minutes since the epoch.
+    */
+   private byte[] throughputKey(long minute) {
+      return key(THROUGHPUT, Long.toString(minute));
+   }
+
+   /**
+    * Job type of the execution: The JSON type name of the job, like resolved by the job runner factories.
+    * Falls back to the fully qualified class name for jobs without a {@link JsonTypeName}.
+    */
+   private String jobType(Execution execution) {
+      Object job = execution.getJob();
+      if (job == null) {
+         return "unknown";
+      }
+
+      JsonTypeName type = job.getClass().getAnnotation(JsonTypeName.class);
+      if (type == null) {
+         return job.getClass().getName();
+      }
+      return StringUtils.hasLength(type.value()) ? type.value() : job.getClass().getSimpleName();
+   }
+
    //
    // Serialization.
    //
@@ -155,4 +296,22 @@ public class WorkerDaoImpl extends AbstractDao implements WorkerDao {
    protected byte[] value(LocalDateTime value) {
       return value(value.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
    }
+
+   //
+   // Injections.
+   //
+
+   /**
+    * Retention of the throughput buckets in minutes. Defaults to 1 day.
+    */
+   public int getThroughputRetentionMinutes() {
+      return throughputRetentionMinutes;
+   }
+
+   /**
+    * Retention of the throughput buckets in minutes. Defaults to 1 day.
+    */
+   public void setThroughputRetentionMinutes(int throughputRetentionMinutes) {
+      this.throughputRetentionMinutes = throughputRetentionMinutes;
+   }
 }
@@ -1,6 +1,13 @@
 package com.s24.redjob.worker;
 
 import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
 
 import static java.util.Arrays.stream;
 
@@ -51,12 +58,28 @@ public class WorkerState {
    /**
     * Successful job executions.
     */
-   private int success = 0;
+   private final LongAdder success = new LongAdder();
 
    /**
     * Failed job executions.
     */
-   private int failed = 0;
+   private final LongAdder failed = new LongAdder();
+
+   /**
+    * Total time spent executing jobs in nanoseconds.
+    */
+   private final LongAdder busyNanos = new LongAdder();
+
+   /**
+    * End of the last job execution.
+    */
+   private volatile LocalDateTime lastJob;
+
+   /**
+    * Lock for consistent snapshots of the job statistics.
+    * Job executions take the (shared) read lock, snapshots the (exclusive) write lock.
+    */
+   private final ReadWriteLock stats = new ReentrantReadWriteLock();
 
    /**
     * Start worker.
@@ -156,41 +179,98 @@ public class WorkerState {
     * Increase number of successful job executions.
     */
    public void incSuccess() {
-      success++;
+      incSuccess(0);
+   }
+
+   /**
+    * Increase number of successful job executions.
+    *
+    * @param busyNanos
+    *           Duration of the job execution in nanoseconds.
+    */
+   public void incSuccess(long busyNanos) {
+      finished(success, busyNanos);
    }
 
    /**
     * Successful job executions.
     */
-   public int getSuccess() {
-      return success;
+   @JsonIgnore
+   public long getSuccess() {
+      return success.sum();
    }
 
    /**
     * Successful job executions.
     */
-   void setSuccess(int success) {
-      this.success = success;
+   void setSuccess(long success) {
+      this.success.reset();
+      this.success.add(success);
    }
 
    /**
     * Increase number of failed job executions.
     */
    public void incFailed() {
-      failed++;
+      incFailed(0);
+   }
+
+   /**
+    * Increase number of failed job executions.
+    *
+    * @param busyNanos
+    *           Duration of the job execution in nanoseconds.
+    */
+   public void incFailed(long busyNanos) {
+      finished(failed, busyNanos);
    }
 
    /**
     * Failed job executions.
     */
-   public int getFailed() {
-      return failed;
+   @JsonIgnore
+   public long getFailed() {
+      return failed.sum();
    }
 
    /**
     * Failed job executions.
     */
-   void setFailed(int failed) {
-      this.failed = failed;
+   void setFailed(long failed) {
+      this.failed.reset();
+      this.failed.add(failed);
+   }
+
+   /**
+    * Record a finished job execution.
+    *
+    * @param counter
+    *           Counter to increment.
+    * @param busyNanos
+    *           Duration of the job execution in nanoseconds.
+    */
+   private void finished(LongAdder counter, long busyNanos) {
+      stats.readLock().lock();
+      try {
+         counter.increment();
+         this.busyNanos.add(busyNanos);
+         this.lastJob = LocalDateTime.now();
+      } finally {
+         stats.readLock().unlock();
+      }
+   }
+
+   /**
+    * Consistent snapshot of the job statistics.
+    * Serialized inline, so the JSON contains the fields of {@link WorkerStats}.
+    */
+   @JsonUnwrapped
+   public WorkerStats getStats() {
+      stats.writeLock().lock();
+      try {
+         return new WorkerStats(success.sum(), failed.sum(), TimeUnit.NANOSECONDS.toMillis(busyNanos.sum()), lastJob);
+      } finally {
+         stats.writeLock().unlock();
+      }
    }
 }
@@ -0,0 +1,142 @@
+package com.s24.redjob.worker;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
+
+/**
+ * Persists the {@link WorkerState} of one worker.
+ * State transitions are written immediately.
+ * Counter changes are coalesced and written at most once per flush interval,
+ * so that executing jobs does not cost extra Redis writes for the status page.
+ */
+class WorkerStatePersister {
+   /**
+    * Logger.
+    */
+   private static final Logger log = LoggerFactory.getLogger(WorkerStatePersister.class);
+
+   /**
+    * Scheduler flushing the counter changes of all workers.
+    */
+   private static final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "Worker state flusher");
+      thread.setDaemon(true);
+      return thread;
+   });
+
+   /**
+    * Worker dao.
+    */
+   private final WorkerDao workerDao;
+
+   /**
+    * Name of the worker.
+    */
+   private final String name;
+
+   /**
+    * Worker state.
+    */
+   private final WorkerState state;
+
+   /**
+    * Flush interval for counter changes in milliseconds.
+    */
+   private final long flushMillis;
+
+   /**
+    * Have there been counter changes since the last write?.
+    */
+   private final AtomicBoolean dirty = new AtomicBoolean(false);
+
+   /**
+    * Scheduled flush. Null, if not scheduled yet.
+    */
+   private ScheduledFuture<?> flush;
+
+   /**
+    * Constructor.
+    *
+    * @param workerDao
+    *           Worker dao.
+    * @param name
+    *           Name of the worker.
+    * @param state
+    *           Worker state.
+    * @param flushMillis
+    *           Flush interval for counter changes in milliseconds.
+    */
+   WorkerStatePersister(WorkerDao workerDao, String name, WorkerState state, long flushMillis) {
+      Assert.notNull(workerDao, "Precondition violated: workerDao != null.");
+      Assert.notNull(name, "Precondition violated: name != null.");
+      Assert.notNull(state, "Precondition violated: state != null.");
+      Assert.isTrue(flushMillis > 0, "Precondition violated: flushMillis > 0.");
+
+      this.workerDao = workerDao;
+      this.name = name;
+      this.state = state;
+      this.flushMillis = flushMillis;
+   }
+
+   /**
+    * The state changed: Write it immediately.
+    */
+   void transition() {
+      dirty.set(false);
+      save();
+      schedule();
+   }
+
+   /**
+    * Just counters changed: Write them with the next flush.
+    */
+   void changed() {
+      dirty.set(true);
+   }
+
+   /**
+    * Write counter changes, if any.
+    * Terminated workers are not written anymore, because their state gets deleted when stopping.
+    */
+   synchronized void flush() {
+      if (state.isTerminated()) {
+         // Resumed by the next transition.
+         if (flush != null) {
+            flush.cancel(false);
+            flush = null;
+         }
+         return;
+      }
+
+      if (dirty.getAndSet(false)) {
+         save();
+      }
+   }
+
+   /**
+    * Write the state.
+    */
+   private synchronized void save() {
+      try {
+         workerDao.state(name, state);
+      } catch (Exception e) {
+         log.error("Failed to set worker state to {}.", state);
+      }
+   }
+
+   /**
+    * Schedule flushes, if not done yet.
+    */
+   private synchronized void schedule() {
+      if (flush == null) {
+         flush = flusher.scheduleWithFixedDelay(this::flush, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+      }
+   }
+}
@@ -0,0 +1,80 @@
+package com.s24.redjob.worker;
+
+import java.time.LocalDateTime;
+
+/**
+ * Consistent snapshot of the job statistics of a worker.
+ */
+public class WorkerStats {
+   /**
+    * Successful job executions.
+    */
+   private final long success;
+
+   /**
+    * Failed job executions.
+    */
+   private final long failed;
+
+   /**
+    * Total time spent executing jobs in milliseconds.
+    */
+   private final long busyMillis;
+
+   /**
+    * End of the last job execution. Null, if no job has been executed yet.
+    */
+   private final LocalDateTime lastJob;
+
+   /**
+    * Constructor.
+    *
+    * @param success
+    *           Successful job executions.
+    * @param failed
+    *           Failed job executions.
+    * @param busyMillis
+    *           Total time spent executing jobs in milliseconds.
+    * @param lastJob
+    *           End of the last job execution. Null, if no job has been executed yet.
+    */
+   public WorkerStats(long success, long failed, long busyMillis, LocalDateTime lastJob) {
+      this.success = success;
+      this.failed = failed;
+      this.busyMillis = busyMillis;
+      this.lastJob = lastJob;
+   }
+
+   /**
+    * Successful job executions.
+    */
+   public long getSuccess() {
+      return success;
+   }
+
+   /**
+    * Failed job executions.
+    */
+   public long getFailed() {
+      return failed;
+   }
+
+   /**
+    * Total time spent executing jobs in milliseconds.
+    */
+   public long getBusyMillis() {
+      return busyMillis;
+   }
+
+   /**
+    * End of the last job execution. Null, if no job has been executed yet.
+    */
+   public LocalDateTime getLastJob() {
+      return lastJob;
+   }
+
+   @Override
+   public String toString() {
+      return success + " succeeded, " + failed + " failed, " + busyMillis + " ms busy, last job " + lastJob;
+   }
+}
@@ -0,0 +1,310 @@
+package com.s24.redjob.worker.events;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.ResolvableType;
+import org.springframework.util.Assert;
+
+/**
+ * {@link ListenerAwareEventMulticaster} which delivers the configured event types asynchronously through a bounded
+ * queue, so that slow listeners do not slow down the workers.
+ * By default just the informational worker lifecycle events, e.g. {@link WorkerStart} or {@link WorkerPause},
+ * are delivered asynchronously. Veto events and all other application events are always delivered synchronously.
+ * <p>
+ * With the default of one delivery thread, each listener receives the events in the order they have been published.
+ * </p>
+ * <p>
+ * To enable, register it as bean named
+ * {@value org.springframework.context.support.AbstractApplicationContext#APPLICATION_EVENT_MULTICASTER_BEAN_NAME}.
+ * </p>
+ */
+public class AsyncEventMulticaster extends ListenerAwareEventMulticaster {
+   /**
+    * Logger.
+    */
+   private static final Logger log = LoggerFactory.getLogger(AsyncEventMulticaster.class);
+
+   /**
+    * What to do with events, if the queue is full.
+    */
+   public enum OverflowPolicy {
+      /**
+       * Deliver the event synchronously in the publishing thread.
+       */
+      CALLER_RUNS,
+
+      /**
+       * Wait until the queue has space for the event.
+       */
+      BLOCK,
+
+      /**
+       * Drop the event.
+       */
+      DISCARD
+   }
+
+   /**
+    * Event types which are delivered asynchronously. Defaults to the informational worker lifecycle events.
+    */
+   private Set<Class<? extends ApplicationEvent>> asyncEventTypes = new LinkedHashSet<>(Arrays.asList(
+         WorkerStart.class, WorkerPause.class, WorkerStopping.class, WorkerStopped.class));
+
+   /**
+    * Number of delivery threads. Defaults to 1.
+    */
+   private int threads = 1;
+
+   /**
+    * Capacity of the event queue. Defaults to 10000.
+    */
+   private int queueCapacity = 10_000;
+
+   /**
+    * What to do with events, if the queue is full. Defaults to {@link OverflowPolicy#CALLER_RUNS}.
+    */
+   private OverflowPolicy overflowPolicy = OverflowPolicy.CALLER_RUNS;
+
+   /**
+    * Max time to wait for the delivery of queued events on shutdown in milliseconds. Defaults to 5 seconds.
+    */
+   private long shutdownTimeoutMillis = 5_000;
+
+   /**
+    * Number of dropped events.
+    */
+   private final LongAdder discarded = new LongAdder();
+
+   /**
+    * Executor for the delivery.
+    */
+   private ThreadPoolExecutor executor;
+
+   /**
+    * Init.
+    */
+   @PostConstruct
+   public void afterPropertiesSet() {
+      Assert.notNull(asyncEventTypes, "Precondition violated: asyncEventTypes != null.");
+      Assert.isTrue(threads > 0, "Precondition violated: threads > 0.");
+      Assert.isTrue(queueCapacity > 0, "Precondition violated: queueCapacity > 0.");
+      Assert.notNull(overflowPolicy, "Precondition violated: overflowPolicy != null.");
+      Assert.isTrue(shutdownTimeoutMillis >= 0, "Precondition violated: shutdownTimeoutMillis >= 0.");
+
+      AtomicInteger ids = new AtomicInteger();
+      executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            runnable -> {
+               Thread thread = new Thread(runnable, "Worker event delivery " + ids.incrementAndGet());
+               thread.setDaemon(true);
+               return thread;
+            },
+            overflowHandler());
+   }
+
+   /**
+    * Handler for events that do not fit into the queue anymore.
+    */
+   private RejectedExecutionHandler overflowHandler() {
+      return (delivery, executor) -> {
+         if (executor.isShutdown()) {
+            // Late events during shutdown.
+            delivery.run();
+            return;
+         }
+
+         switch (overflowPolicy) {
+            case BLOCK:
+               try {
+                  executor.getQueue().put(delivery);
+               } catch (InterruptedException e) {
+                  Thread.currentThread().interrupt();
+                  log.warn("Interrupted while waiting for the delivery of an event. Event dropped.");
+                  discarded.increment();
+               }
+               break;
+            case DISCARD:
+               log.warn("Event queue is full. Event dropped.");
+               discarded.increment();
+               break;
+            default:
+               delivery.run();
+         }
+      };
+   }
+
+   /**
+    * Deliver queued events and stop the delivery threads.
+    */
+   @PreDestroy
+   public void destroy() throws InterruptedException {
+      if (executor == null) {
+         return;
+      }
+
+      executor.shutdown();
+      if (!executor.awaitTermination(shutdownTimeoutMillis, TimeUnit.MILLISECONDS)) {
+         log.warn("Dropped {} undelivered events on shutdown.", executor.shutdownNow().size());
+      }
+   }
+
+   @Override
+   public void multicastEvent(ApplicationEvent event, ResolvableType eventType) {
+      if (executor == null || !isAsync(event)) {
+         super.multicastEvent(event, eventType);
+         return;
+      }
+
+      ResolvableType type = eventType != null ? eventType : ResolvableType.forInstance(event);
+      Collection<ApplicationListener<?>> listeners = getApplicationListeners(event, type);
+      if (listeners.isEmpty()) {
+         return;
+      }
+
+      executor.execute(() -> deliver(event, listeners));
+   }
+
+   /**
+    * Deliver event asynchronously?.
+    * Veto events are never delivered asynchronously, because the publisher evaluates the veto after the delivery.
+    *
+    * @param event
+    *           Event.
+    */
+   protected boolean isAsync(ApplicationEvent event) {
+      return !(event instanceof VetoEvent) &&
+            asyncEventTypes.stream().anyMatch(type -> type.isInstance(event));
+   }
+
+   /**
+    * Deliver an event to all its listeners.
+    * Failures of a listener are logged and do not affect other listeners.
+    *
+    * @param event
+    *           Event.
+    * @param listeners
+    *           Listeners for the event.
+    */
+   private void deliver(ApplicationEvent event, Collection<ApplicationListener<?>> listeners) {
+      for (ApplicationListener<?> listener : listeners) {
+         try {
+            invokeListener(listener, event);
+         } catch (Exception e) {
+            log.error("Failed to deliver event {} to {}.", event, listener, e);
+         }
+      }
+   }
+
+   /**
+    * Number of events waiting for delivery.
+    */
+   public int getQueued() {
+      return executor != null ? executor.getQueue().size() : 0;
+   }
+
+   /**
+    * Number of events dropped because of a full queue.
+    */
+   public long getDiscarded() {
+      return discarded.sum();
+   }
+
+   //
+   // Injections.
+   //
+
+   /**
+    * Event types which are delivered asynchronously. Defaults to the informational worker lifecycle events.
+    */
+   public Set<Class<? extends ApplicationEvent>> getAsyncEventTypes() {
+      return asyncEventTypes;
+   }
+
+   /**
+    * Event types which are delivered asynchronously. Defaults to the informational worker lifecycle events.
+    * <p>
+    * E.g. add {@link JobSuccess} and {@link JobFailure} for slow audit listeners.
+    * Asynchronous listeners of job events receive the execution after the worker may have changed it further,
+    * so they should just read the already final state of {@link JobFinished} events.
+    * {@link com.s24.redjob.listener.ExecutionResultUpdateListener} needs the job events
+    * and the vetoed polls meter of {@link com.s24.redjob.micrometer.RedJobMeters} needs {@link WorkerNext}
+    * in the worker thread, so do not add these events when using them.
+    * </p>
+    */
+   public void setAsyncEventTypes(Collection<Class<? extends ApplicationEvent>> asyncEventTypes) {
+      this.asyncEventTypes = new LinkedHashSet<>(asyncEventTypes);
+   }
+
+   /**
+    * Number of delivery threads. Defaults to 1.
+    */
+   public int getThreads() {
+      return threads;
+   }
+
+   /**
+    * Number of delivery threads. Defaults to 1.
+    * With more than one thread, listeners may receive the events out of order.
+    */
+   public void setThreads(int threads) {
+      this.threads = threads;
+   }
+
+   /**
+    * Capacity of the event queue. Defaults to 10000.
+    */
+   public int getQueueCapacity() {
+      return queueCapacity;
+   }
+
+   /**
+    * Capacity of the event queue. Defaults to 10000.
+    */
+   public void setQueueCapacity(int queueCapacity) {
+      this.queueCapacity = queueCapacity;
+   }
+
+   /**
+    * What to do with events, if the queue is full. Defaults to {@link OverflowPolicy#CALLER_RUNS}.
+    */
+   public OverflowPolicy getOverflowPolicy() {
+      return overflowPolicy;
+   }
+
+   /**
+    * What to do with events, if the queue is full. Defaults to {@link OverflowPolicy#CALLER_RUNS}.
+    */
+   public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+      this.overflowPolicy = overflowPolicy;
+   }
+
+   /**
+    * Max time to wait for the delivery of queued events on shutdown in milliseconds. Defaults to 5 seconds.
+    */
+   public long getShutdownTimeoutMillis() {
+      return shutdownTimeoutMillis;
+   }
+
+   /**
+    * Max time to wait for the delivery of queued events on shutdown in milliseconds. Defaults to 5 seconds.
+    */
+   public void setShutdownTimeoutMillis(long shutdownTimeoutMillis) {
+      this.shutdownTimeoutMillis = shutdownTimeoutMillis;
+   }
+}
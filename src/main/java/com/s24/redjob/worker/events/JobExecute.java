@@ -11,7 +11,7 @@ import org.springframework.util.Assert;
 /**
  * Worker executes a job. Can be vetoed. Veto leads to {@link JobSkipped} event.
  */
-public class JobExecute extends ApplicationEvent implements JobEvent {
+public class JobExecute extends ApplicationEvent implements JobEvent, VetoEvent {
    /**
     * Worker.
     */
@@ -71,6 +71,7 @@ public class JobExecute extends ApplicationEvent implements JobEvent {
    /**
     * Veto against execution of the job.
     */
+   @Override
    public void veto() {
       this.veto = true;
    }
@@ -78,6 +79,7 @@ public class JobExecute extends ApplicationEvent implements JobEvent {
    /**
     * Has been vetoed against execution of the job?.
     */
+   @Override
    public boolean isVeto() {
       return veto;
    }
@@ -10,7 +10,7 @@ import java.util.Objects;
 /**
  * Worker processes a job.
  */
-public class JobProcess extends ApplicationEvent implements JobEvent {
+public class JobProcess extends ApplicationEvent implements JobEvent, VetoEvent {
    /**
     * Worker.
     */
@@ -70,6 +70,7 @@ public class JobProcess extends ApplicationEvent implements JobEvent {
    /**
     * Veto against execution of the job.
     */
+   @Override
    public void veto() {
       this.veto = true;
    }
@@ -77,6 +78,7 @@ public class JobProcess extends ApplicationEvent implements JobEvent {
    /**
     * Has been vetoed against execution of the job?.
     */
+   @Override
    public boolean isVeto() {
       return veto;
    }
@@ -0,0 +1,83 @@
+package com.s24.redjob.worker.events;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.SimpleApplicationEventMulticaster;
+import org.springframework.context.support.AbstractApplicationContext;
+import org.springframework.core.ResolvableType;
+
+/**
+ * {@link SimpleApplicationEventMulticaster} which tells workers whether anybody listens to an event type at all,
+ * so that they do not need to create and publish events nobody is interested in,
+ * e.g. {@link WorkerPoll} and {@link WorkerNext} for every poll of an idle queue.
+ * <p>
+ * To enable, register it as bean named {@value AbstractApplicationContext#APPLICATION_EVENT_MULTICASTER_BEAN_NAME}.
+ * </p>
+ */
+public class ListenerAwareEventMulticaster extends SimpleApplicationEventMulticaster {
+   /**
+    * Is there any listener for an event type?.
+    * Cleared whenever listeners get added or removed.
+    */
+   private final Map<Class<?>, Boolean> listened = new ConcurrentHashMap<>();
+
+   /**
+    * Is there any listener for the given event type?.
+    * Listener conditions are not evaluated, because they depend on the concrete event.
+    *
+    * @param eventType
+    *           Event type.
+    */
+   public boolean hasListeners(Class<? extends ApplicationEvent> eventType) {
+      Boolean result = listened.get(eventType);
+      if (result == null) {
+         result = computeListened(eventType);
+      }
+      return result;
+   }
+
+   /**
+    * Check all listeners for the given event type and cache the result.
+    * Synchronized with changes of the listeners, to avoid caching stale results.
+    */
+   private synchronized boolean computeListened(Class<? extends ApplicationEvent> eventType) {
+      ResolvableType type = ResolvableType.forClass(eventType);
+      boolean result = getApplicationListeners().stream()
+            .anyMatch(listener -> supportsEvent(listener, type, null));
+      listened.put(eventType, result);
+      return result;
+   }
+
+   @Override
+   public synchronized void addApplicationListener(ApplicationListener<?> listener) {
+      super.addApplicationListener(listener);
+      listened.clear();
+   }
+
+   @Override
+   public synchronized void addApplicationListenerBean(String listenerBeanName) {
+      super.addApplicationListenerBean(listenerBeanName);
+      listened.clear();
+   }
+
+   @Override
+   public synchronized void removeApplicationListener(ApplicationListener<?> listener) {
+      super.removeApplicationListener(listener);
+      listened.clear();
+   }
+
+   @Override
+   public synchronized void removeApplicationListenerBean(String listenerBeanName) {
+      super.removeApplicationListenerBean(listenerBeanName);
+      listened.clear();
+   }
+
+   @Override
+   public synchronized void removeAllListeners() {
+      super.removeAllListeners();
+      listened.clear();
+   }
+}
@@ -0,0 +1,17 @@
+package com.s24.redjob.worker.events;
+
+/**
+ * Event which allows listeners to veto against the next step of a worker.
+ * These events are always delivered synchronously, because the worker evaluates the veto after publishing them.
+ */
+public interface VetoEvent {
+   /**
+    * Veto against the next step of the worker.
+    */
+   void veto();
+
+   /**
+    * Has been vetoed against the next step of the worker?.
+    */
+   boolean isVeto();
+}
@@ -9,7 +9,7 @@ import java.util.Objects;
 /**
  * Worker polls one of its queues.
  */
-public class WorkerPoll extends ApplicationEvent implements WorkerEvent, QueueEvent {
+public class WorkerPoll extends ApplicationEvent implements WorkerEvent, QueueEvent, VetoEvent {
    /**
     * Worker.
     */
@@ -58,6 +58,7 @@ public class WorkerPoll extends ApplicationEvent implements WorkerEvent, QueueEv
    /**
     * Veto against execution of the job.
     */
+   @Override
    public void veto() {
       this.veto = true;
    }
@@ -65,6 +66,7 @@ public class WorkerPoll extends ApplicationEvent implements WorkerEvent, QueueEv
    /**
     * Has been vetoed against execution of the job?.
     */
+   @Override
    public boolean isVeto() {
       return veto;
    }
@@ -14,6 +14,7 @@ import org.springframework.data.redis.serializer.SerializationException;
 import com.fasterxml.jackson.databind.Module;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.s24.redjob.worker.Execution;
+import com.s24.redjob.worker.ExecutionState;
 import com.s24.redjob.worker.NoResult;
 
 /**
@@ -53,18 +54,67 @@ public class ExecutionRedisSerializer extends Jackson2JsonRedisSerializer<Execut
       try {
          return super.deserialize(bytes);
       } catch (SerializationException e) {
-         if (ignoreDeserializationFailures) {
-            if (deserializationFailuresCache.add(e.getMessage())) {
-               log.warn("Ignoring invalid JSON: {}.", e.getMessage());
-            }
-            if (deserializationFailuresCache.size() > 1000) {
-               deserializationFailuresCache.clear();
-            }
-            return null;
-         }
+         return handleDeserializationFailure(e);
+      }
+   }
+
+   /**
+    * Serialize the mutable state of the given execution.
+    *
+    * @param execution
+    *           Execution.
+    * @return Serialized state.
+    */
+   public byte[] serializeState(Execution execution) throws SerializationException {
+      if (execution == null) {
+         return new byte[0];
+      }
+
+      try {
+         return objectMapper.writeValueAsBytes(new ExecutionState(execution));
+      } catch (Exception e) {
+         throw new SerializationException("Could not write JSON: " + e.getMessage(), e);
+      }
+   }
+
+   /**
+    * Deserialize the mutable state of an execution.
+    *
+    * @param bytes
+    *           Serialized state.
+    * @return Execution state or null, if no state has been given.
+    */
+   public ExecutionState deserializeState(byte[] bytes) throws SerializationException {
+      if (bytes == null || bytes.length == 0) {
+         return null;
+      }
+
+      try {
+         return objectMapper.readValue(bytes, ExecutionState.class);
+      } catch (Exception e) {
+         return handleDeserializationFailure(new SerializationException("Could not read JSON: " + e.getMessage(), e));
+      }
+   }
 
-         throw e;
+   /**
+    * Ignore deserialization failure, if requested. Rethrow it otherwise.
+    *
+    * @param e
+    *           Deserialization failure.
+    * @return null.
+    */
+   private <T> T handleDeserializationFailure(SerializationException e) throws SerializationException {
+      if (ignoreDeserializationFailures) {
+         if (deserializationFailuresCache.add(e.getMessage())) {
+            log.warn("Ignoring invalid JSON: {}.", e.getMessage());
+         }
+         if (deserializationFailuresCache.size() > 1000) {
+            deserializationFailuresCache.clear();
+         }
+         return null;
       }
+
+      throw e;
    }
 
    /**
@@ -0,0 +1,110 @@
+package com.s24.redjob.channel;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test for {@link ChannelJobExecutor}.
+ */
+class ChannelJobExecutorTest {
+   /**
+    * Executor under test.
+    */
+   private ChannelJobExecutor executor = new ChannelJobExecutor("test", 2, 10, Map.of("Slow", 1));
+
+   /**
+    * Blocks slow jobs until released.
+    */
+   private final CountDownLatch release = new CountDownLatch(1);
+
+   @AfterEach
+   void tearDown() {
+      release.countDown();
+      executor.shutdown();
+   }
+
+   @Test
+   void concurrencyLimit() throws Exception {
+      AtomicInteger slow = new AtomicInteger();
+      CountDownLatch started = new CountDownLatch(1);
+      executor.execute("Slow", () -> {
+         slow.incrementAndGet();
+         started.countDown();
+         await();
+      });
+      executor.execute("Slow", slow::incrementAndGet);
+      assertThat(started.await(1, TimeUnit.SECONDS)).isTrue();
+
+      // Other job types are not blocked by slow jobs.
+      CountDownLatch fast = new CountDownLatch(1);
+      executor.execute("Fast", fast::countDown);
+      assertThat(fast.await(1, TimeUnit.SECONDS)).isTrue();
+
+      // Second slow job is held back until the first has been finished.
+      assertThat(slow.get()).isEqualTo(1);
+
+      release.countDown();
+      executor.awaitIdle();
+      assertThat(slow.get()).isEqualTo(2);
+      assertThat(executor.getPending()).isEqualTo(0);
+   }
+
+   @Test
+   void rejected() throws Exception {
+      ChannelJobExecutor small = new ChannelJobExecutor("small", 1, 1, Map.of("Slow", 1));
+      try {
+         CountDownLatch started = new CountDownLatch(1);
+         Runnable slow = () -> {
+            started.countDown();
+            await();
+         };
+
+         // First job runs, second job is held back, third job exceeds the capacity.
+         assertThat(small.execute("Slow", slow)).isTrue();
+         assertThat(started.await(1, TimeUnit.SECONDS)).isTrue();
+         assertThat(small.execute("Slow", () -> {})).isTrue();
+         assertThat(small.execute("Slow", () -> {})).isFalse();
+
+         // First job of other type gets queued, second one exceeds the capacity of the executor.
+         AtomicInteger fast = new AtomicInteger();
+         assertThat(small.execute("Fast", fast::incrementAndGet)).isTrue();
+         assertThat(small.execute("Fast", fast::incrementAndGet)).isFalse();
+         assertThat(small.getPending()).isEqualTo(3);
+
+         release.countDown();
+         small.awaitIdle();
+         assertThat(fast.get()).isEqualTo(1);
+      } finally {
+         small.shutdown();
+      }
+   }
+
+   @Test
+   void failure() throws Exception {
+      executor.execute("Slow", () -> {
+         throw new IllegalArgumentException("Test failure.");
+      });
+      executor.execute("Slow", () -> {});
+
+      executor.awaitIdle();
+      assertThat(executor.getPending()).isEqualTo(0);
+   }
+
+   /**
+    * Wait until slow jobs get released.
+    */
+   private void await() {
+      try {
+         release.await(10, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+      }
+   }
+}
@@ -0,0 +1,123 @@
+package com.s24.redjob.client;
+
+import com.s24.redjob.worker.Execution;
+import com.s24.redjob.worker.runner.TestJob;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test for {@link ExecutionCache}.
+ */
+class ExecutionCacheTest {
+   /**
+    * Number of loads.
+    */
+   private final AtomicInteger loads = new AtomicInteger();
+
+   @Test
+   void get() {
+      ExecutionCache cache = new ExecutionCache(10, 60_000);
+
+      Execution execution = cache.get(1, this::load);
+      assertThat(execution.getId()).isEqualTo(1);
+      assertThat(cache.get(1, this::load)).isSameAs(execution);
+      assertThat(loads).hasValue(1);
+
+      assertThat(cache.getHits()).isEqualTo(1);
+      assertThat(cache.getMisses()).isEqualTo(1);
+      assertThat(cache.getHitRate()).isEqualTo(0.5);
+   }
+
+   @Test
+   void get_notExisting() {
+      ExecutionCache cache = new ExecutionCache(10, 60_000);
+
+      assertThat(cache.get(1, id -> null)).isNull();
+      assertThat(cache.size()).isEqualTo(0);
+   }
+
+   @Test
+   void evictLeastRecentlyUsed() {
+      ExecutionCache cache = new ExecutionCache(2, 60_000);
+
+      cache.get(1, this::load);
+      cache.get(2, this::load);
+      // Access 1, so that 2 is the least recently used execution.
+      cache.get(1, this::load);
+      cache.get(3, this::load);
+      assertThat(cache.size()).isEqualTo(2);
+      assertThat(loads).hasValue(3);
+
+      cache.get(1, this::load);
+      assertThat(loads).hasValue(3);
+      cache.get(2, this::load);
+      assertThat(loads).hasValue(4);
+   }
+
+   @Test
+   void evictExpired() throws Exception {
+      ExecutionCache cache = new ExecutionCache(10, 50);
+
+      cache.get(1, this::load);
+      Thread.sleep(100);
+      cache.get(1, this::load);
+      assertThat(loads).hasValue(2);
+   }
+
+   @Test
+   void invalidate() {
+      ExecutionCache cache = new ExecutionCache(10, 60_000);
+
+      cache.get(1, this::load);
+      cache.get(2, this::load);
+      cache.invalidate(1);
+      assertThat(cache.size()).isEqualTo(1);
+      cache.get(1, this::load);
+      assertThat(loads).hasValue(3);
+
+      cache.invalidateAll();
+      assertThat(cache.size()).isEqualTo(0);
+   }
+
+   @Test
+   void invalidate_whileLoading() {
+      ExecutionCache cache = new ExecutionCache(10, 60_000);
+
+      cache.get(1, id -> {
+         cache.invalidate(id);
+         return load(id);
+      });
+      // The loaded execution may be stale, so it should not be cached.
+      assertThat(cache.size()).isEqualTo(0);
+
+      cache.get(1, id -> {
+         cache.invalidateAll();
+         return load(id);
+      });
+      assertThat(cache.size()).isEqualTo(0);
+   }
+
+   @Test
+   void invalidateOther_whileLoading() {
+      ExecutionCache cache = new ExecutionCache(10, 60_000);
+
+      cache.get(1, id -> {
+         cache.invalidate(2);
+         return load(id);
+      });
+      // Changes of other executions do not affect the loaded execution.
+      assertThat(cache.size()).isEqualTo(1);
+   }
+
+   /**
+    * Load execution.
+    */
+   private Execution load(long id) {
+      loads.incrementAndGet();
+      return new Execution("namespace", "queue", id, new TestJob());
+   }
+}
@@ -0,0 +1,90 @@
+package com.s24.redjob.lock;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.jedis.JedisConnectionFactory;
+
+/**
+ * Benchmark for the throughput of acquiring and releasing locks with {@link LockDaoImpl}.
+ * Needs the integration test Redis at localhost:16379.
+ * <p>
+ * Run {@link #main(String[])} from the IDE or with the test classpath.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class LockBenchmark {
+   /**
+    * Connection factory.
+    */
+   private JedisConnectionFactory connectionFactory;
+
+   /**
+    * DAO under test.
+    */
+   private LockDaoImpl dao;
+
+   /**
+    * Setup DAO.
+    */
+   @Setup
+   public void setUp() {
+      connectionFactory = new JedisConnectionFactory(new RedisStandaloneConfiguration("localhost", 16379));
+      connectionFactory.afterPropertiesSet();
+
+      dao = new LockDaoImpl();
+      dao.setConnectionFactory(connectionFactory);
+      dao.setNamespace("benchmark");
+      dao.afterPropertiesSet();
+   }
+
+   /**
+    * Close connections.
+    */
+   @TearDown
+   public void tearDown() {
+      connectionFactory.destroy();
+   }
+
+   /**
+    * Acquire and release a lock. Each thread uses its own lock.
+    */
+   @Benchmark
+   public boolean acquireRelease(ThreadParams thread) {
+      String lock = "lock-" + thread.getThreadIndex();
+      boolean locked = dao.tryLock(lock, "holder", 10, TimeUnit.SECONDS);
+      dao.releaseLock(lock, "holder");
+      return locked;
+   }
+
+   /**
+    * Run benchmark.
+    */
+   public static void main(String[] args) throws Exception {
+      new Runner(new OptionsBuilder()
+            .include(LockBenchmark.class.getSimpleName())
+            .build())
+            .run();
+   }
+}
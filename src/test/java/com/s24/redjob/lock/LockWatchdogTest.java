@@ -0,0 +1,143 @@
+package com.s24.redjob.lock;
+
+import com.s24.redjob.mockito.EnableMockito;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test for {@link LockWatchdog}.
+ */
+@EnableMockito
+class LockWatchdogTest {
+   /**
+    * Lock dao.
+    */
+   @Mock
+   private LockDao lockDao;
+
+   /**
+    * Watchdog under test.
+    */
+   private LockWatchdog watchdog = new LockWatchdog();
+
+   @BeforeEach
+   void setUp() {
+      watchdog.setLockDao(lockDao);
+      watchdog.setLeaseTimeMillis(60_000);
+      watchdog.afterPropertiesSet();
+   }
+
+   @AfterEach
+   void tearDown() {
+      watchdog.destroy();
+   }
+
+   @Test
+   void tryLock() {
+      when(lockDao.acquireLock("test", "holder", 60_000, TimeUnit.MILLISECONDS)).thenReturn(42L);
+
+      LockHandle handle = watchdog.tryLock("test", "holder");
+      assertThat(handle).isNotNull();
+      assertThat(handle.getToken()).isEqualTo(42);
+      assertThat(handle.isHeld()).isTrue();
+
+      handle.close();
+      assertThat(handle.isHeld()).isFalse();
+      verify(lockDao).releaseLock("test", "holder");
+   }
+
+   @Test
+   void tryLock_heldBySomeoneElse() {
+      when(lockDao.acquireLock("test", "holder", 60_000, TimeUnit.MILLISECONDS)).thenReturn(0L);
+
+      assertThat(watchdog.tryLock("test", "holder")).isNull();
+   }
+
+   @Test
+   void tryLock_heldLocally() {
+      when(lockDao.acquireLock("test", "holder", 60_000, TimeUnit.MILLISECONDS)).thenReturn(42L);
+      LockHandle handle = watchdog.tryLock("test", "holder");
+
+      // Same holder in another thread.
+      assertThat(watchdog.tryLock("test", "holder")).isNull();
+
+      handle.close();
+      assertThat(watchdog.tryLock("test", "holder")).isNotNull();
+   }
+
+   @Test
+   void lock_heldLocally() throws Exception {
+      when(lockDao.acquireLock("test", "holder", 60_000, TimeUnit.MILLISECONDS)).thenReturn(42L);
+      when(lockDao.lock(eq("test"), eq("holder"), eq(60_000), anyInt(), eq(TimeUnit.MILLISECONDS))).thenReturn(43L);
+      LockHandle handle = watchdog.tryLock("test", "holder");
+
+      // Same holder in another thread times out.
+      assertThat(watchdog.lock("test", "holder", 10, TimeUnit.MILLISECONDS)).isNull();
+
+      // Same holder in another thread waits for the release.
+      CompletableFuture<LockHandle> waiting = CompletableFuture.supplyAsync(() ->
+            watchdog.lock("test", "holder", 10, TimeUnit.SECONDS));
+      Thread.sleep(50);
+      assertThat(waiting).isNotDone();
+      handle.close();
+      assertThat(waiting.get(1, TimeUnit.SECONDS).getToken()).isEqualTo(43);
+   }
+
+   @Test
+   void renew() {
+      when(lockDao.acquireLock(any(), any(), anyInt(), any())).thenReturn(1L);
+      LockHandle test = watchdog.tryLock("test", "holder");
+      LockHandle other = watchdog.tryLock("other", "holder");
+
+      // All leases are renewed at once.
+      when(lockDao.renewLocks(anyMap(), anyInt(), any())).thenReturn(Set.of("other"));
+      watchdog.renew();
+      verify(lockDao).renewLocks(Map.of("test", "holder", "other", "holder"), 60_000, TimeUnit.MILLISECONDS);
+      assertThat(test.isHeld()).isTrue();
+      assertThat(other.isHeld()).isFalse();
+
+      // Lost locks are not released.
+      other.close();
+      verify(lockDao, never()).releaseLock("other", "holder");
+   }
+
+   @Test
+   void renew_failure() throws Exception {
+      watchdog.destroy();
+      watchdog = new LockWatchdog();
+      watchdog.setLockDao(lockDao);
+      watchdog.setLeaseTimeMillis(300);
+      watchdog.afterPropertiesSet();
+
+      when(lockDao.acquireLock(any(), any(), anyInt(), any())).thenReturn(1L);
+      LockHandle test = watchdog.tryLock("test", "holder");
+
+      // Failed renewals are retried as long as the lease has not expired.
+      when(lockDao.renewLocks(anyMap(), anyInt(), any())).thenThrow(new IllegalStateException("Test failure."));
+      watchdog.renew();
+      assertThat(test.isHeld()).isTrue();
+
+      // Without a successful renewal the lock is lost after the lease time.
+      Thread.sleep(350);
+      watchdog.renew();
+      assertThat(test.isHeld()).isFalse();
+      assertThat(watchdog.tryLock("test", "holder")).isNotNull();
+   }
+}
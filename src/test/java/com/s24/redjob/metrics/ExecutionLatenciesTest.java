@@ -0,0 +1,63 @@
+package com.s24.redjob.metrics;
+
+import com.s24.redjob.mockito.EnableMockito;
+import com.s24.redjob.worker.Execution;
+import com.s24.redjob.worker.Worker;
+import com.s24.redjob.worker.events.JobFailure;
+import com.s24.redjob.worker.events.JobStart;
+import com.s24.redjob.worker.events.JobSuccess;
+import com.s24.redjob.worker.runner.TestJob;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test for {@link ExecutionLatencies}.
+ */
+@EnableMockito
+class ExecutionLatenciesTest {
+   /**
+    * Worker.
+    */
+   @Mock
+   private Worker worker;
+
+   /**
+    * Component under test.
+    */
+   private ExecutionLatencies latencies = new ExecutionLatencies();
+
+   @Test
+   void record() throws Exception {
+      Execution execution1 = new Execution("namespace", "queue", 1, new TestJob());
+      execution1.start("worker");
+      latencies.onJobStart(new JobStart(worker, "queue", execution1));
+      Thread.sleep(10);
+      execution1.stop();
+      latencies.onJobSuccess(new JobSuccess(worker, "queue", execution1));
+
+      Execution execution2 = new Execution("namespace", "queue", 2, new TestJob());
+      execution2.start("worker");
+      latencies.onJobStart(new JobStart(worker, "queue", execution2));
+      execution2.fail();
+      latencies.onJobFailure(new JobFailure(worker, "queue", execution2, new Exception()));
+
+      List<LatencySnapshot> snapshots = latencies.snapshot(true);
+      assertThat(snapshots).hasSize(1);
+      LatencySnapshot snapshot = snapshots.get(0);
+      assertThat(snapshot.getQueue()).isEqualTo("queue");
+      assertThat(snapshot.getJobType()).isEqualTo(TestJob.class);
+      assertThat(snapshot.getWait().getCount()).isEqualTo(2);
+      assertThat(snapshot.getRun().getCount()).isEqualTo(2);
+      assertThat(snapshot.getRun().getMax()).isGreaterThanOrEqualTo(10);
+      assertThat(snapshot.getTotal().getCount()).isEqualTo(2);
+      assertThat(snapshot.getTotal().getMax()).isGreaterThanOrEqualTo(snapshot.getRun().getMax());
+
+      // Reset.
+      assertThat(latencies.snapshot(true)).isEmpty();
+   }
+}
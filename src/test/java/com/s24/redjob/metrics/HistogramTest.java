@@ -0,0 +1,67 @@
+package com.s24.redjob.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Test for {@link Histogram}.
+ */
+class HistogramTest {
+   @Test
+   void buckets() {
+      // Exact values for small values.
+      for (long value = 0; value < 16; value++) {
+         assertThat(Histogram.highestValue(Histogram.bucket(value))).isEqualTo(value);
+      }
+
+      // Bucket bounds for big values are within the relative error.
+      for (long value = 16; value > 0 && value < Long.MAX_VALUE / 2; value = value * 3 / 2) {
+         int bucket = Histogram.bucket(value);
+         assertThat(Histogram.highestValue(bucket)).isGreaterThanOrEqualTo(value);
+         assertThat(Histogram.highestValue(bucket)).isLessThan(value + value / 15);
+         if (bucket > 0) {
+            assertThat(Histogram.highestValue(bucket - 1)).isLessThan(value);
+         }
+      }
+      assertThat(Histogram.highestValue(Histogram.bucket(Long.MAX_VALUE))).isEqualTo(Long.MAX_VALUE);
+   }
+
+   @Test
+   void snapshot() {
+      Histogram histogram = new Histogram();
+      for (int i = 1; i <= 1000; i++) {
+         histogram.record(i);
+      }
+
+      HistogramSnapshot snapshot = histogram.snapshot();
+      assertThat(snapshot.getCount()).isEqualTo(1000);
+      assertThat(snapshot.getMean()).isEqualTo(500.5);
+      assertThat(snapshot.getMax()).isEqualTo(1000);
+      assertThat(snapshot.getP50()).isCloseTo(500, within(500 / 16L));
+      assertThat(snapshot.getP90()).isCloseTo(900, within(900 / 16L));
+      assertThat(snapshot.getP99()).isCloseTo(990, within(990 / 16L));
+      assertThat(snapshot.getValueAtPercentile(100)).isEqualTo(1000);
+
+      // Snapshots do not reset the histogram.
+      assertThat(histogram.snapshot().getCount()).isEqualTo(1000);
+   }
+
+   @Test
+   void snapshotAndReset() {
+      Histogram histogram = new Histogram();
+      histogram.record(-1);
+      histogram.record(10);
+
+      HistogramSnapshot snapshot = histogram.snapshotAndReset();
+      assertThat(snapshot.getCount()).isEqualTo(2);
+      assertThat(snapshot.getValueAtPercentile(0)).isEqualTo(0);
+      assertThat(snapshot.getMax()).isEqualTo(10);
+
+      HistogramSnapshot empty = histogram.snapshot();
+      assertThat(empty.getCount()).isEqualTo(0);
+      assertThat(empty.getMean()).isEqualTo(0);
+      assertThat(empty.getP99()).isEqualTo(0);
+   }
+}
@@ -0,0 +1,93 @@
+package com.s24.redjob.micrometer;
+
+import com.s24.redjob.Dao;
+import com.s24.redjob.client.ClientFactoryBean;
+import com.s24.redjob.client.ExecutionCache;
+import com.s24.redjob.mockito.EnableMockito;
+import com.s24.redjob.queue.FifoDao;
+import com.s24.redjob.worker.Execution;
+import com.s24.redjob.worker.json.TestExecutionRedisSerializer;
+import com.s24.redjob.worker.runner.TestJob;
+
+import java.util.function.UnaryOperator;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test for {@link MeteredDaoPostProcessor}.
+ */
+@EnableMockito
+class MeteredDaoPostProcessorTest {
+   /**
+    * Meter registry provider.
+    */
+   @Mock
+   private ObjectProvider<MeterRegistry> registry;
+
+   @Test
+   void clientFactoryBean() {
+      when(registry.getIfAvailable()).thenReturn(new SimpleMeterRegistry());
+      MeteredDaoPostProcessor processor = new MeteredDaoPostProcessor(registry);
+
+      ClientFactoryBean factory = new ClientFactoryBean();
+      processor.postProcessBeforeInitialization(factory, "client");
+      UnaryOperator<Dao> decorator = factory.getDaoDecorator();
+      assertThat(MeteredDao.isMetered(decorator.apply(factory.getWorkerDao()))).isTrue();
+      assertThat(MeteredDao.isMetered(decorator.apply(factory.getFifoDao()))).isTrue();
+      assertThat(MeteredDao.isMetered(decorator.apply(factory.getChannelDao()))).isTrue();
+      assertThat(MeteredDao.isMetered(decorator.apply(factory.getLockDao()))).isTrue();
+
+      // Already metered DAOs are not wrapped again.
+      Dao fifoDao = decorator.apply(factory.getFifoDao());
+      assertThat(decorator.apply(fifoDao)).isSameAs(fifoDao);
+   }
+
+   @Test
+   void executionCache() throws Exception {
+      SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+      when(registry.getIfAvailable()).thenReturn(meterRegistry);
+      MeteredDaoPostProcessor processor = new MeteredDaoPostProcessor(registry);
+
+      ClientFactoryBean factory = new ClientFactoryBean();
+      factory.setConnectionFactory(mock(RedisConnectionFactory.class));
+      factory.setNamespace("test");
+      factory.setExecutions(new TestExecutionRedisSerializer(TestJob.class));
+      factory.setListenerContainer(mock(RedisMessageListenerContainer.class));
+      factory.setCacheSize(10);
+      factory.afterPropertiesSet();
+      processor.postProcessAfterInitialization(factory, "client");
+
+      ExecutionCache cache = factory.getExecutionCache();
+      Execution execution = new Execution("test", "queue", 1, new TestJob());
+      cache.get(1, id -> execution);
+      cache.get(1, id -> execution);
+      assertThat(meterRegistry.get(RedJobMeters.CACHE_GETS).tags("namespace", "test", "result", "hit")
+            .functionCounter().count()).isEqualTo(1);
+      assertThat(meterRegistry.get(RedJobMeters.CACHE_GETS).tags("namespace", "test", "result", "miss")
+            .functionCounter().count()).isEqualTo(1);
+      assertThat(meterRegistry.get(RedJobMeters.CACHE_SIZE).tag("namespace", "test").gauge().value()).isEqualTo(1);
+
+      factory.destroy();
+   }
+
+   @Test
+   void noRegistry() {
+      MeteredDaoPostProcessor processor = new MeteredDaoPostProcessor(registry);
+
+      ClientFactoryBean factory = new ClientFactoryBean();
+      FifoDao fifoDao = factory.getFifoDao();
+      processor.postProcessBeforeInitialization(factory, "client");
+      assertThat(factory.getDaoDecorator().apply(fifoDao)).isSameAs(fifoDao);
+   }
+}
@@ -0,0 +1,154 @@
+package com.s24.redjob.micrometer;
+
+import com.s24.redjob.mockito.EnableMockito;
+import com.s24.redjob.worker.Execution;
+import com.s24.redjob.worker.Worker;
+import com.s24.redjob.worker.events.JobExecute;
+import com.s24.redjob.worker.events.JobFailure;
+import com.s24.redjob.worker.events.JobSkipped;
+import com.s24.redjob.worker.events.JobStart;
+import com.s24.redjob.worker.events.JobSuccess;
+import com.s24.redjob.worker.events.ListenerAwareEventMulticaster;
+import com.s24.redjob.worker.events.WorkerNext;
+import com.s24.redjob.worker.events.WorkerPoll;
+import com.s24.redjob.worker.events.WorkerStart;
+import com.s24.redjob.worker.events.WorkerStopped;
+import com.s24.redjob.worker.runner.TestJob;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test for {@link RedJobMeters}.
+ */
+@EnableMockito
+class RedJobMetersTest {
+   /**
+    * Worker.
+    */
+   @Mock
+   private Worker worker;
+
+   /**
+    * Meter registry.
+    */
+   private SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+   /**
+    * Component under test.
+    */
+   private RedJobMeters meters = new RedJobMeters();
+
+   @BeforeEach
+   void setUp() {
+      meters.setMeterRegistry(registry);
+      meters.afterPropertiesSet();
+   }
+
+   @Test
+   void jobs() {
+      meters.onWorkerStart(new WorkerStart(worker));
+      assertThat(registry.get(RedJobMeters.WORKERS).tag("state", "running").gauge().value()).isEqualTo(1);
+
+      Execution execution1 = new Execution("namespace", "queue", 1, new TestJob());
+      execution1.start("worker");
+      meters.onJobStart(new JobStart(worker, "queue", execution1));
+      assertThat(registry.get(RedJobMeters.JOBS_ACTIVE).gauge().value()).isEqualTo(1);
+      execution1.stop();
+      meters.onJobSuccess(new JobSuccess(worker, "queue", execution1));
+
+      Execution execution2 = new Execution("namespace", "queue", 2, new TestJob());
+      execution2.start("worker");
+      meters.onJobStart(new JobStart(worker, "queue", execution2));
+      execution2.fail();
+      meters.onJobFailure(new JobFailure(worker, "queue", execution2, new Exception()));
+
+      meters.onJobSkipped(new JobSkipped(worker, "queue", new Execution("namespace", "queue", 3, new TestJob())));
+
+      assertThat(registry.get(RedJobMeters.JOBS).tag("result", "processed").counter().count()).isEqualTo(1);
+      assertThat(registry.get(RedJobMeters.JOBS).tag("result", "failed").counter().count()).isEqualTo(1);
+      assertThat(registry.get(RedJobMeters.JOBS).tag("result", "skipped").counter().count()).isEqualTo(1);
+      assertThat(registry.get(RedJobMeters.JOBS_DURATION).tag("result", "processed").timer().count()).isEqualTo(1);
+      assertThat(registry.get(RedJobMeters.JOBS_ACTIVE).gauge().value()).isEqualTo(0);
+
+      meters.onWorkerStopped(new WorkerStopped(worker));
+      assertThat(registry.get(RedJobMeters.WORKERS).tag("state", "running").gauge().value()).isEqualTo(0);
+      assertThat(registry.get(RedJobMeters.WORKERS).tag("state", "stopped").gauge().value()).isEqualTo(1);
+   }
+
+   @Test
+   void busyAndIdleTime() throws Exception {
+      meters.onWorkerStart(new WorkerStart(worker));
+      Thread.sleep(20);
+      double idle = registry.get(RedJobMeters.WORKERS_IDLE).functionCounter().count();
+      assertThat(idle).isGreaterThanOrEqualTo(0.02);
+      assertThat(registry.get(RedJobMeters.WORKERS_BUSY).functionCounter().count()).isEqualTo(0);
+
+      Execution execution = new Execution("namespace", "queue", 1, new TestJob());
+      execution.start("worker");
+      meters.onJobStart(new JobStart(worker, "queue", execution));
+      Thread.sleep(20);
+      execution.stop();
+      meters.onJobSuccess(new JobSuccess(worker, "queue", execution));
+      double busy = registry.get(RedJobMeters.WORKERS_BUSY).functionCounter().count();
+      assertThat(busy).isGreaterThanOrEqualTo(0.02);
+      assertThat(registry.get(RedJobMeters.WORKERS_IDLE).functionCounter().count()).isLessThan(idle + 0.02);
+
+      // Stopped workers are neither busy nor idle.
+      meters.onWorkerStopped(new WorkerStopped(worker));
+      idle = registry.get(RedJobMeters.WORKERS_IDLE).functionCounter().count();
+      Thread.sleep(20);
+      assertThat(registry.get(RedJobMeters.WORKERS_IDLE).functionCounter().count()).isEqualTo(idle);
+      assertThat(registry.get(RedJobMeters.WORKERS_BUSY).functionCounter().count()).isEqualTo(busy);
+   }
+
+   @Test
+   void vetoedPolls() {
+      WorkerPoll poll = new WorkerPoll(worker, "queue");
+      meters.onWorkerPoll(poll);
+      poll.veto();
+      meters.onWorkerNext(new WorkerNext(worker, "queue"));
+
+      meters.onWorkerPoll(new WorkerPoll(worker, "queue"));
+      meters.onWorkerNext(new WorkerNext(worker, "queue"));
+
+      assertThat(registry.get(RedJobMeters.POLLS_VETOED).tag("queue", "queue").counter().count()).isEqualTo(1);
+   }
+
+   @Test
+   void noRegistry() {
+      RedJobMeters disabled = new RedJobMeters();
+      disabled.afterPropertiesSet();
+      disabled.onWorkerStart(new WorkerStart(worker));
+      disabled.onJobSkipped(new JobSkipped(worker, "queue", new Execution("namespace", "queue", 1, new TestJob())));
+
+      assertThat(registry.find(RedJobMeters.JOBS).counters()).isEmpty();
+
+      // Without a registry no events are listened to at all.
+      assertThat(disabled.supportsEventType(WorkerPoll.class)).isFalse();
+      assertThat(disabled.supportsEventType(JobSuccess.class)).isFalse();
+      ListenerAwareEventMulticaster multicaster = new ListenerAwareEventMulticaster();
+      multicaster.addApplicationListener(disabled);
+      assertThat(multicaster.hasListeners(WorkerPoll.class)).isFalse();
+      assertThat(multicaster.hasListeners(WorkerNext.class)).isFalse();
+   }
+
+   @Test
+   void supportsEventType() {
+      assertThat(meters.supportsEventType(WorkerPoll.class)).isTrue();
+      assertThat(meters.supportsEventType(JobSuccess.class)).isTrue();
+      assertThat(meters.supportsEventType(JobExecute.class)).isFalse();
+
+      ListenerAwareEventMulticaster multicaster = new ListenerAwareEventMulticaster();
+      multicaster.addApplicationListener(meters);
+      assertThat(multicaster.hasListeners(WorkerPoll.class)).isTrue();
+
+      multicaster.multicastEvent(new WorkerStart(worker));
+      assertThat(registry.get(RedJobMeters.WORKERS).tag("state", "running").gauge().value()).isEqualTo(1);
+   }
+}
@@ -0,0 +1,132 @@
+package com.s24.redjob.queue;
+
+import com.s24.redjob.worker.WorkerDao;
+import com.s24.redjob.worker.events.JobSuccess;
+import com.s24.redjob.worker.events.ListenerAwareEventMulticaster;
+
+import java.lang.reflect.Proxy;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.context.support.AbstractApplicationContext;
+
+/**
+ * Benchmark for the poll loop of a {@link FifoWorker} on an empty queue,
+ * with and without the {@link ListenerAwareEventMulticaster}.
+ * Redis is stubbed out, so that just the overhead of the worker itself gets measured.
+ * <p>
+ * Run {@link #main(String[])} from the IDE or with the test classpath.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IdlePollBenchmark {
+   /**
+    * Use the {@link ListenerAwareEventMulticaster}?.
+    */
+   @Param({ "false", "true" })
+   private boolean listenerAware;
+
+   /**
+    * Application context.
+    */
+   private AnnotationConfigApplicationContext context;
+
+   /**
+    * Worker under test.
+    */
+   private FifoWorker worker;
+
+   /**
+    * Setup application context and worker.
+    */
+   @Setup
+   public void setUp() throws Exception {
+      context = new AnnotationConfigApplicationContext();
+      if (listenerAware) {
+         context.registerBean(AbstractApplicationContext.APPLICATION_EVENT_MULTICASTER_BEAN_NAME,
+               ListenerAwareEventMulticaster.class);
+      }
+      context.registerBean(JobListener.class);
+      context.refresh();
+
+      worker = new FifoWorker();
+      worker.setQueues("queue");
+      worker.setFifoDao(stub(FifoDao.class));
+      worker.setWorkerDao(stub(WorkerDao.class));
+      worker.setExecutionStrategy((queue, execution) -> {});
+      worker.setApplicationEventPublisher(context);
+      worker.afterPropertiesSet();
+   }
+
+   /**
+    * Close application context.
+    */
+   @TearDown
+   public void tearDown() {
+      context.close();
+   }
+
+   /**
+    * One poll of the empty queue.
+    */
+   @Benchmark
+   public boolean poll() throws Throwable {
+      return worker.pollQueueIfNotVetoed("queue");
+   }
+
+   /**
+    * Stub for daos: Does nothing and returns null for every call, e.g. an empty queue.
+    */
+   private static <T> T stub(Class<T> type) {
+      return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type },
+            (proxy, method, args) -> null));
+   }
+
+   /**
+    * Typical listener: Just interested in some of the job events.
+    */
+   public static class JobListener {
+      /**
+       * Count successful jobs of another queue.
+       */
+      private long success;
+
+      /**
+       * Listens to successful jobs of another queue.
+       */
+      @EventListener(condition = "#event.queue == 'other'")
+      public void onSuccess(JobSuccess event) {
+         success++;
+      }
+   }
+
+   /**
+    * Run benchmark.
+    */
+   public static void main(String[] args) throws Exception {
+      new Runner(new OptionsBuilder()
+            .include(IdlePollBenchmark.class.getSimpleName())
+            .build())
+            .run();
+   }
+}
@@ -0,0 +1,84 @@
+package com.s24.redjob.worker;
+
+import com.s24.redjob.mockito.EnableMockito;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Test for {@link WorkerStatePersister}.
+ */
+@EnableMockito
+class WorkerStatePersisterTest {
+   /**
+    * Worker dao.
+    */
+   @Mock
+   private WorkerDao workerDao;
+
+   /**
+    * Worker state.
+    */
+   private WorkerState state = new WorkerState();
+
+   /**
+    * Persister under test.
+    */
+   private WorkerStatePersister persister;
+
+   @BeforeEach
+   void setUp() {
+      // Long flush interval, so that the test controls the flushes.
+      persister = new WorkerStatePersister(workerDao, "worker", state, 60_000);
+   }
+
+   @Test
+   void transition() {
+      state.start();
+      persister.transition();
+
+      verify(workerDao).state("worker", state);
+   }
+
+   @Test
+   void changed() {
+      state.start();
+      persister.transition();
+
+      // Counter changes are coalesced until the next flush.
+      state.incSuccess();
+      persister.changed();
+      state.incFailed();
+      persister.changed();
+      verify(workerDao, times(1)).state("worker", state);
+
+      persister.flush();
+      verify(workerDao, times(2)).state("worker", state);
+
+      // Nothing to flush.
+      persister.flush();
+      verify(workerDao, times(2)).state("worker", state);
+   }
+
+   @Test
+   void terminated() {
+      state.start();
+      persister.transition();
+      state.stop();
+      state.stopped();
+      persister.transition();
+      verify(workerDao, times(2)).state("worker", state);
+
+      // No flushes after stop, because they would recreate the deleted state of the worker.
+      state.incSuccess();
+      persister.changed();
+      persister.flush();
+      verify(workerDao, times(2)).state("worker", state);
+      verify(workerDao, never()).stop("worker");
+   }
+}
@@ -0,0 +1,56 @@
+package com.s24.redjob.worker;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test for {@link WorkerState}.
+ */
+class WorkerStateTest {
+   @Test
+   void concurrentCounters() throws Exception {
+      WorkerState state = new WorkerState();
+
+      ExecutorService executor = Executors.newFixedThreadPool(4);
+      for (int i = 0; i < 4; i++) {
+         executor.execute(() -> {
+            for (int j = 0; j < 10_000; j++) {
+               state.incSuccess(TimeUnit.MILLISECONDS.toNanos(1));
+               state.incFailed();
+            }
+         });
+      }
+      executor.shutdown();
+      assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+      WorkerStats stats = state.getStats();
+      assertThat(stats.getSuccess()).isEqualTo(40_000);
+      assertThat(stats.getFailed()).isEqualTo(40_000);
+      assertThat(stats.getBusyMillis()).isEqualTo(40_000);
+      assertThat(stats.getLastJob()).isNotNull();
+   }
+
+   @Test
+   void serialization() throws Exception {
+      WorkerState state = new WorkerState();
+      state.start();
+      state.incSuccess(TimeUnit.MILLISECONDS.toNanos(3));
+      state.incFailed(TimeUnit.MILLISECONDS.toNanos(2));
+
+      JsonNode json = new ObjectMapper().valueToTree(state);
+      assertThat(json.get("state").asText()).isEqualTo(WorkerState.RUNNING);
+      assertThat(json.get("success").asLong()).isEqualTo(1);
+      assertThat(json.get("failed").asLong()).isEqualTo(1);
+      assertThat(json.get("busyMillis").asLong()).isEqualTo(5);
+      assertThat(json.has("lastJob")).isTrue();
+      assertThat(json.has("stats")).isFalse();
+   }
+}
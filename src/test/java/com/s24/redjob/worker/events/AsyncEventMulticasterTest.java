@@ -0,0 +1,162 @@
+package com.s24.redjob.worker.events;
+
+import com.s24.redjob.mockito.EnableMockito;
+import com.s24.redjob.worker.Execution;
+import com.s24.redjob.worker.Worker;
+import com.s24.redjob.worker.events.AsyncEventMulticaster.OverflowPolicy;
+import com.s24.redjob.worker.runner.TestJob;
+
+import java.util.Arrays;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationListener;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test for {@link AsyncEventMulticaster}.
+ */
+@EnableMockito
+class AsyncEventMulticasterTest {
+   /**
+    * Worker.
+    */
+   @Mock
+   private Worker worker;
+
+   /**
+    * Threads the events have been delivered in.
+    */
+   private final BlockingQueue<Thread> threads = new LinkedBlockingQueue<>();
+
+   /**
+    * Blocks the delivery threads until released.
+    */
+   private final CountDownLatch release = new CountDownLatch(1);
+
+   /**
+    * Multicaster under test.
+    */
+   private AsyncEventMulticaster multicaster = new AsyncEventMulticaster();
+
+   @BeforeEach
+   void setUp() {
+      multicaster.addApplicationListener(new ApplicationListener<ApplicationEvent>() {
+         @Override
+         public void onApplicationEvent(ApplicationEvent event) {
+            threads.add(Thread.currentThread());
+            if (Thread.currentThread().getName().startsWith("Worker event delivery")) {
+               await();
+            }
+         }
+      });
+   }
+
+   @AfterEach
+   void tearDown() throws Exception {
+      release.countDown();
+      multicaster.destroy();
+   }
+
+   @Test
+   void veto() throws Exception {
+      multicaster.afterPropertiesSet();
+
+      multicaster.multicastEvent(new WorkerPoll(worker, "queue"));
+      assertThat(threads.poll()).isSameAs(Thread.currentThread());
+   }
+
+   @Test
+   void job() throws Exception {
+      multicaster.afterPropertiesSet();
+
+      multicaster.multicastEvent(new JobSuccess(worker, "queue", new Execution("namespace", "queue", 1, new TestJob())));
+      assertThat(threads.poll()).isSameAs(Thread.currentThread());
+   }
+
+   @Test
+   void job_async() throws Exception {
+      multicaster.setAsyncEventTypes(Arrays.asList(JobSuccess.class, WorkerPoll.class));
+      multicaster.afterPropertiesSet();
+
+      multicaster.multicastEvent(new JobSuccess(worker, "queue", new Execution("namespace", "queue", 1, new TestJob())));
+      assertThat(threads.poll(1, TimeUnit.SECONDS)).isNotSameAs(Thread.currentThread());
+
+      // Veto events are never delivered asynchronously.
+      multicaster.multicastEvent(new WorkerPoll(worker, "queue"));
+      assertThat(threads.poll()).isSameAs(Thread.currentThread());
+
+      // Not configured anymore.
+      multicaster.multicastEvent(start());
+      assertThat(threads.poll()).isSameAs(Thread.currentThread());
+   }
+
+   @Test
+   void async() throws Exception {
+      multicaster.afterPropertiesSet();
+
+      multicaster.multicastEvent(start());
+      assertThat(threads.poll(1, TimeUnit.SECONDS)).isNotSameAs(Thread.currentThread());
+   }
+
+   @Test
+   void overflow_callerRuns() throws Exception {
+      multicaster.setQueueCapacity(1);
+      multicaster.afterPropertiesSet();
+
+      // First event gets delivered and blocks, second event gets queued.
+      multicaster.multicastEvent(start());
+      multicaster.multicastEvent(start());
+      assertThat(threads.poll(1, TimeUnit.SECONDS)).isNotSameAs(Thread.currentThread());
+
+      multicaster.multicastEvent(start());
+      assertThat(threads.poll()).isSameAs(Thread.currentThread());
+      assertThat(multicaster.getDiscarded()).isEqualTo(0);
+   }
+
+   @Test
+   void overflow_discard() throws Exception {
+      multicaster.setQueueCapacity(1);
+      multicaster.setOverflowPolicy(OverflowPolicy.DISCARD);
+      multicaster.afterPropertiesSet();
+
+      // First event gets delivered and blocks, second event gets queued.
+      multicaster.multicastEvent(start());
+      multicaster.multicastEvent(start());
+      assertThat(threads.poll(1, TimeUnit.SECONDS)).isNotSameAs(Thread.currentThread());
+
+      multicaster.multicastEvent(start());
+      assertThat(threads.poll()).isNull();
+      assertThat(multicaster.getDiscarded()).isEqualTo(1);
+
+      // Queued event gets delivered.
+      release.countDown();
+      assertThat(threads.poll(1, TimeUnit.SECONDS)).isNotSameAs(Thread.currentThread());
+   }
+
+   /**
+    * Create worker start event.
+    */
+   private WorkerStart start() {
+      return new WorkerStart(worker);
+   }
+
+   /**
+    * Wait until the delivery threads get released.
+    */
+   private void await() {
+      try {
+         release.await(10, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+      }
+   }
+}
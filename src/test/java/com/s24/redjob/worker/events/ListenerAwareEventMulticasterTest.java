@@ -0,0 +1,49 @@
+package com.s24.redjob.worker.events;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationListener;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test for {@link ListenerAwareEventMulticaster}.
+ */
+class ListenerAwareEventMulticasterTest {
+   /**
+    * Multicaster under test.
+    */
+   private ListenerAwareEventMulticaster multicaster = new ListenerAwareEventMulticaster();
+
+   @Test
+   void hasListeners() {
+      assertThat(multicaster.hasListeners(WorkerPoll.class)).isFalse();
+      assertThat(multicaster.hasListeners(JobSuccess.class)).isFalse();
+
+      // No lambda, because its event type can't be resolved.
+      ApplicationListener<JobSuccess> listener = new ApplicationListener<>() {
+         @Override
+         public void onApplicationEvent(JobSuccess event) {
+         }
+      };
+      multicaster.addApplicationListener(listener);
+      assertThat(multicaster.hasListeners(WorkerPoll.class)).isFalse();
+      assertThat(multicaster.hasListeners(JobSuccess.class)).isTrue();
+
+      multicaster.removeApplicationListener(listener);
+      assertThat(multicaster.hasListeners(WorkerPoll.class)).isFalse();
+      assertThat(multicaster.hasListeners(JobSuccess.class)).isFalse();
+   }
+
+   @Test
+   void hasListeners_supertype() {
+      ApplicationListener<ApplicationEvent> listener = new ApplicationListener<>() {
+         @Override
+         public void onApplicationEvent(ApplicationEvent event) {
+         }
+      };
+      multicaster.addApplicationListener(listener);
+      assertThat(multicaster.hasListeners(WorkerPoll.class)).isTrue();
+      assertThat(multicaster.hasListeners(JobSuccess.class)).isTrue();
+   }
+}